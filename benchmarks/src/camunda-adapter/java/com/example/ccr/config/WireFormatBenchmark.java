@@ -0,0 +1,127 @@
+package com.example.ccr.config;
+
+import com.example.ccr.service.CaseQueryService;
+import com.example.ccr.service.CaseSummary;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A case listing on the orchestrator link, as JSON and as Smile from {@link WireFormatConfiguration}.
+ * <p>
+ * One operation writes or reads one listing of {@code cases} rows with every field in
+ * {@link CaseQueryService#FIELDS}; the {@code Gzip} variants add the compression Tomcat applies.
+ * The encoded sizes, raw and gzipped, are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<Map<String, Object>>> ROWS = new TypeReference<>() {
+    };
+
+    @Param({"500", "50000"})
+    public int cases;
+
+    private ObjectMapper json;
+    private ObjectMapper smile;
+    private List<Map<String, Object>> listing;
+    private byte[] asJson;
+    private byte[] asSmile;
+
+    @Setup
+    public void setUp() throws IOException {
+        // As Spring Boot configures it: dates as ISO-8601 strings
+        json = builder().build();
+        smile = WireFormatConfiguration.smileMapper(builder());
+        listing = listing(cases);
+        asJson = json.writeValueAsBytes(listing);
+        asSmile = smile.writeValueAsBytes(listing);
+        System.out.printf("%n%d cases: JSON %d B (gzip %d B), Smile %d B (gzip %d B)%n",
+                cases, asJson.length, gzip(asJson).length, asSmile.length, gzip(asSmile).length);
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return json.writeValueAsBytes(listing);
+    }
+
+    @Benchmark
+    public byte[] writeSmile() throws IOException {
+        return smile.writeValueAsBytes(listing);
+    }
+
+    @Benchmark
+    public byte[] writeJsonGzip() throws IOException {
+        return gzip(json.writeValueAsBytes(listing));
+    }
+
+    @Benchmark
+    public byte[] writeSmileGzip() throws IOException {
+        return gzip(smile.writeValueAsBytes(listing));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> readJson() throws IOException {
+        return json.readValue(asJson, ROWS);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> readSmile() throws IOException {
+        return smile.readValue(asSmile, ROWS);
+    }
+
+    private static List<Map<String, Object>> listing(int size) {
+        long start = 1_700_000_000_000L;
+        List<Map<String, Object>> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Date startTime = new Date(start + i * 61_000L);
+            CaseSummary summary = new CaseSummary("c0a8" + Integer.toHexString(0x100000 + i) + "-8f3e-11ef-9c1b-0242ac120002",
+                    "998-" + (100_000 + i), "loan-origination", startTime,
+                    i % 3 == 0 ? new Date(startTime.getTime() + 3_600_000L) : null,
+                    i % 3 == 0 ? "COMPLETED" : "ACTIVE", null, null);
+            Map<String, Object> row = new LinkedHashMap<>();
+            CaseQueryService.FIELDS.forEach((field, value) -> row.put(field, value.apply(summary)));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
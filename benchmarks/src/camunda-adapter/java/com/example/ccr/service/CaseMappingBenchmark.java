@@ -0,0 +1,95 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.impl.persistence.entity.HistoricProcessInstanceEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.TaskEntity;
+import org.camunda.bpm.engine.task.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code WorkflowController}'s case listing: engine {@link HistoricProcessInstance}s mapped to
+ * {@link CaseSummary} rows, and a page of rows projected to the maps that are serialized.
+ * <p>
+ * One operation is one page of {@code pageSize} cases; {@code projection} is either
+ * {@link CaseQueryService#DEFAULT_FIELDS} or every field in {@link CaseQueryService#FIELDS}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseMappingBenchmark {
+
+    @Param({"50", "500"})
+    public int pageSize;
+
+    @Param({"default", "all"})
+    public String projection;
+
+    private HistoricProcessInstance[] instances;
+    private Task[] tasks;
+    private List<CaseSummary> rows;
+    private List<String> fields;
+
+    @Setup
+    public void setUp() {
+        instances = new HistoricProcessInstance[pageSize];
+        tasks = new Task[pageSize];
+        rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            HistoricProcessInstanceEntity hi = new HistoricProcessInstanceEntity();
+            hi.setId("pi-" + i);
+            hi.setBusinessKey("CASE-" + (100_000 + i));
+            hi.setProcessDefinitionKey("credit-case");
+            hi.setStartTime(new Date(1_792_310_400_000L + i * 60_000L));
+            if (i % 4 == 0) {
+                hi.setEndTime(new Date(1_792_310_400_000L + i * 60_000L + 3_600_000L));
+                hi.setState(HistoricProcessInstance.STATE_COMPLETED);
+            } else {
+                hi.setState(HistoricProcessInstance.STATE_ACTIVE);
+                TaskEntity task = new TaskEntity();
+                task.setId("task-" + i);
+                task.setName("Review application");
+                tasks[i] = task;
+            }
+            instances[i] = hi;
+            rows.add(CaseSummary.of(hi, tasks[i]));
+        }
+        fields = "all".equals(projection) ? List.copyOf(CaseQueryService.FIELDS.keySet()) : CaseQueryService.DEFAULT_FIELDS;
+    }
+
+    @Benchmark
+    public List<CaseSummary> mapInstances() {
+        List<CaseSummary> page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(CaseSummary.of(instances[i], tasks[i]));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> projectPage() {
+        List<Map<String, Object>> page = new ArrayList<>(rows.size());
+        for (CaseSummary row : rows) {
+            page.add(CaseQueryService.project(row, fields));
+        }
+        return page;
+    }
+}
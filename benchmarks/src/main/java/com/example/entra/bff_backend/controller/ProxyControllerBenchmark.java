@@ -0,0 +1,40 @@
+package com.example.entra.bff_backend.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code /v1/proxy/**} to data-backend URL rewrite done for every proxied request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyControllerBenchmark {
+
+    private static final String DATA_BACKEND_URL = "http://localhost:3002";
+
+    @Param({"/v1/proxy/data/metrics", "/v1/proxy/data/analytics/stream"})
+    public String requestUri;
+
+    @Param({"", "series=jvm.heap.used&from=2026-10-18T10:00:00Z&step=1m"})
+    public String queryString;
+
+    @Benchmark
+    public String rewriteUrl() {
+        String path = ProxyController.upstreamPath(requestUri);
+        return ProxyController.upstreamUrl(DATA_BACKEND_URL, path, queryString.isEmpty() ? null : queryString);
+    }
+}
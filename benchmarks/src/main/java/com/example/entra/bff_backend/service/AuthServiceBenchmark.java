@@ -0,0 +1,47 @@
+package com.example.entra.bff_backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PKCE work done on every login: a fresh code verifier and its S256 challenge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    private AuthService authService;
+    private String codeVerifier;
+
+    @Setup
+    public void setUp() {
+        // Neither method touches the token endpoint, so no RestTemplate is needed
+        authService = new AuthService(null);
+        codeVerifier = authService.generateCodeVerifier();
+    }
+
+    @Benchmark
+    public String generateCodeVerifier() {
+        return authService.generateCodeVerifier();
+    }
+
+    @Benchmark
+    public String generateCodeChallenge() throws NoSuchAlgorithmException {
+        return authService.generateCodeChallenge(codeVerifier);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.entra.bff_backend.service;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProxyResponseWriter} copying a data-backend response to the browser, streamed and from
+ * {@link ProxyResponseCache}.
+ * <p>
+ * The servlet side is a {@link MockHttpServletResponse} whose body is discarded, created per operation
+ * because a committed response cannot be reset; its own allocation is part of every result, so compare
+ * runs with each other rather than reading the bytes per operation as the writer's alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyResponseWriterBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int bodySize;
+
+    private ProxyResponseWriter writer;
+    private byte[] body;
+    private HttpHeaders upstreamHeaders;
+    private ProxyResponseCache.CachedResponse cached;
+    private String eTag;
+
+    @Setup
+    public void setUp() throws IOException {
+        writer = new ProxyResponseWriter(8192, 256);
+        body = new byte[bodySize];
+        Arrays.fill(body, (byte) 'x');
+        eTag = "\"5d41402abc4b2a76b9719d911017c592\"";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(bodySize);
+        headers.setETag(eTag);
+        headers.setCacheControl(CacheControl.noCache());
+        upstreamHeaders = HttpHeaders.readOnlyHttpHeaders(headers);
+        cached = writer.read(upstream());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse copyUpstream() throws IOException {
+        MockHttpServletResponse response = new DiscardingResponse();
+        writer.write(upstream(), response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse writeCached() throws IOException {
+        MockHttpServletResponse response = new DiscardingResponse();
+        writer.write(cached, null, response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse revalidateCached() throws IOException {
+        MockHttpServletResponse response = new DiscardingResponse();
+        writer.write(cached, eTag, response);
+        return response;
+    }
+
+    private ClientHttpResponse upstream() {
+        InputStream in = new ByteArrayInputStream(body);
+        return new ClientHttpResponse() {
+            @Override
+            public HttpStatusCode getStatusCode() {
+                return HttpStatus.OK;
+            }
+
+            @Override
+            public String getStatusText() {
+                return "OK";
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return upstreamHeaders;
+            }
+
+            @Override
+            public InputStream getBody() {
+                return in;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+
+        private static final ServletOutputStream DISCARD = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return DISCARD;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.entra.data_backend.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * data-backend's {@code jwtAuthenticationConverter}, run once per authenticated request.
+ * <p>
+ * {@code sameToken} converts one {@link Jwt} over and over. {@code distinctTokens} cycles through tokens
+ * that carry equal claims in their own collections, as separately decoded tokens of users with the same
+ * scopes and roles do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationConverterBenchmark {
+
+    private static final int TOKENS = 1024;
+
+    private JwtAuthenticationConverter converter;
+    private Jwt[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        converter = new SecurityConfig().jwtAuthenticationConverter(1024);
+        tokens = new Jwt[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = Jwt.withTokenValue("token-" + i)
+                    .header("alg", "RS256")
+                    .subject("user-" + i)
+                    .issuedAt(Instant.parse("2026-10-18T08:00:00Z"))
+                    .expiresAt(Instant.parse("2026-10-18T09:00:00Z"))
+                    .claim("scp", "Data.Read Data.Write")
+                    .claim("roles", new ArrayList<>(List.of("role.alpha", "role.beta")))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken sameToken() {
+        return converter.convert(tokens[0]);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken distinctTokens() {
+        next = (next + 1) & (TOKENS - 1);
+        return converter.convert(tokens[next]);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.entra.data_backend.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON body of a {@code DataController} range query ({@code /metrics?from=...}), serialized per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeriesRangeBenchmark {
+
+    @Param({"60", "1000"})
+    public int points;
+
+    private JsonMapper jsonMapper;
+    private SeriesRange range;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        long[] timestamps = new long[points];
+        double[] avg = new double[points];
+        double[] min = new double[points];
+        double[] max = new double[points];
+        long[] count = new long[points];
+        for (int i = 0; i < points; i++) {
+            timestamps[i] = 1_792_310_400_000L + i * 60_000L;
+            avg[i] = 180_000_000 + (i % 17) * 1_234_567.89;
+            min[i] = avg[i] - 25_000_000;
+            max[i] = avg[i] + 25_000_000;
+            count[i] = 60;
+        }
+        range = new SeriesRange(JvmMetricsSampler.HEAP_USED, 60_000, 60_000, timestamps, avg, min, max, count);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return jsonMapper.writeValueAsBytes(range);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.entra.data_backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON behind {@code DataController}'s responses.
+ * <p>
+ * {@code /metrics} and {@code /analytics} are serialized by {@link DataStore#publish} whenever their data
+ * is published: {@code publishUnchanged} is the common case of a republish that keeps the current version,
+ * {@code publishChanged} one that creates a new version and ETag. Range query bodies, serialized per
+ * request, are covered by {@code SeriesRangeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataSerializationBenchmark {
+
+    private DataStore dataStore;
+    private Map<String, Object> metrics;
+    private int version;
+
+    @Setup
+    public void setUp() {
+        dataStore = new DataStore(JsonMapper.builder().build());
+        metrics = new LinkedHashMap<>();
+        metrics.put("source", "Data Backend");
+        metrics.put("type", "Metrics");
+        metrics.put("value", 1250);
+        metrics.put("status", "Healthy");
+        dataStore.publish(DataStore.METRICS, metrics);
+    }
+
+    @Benchmark
+    public DataStore.Snapshot publishUnchanged() {
+        return dataStore.publish(DataStore.METRICS, metrics);
+    }
+
+    @Benchmark
+    public DataStore.Snapshot publishChanged() {
+        Map<String, Object> changed = new LinkedHashMap<>(metrics);
+        changed.put("value", ++version);
+        return dataStore.publish(DataStore.METRICS, changed);
+    }
+}
@@ -2,8 +2,10 @@ package com.example.entra.bff_backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BffBackendApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,20 @@
+package com.example.entra.bff_backend.config;
+
+import com.example.entra.bff_backend.service.ProxyResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Role-aware cache for proxied responses; inert unless {@code app.proxy.cache.enabled=true}.
+ */
+@Configuration
+@EnableConfigurationProperties(ProxyCacheProperties.class)
+public class ProxyCacheConfig {
+
+    @Bean
+    public ProxyResponseCache proxyResponseCache(ProxyCacheProperties properties, MeterRegistry registry) {
+        return new ProxyResponseCache(properties, registry);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.entra.bff_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared cache for proxied GET responses, keyed by path, query and the session's role set.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.proxy.cache")
+public class ProxyCacheProperties {
+
+    public enum Eviction { LRU, LFU }
+
+    private boolean enabled = false;
+
+    /** Upstream paths (after the /v1/proxy rewrite) to cache and for how long, e.g. {@code "[/v1/data/metrics]": 5s}. */
+    private Map<String, Duration> routes = new LinkedHashMap<>();
+
+    private int maxEntries = 1024;
+
+    /** Larger responses are passed through without being cached. */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+    /** Which entry to drop when the cache is full: least recently or least frequently used. */
+    private Eviction eviction = Eviction.LRU;
+
+    /** How long a request waits for a concurrent fetch of the same key before fetching on its own. */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+}
@@ -4,9 +4,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -22,6 +27,36 @@ public class SecurityConfig {
     @Value("${app.react-url}")
     private String reactUrl;
 
+    /**
+     * Actuator endpoints sit outside the browser session: health is public, everything else (metrics
+     * name upstream hosts and traffic volumes) needs HTTP Basic credentials with the ACTUATOR role.
+     * Without {@code app.actuator.password} no such user exists and only health is reachable.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http,
+                                                           @Value("${app.actuator.username:actuator}") String username,
+                                                           @Value("${app.actuator.password:}") String password) throws Exception {
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager();
+        if (!password.isEmpty()) {
+            users.createUser(User.withUsername(username)
+                    .password(PasswordEncoderFactories.createDelegatingPasswordEncoder().encode(password))
+                    .roles("ACTUATOR")
+                    .build());
+        }
+        http
+                .securityMatcher("/actuator/**")
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .userDetailsService(users)
+                .httpBasic(Customizer.withDefaults())
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health").permitAll()
+                        .anyRequest().hasRole("ACTUATOR")
+                );
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -0,0 +1,72 @@
+package com.example.entra.bff_backend.config;
+
+import com.example.entra.bff_backend.session.OffHeapSessionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Replaces the servlet container's sessions with {@link OffHeapSessionRepository} when
+ * {@code app.session.store=offheap}. The default ({@code container}) leaves Tomcat sessions in place.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.session", name = "store", havingValue = "offheap")
+@EnableSpringHttpSession
+@EnableConfigurationProperties(SessionStoreProperties.class)
+public class SessionStoreConfig {
+
+    @Bean
+    public OffHeapSessionRepository sessionRepository(SessionStoreProperties properties) {
+        return new OffHeapSessionRepository(properties.getMaxMemory().toBytes(),
+                (int) properties.getSegmentSize().toBytes(),
+                StringUtils.hasText(properties.getFile()) ? Path.of(properties.getFile()) : null,
+                properties.getIdleTimeout(),
+                properties.getAbsoluteTimeout(),
+                properties.getLockStripes());
+    }
+
+    /**
+     * Keeps the cookie attributes configured for container sessions under {@code server.servlet.session.cookie}.
+     */
+    @Bean
+    public CookieSerializer cookieSerializer(@Value("${server.servlet.session.cookie.same-site:lax}") String sameSite,
+                                             @Value("${server.servlet.session.cookie.secure:false}") boolean secure) {
+        DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        serializer.setSameSite(sameSite.substring(0, 1).toUpperCase() + sameSite.substring(1).toLowerCase());
+        serializer.setUseSecureCookie(secure);
+        return serializer;
+    }
+
+    @Bean
+    public MeterBinder sessionStoreMetrics(OffHeapSessionRepository sessionRepository) {
+        return registry -> {
+            Gauge.builder("bff.session.store.sessions", sessionRepository, OffHeapSessionRepository::size)
+                    .description("Sessions held in the off-heap store")
+                    .register(registry);
+            registerBytesGauge(registry, sessionRepository, "used", OffHeapSessionRepository::usedBytes);
+            registerBytesGauge(registry, sessionRepository, "reserved", OffHeapSessionRepository::reservedBytes);
+            registerBytesGauge(registry, sessionRepository, "max", OffHeapSessionRepository::maxBytes);
+        };
+    }
+
+    private static void registerBytesGauge(MeterRegistry registry, OffHeapSessionRepository sessionRepository,
+                                           String state, ToDoubleFunction<OffHeapSessionRepository> value) {
+        Gauge.builder("bff.session.store.bytes", sessionRepository, value)
+                .tag("state", state)
+                .baseUnit("bytes")
+                .description("Off-heap session store memory")
+                .register(registry);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.entra.bff_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the off-heap session store, used when {@code app.session.store=offheap}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.session.offheap")
+public class SessionStoreProperties {
+
+    /** Upper bound for all session records together. */
+    private DataSize maxMemory = DataSize.ofMegabytes(256);
+
+    /** Memory is reserved in chunks of this size as sessions are created. */
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    /** Memory-map this file so sessions survive a restart; direct memory is used when unset. */
+    private String file;
+
+    /** Sessions expire after this long without a request. */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    /** Sessions expire this long after creation, however active they are. */
+    private Duration absoluteTimeout = Duration.ofHours(12);
+
+    /** How often expired sessions are freed; read by {@code OffHeapSessionRepository#evictExpired}. */
+    private Duration evictionInterval = Duration.ofSeconds(60);
+
+    private int lockStripes = 64;
+}
@@ -0,0 +1,117 @@
+package com.example.entra.bff_backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Shared outbound HTTP client for the proxy path and the Entra token calls.
+ * <p>
+ * By default this is a pooled HTTP/1.1 keep-alive client with per-host limits, so a slow
+ * upstream can only hold as many Tomcat threads as its route allows; everything else fails
+ * fast after {@code app.upstream.connection-request-timeout}. With {@code app.upstream.http2=true}
+ * the JDK client is used instead and requests are multiplexed over one connection per host.
+ */
+@Configuration
+@EnableConfigurationProperties(UpstreamClientProperties.class)
+public class UpstreamClientConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.upstream", name = "http2", havingValue = "false", matchIfMissing = true)
+    public PoolingHttpClientConnectionManager upstreamConnectionManager(UpstreamClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerHost())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        properties.getHostMaxConnections().forEach((origin, max) ->
+                connectionManager.setMaxPerRoute(routeFor(origin), max));
+        return connectionManager;
+    }
+
+    @Bean
+    public ClientHttpRequestFactory upstreamRequestFactory(UpstreamClientProperties properties,
+                                                           ObjectProvider<PoolingHttpClientConnectionManager> connectionManager) {
+        if (properties.isHttp2()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(properties.getConnectTimeout())
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(properties.getReadTimeout());
+            return requestFactory;
+        }
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager.getObject())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(properties.getIdleTimeout()))
+                .evictExpiredConnections()
+                // The proxy forwards Content-Encoding untouched, so bodies must not be decoded on the way in
+                .disableContentCompression()
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @Bean
+    public RestTemplate upstreamRestTemplate(ClientHttpRequestFactory upstreamRequestFactory) {
+        return new RestTemplate(upstreamRequestFactory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.upstream", name = "http2", havingValue = "false", matchIfMissing = true)
+    public MeterBinder upstreamPoolMetrics(PoolingHttpClientConnectionManager upstreamConnectionManager) {
+        return registry -> {
+            registerPoolGauge(registry, upstreamConnectionManager, "leased", PoolStats::getLeased);
+            registerPoolGauge(registry, upstreamConnectionManager, "pending", PoolStats::getPending);
+            registerPoolGauge(registry, upstreamConnectionManager, "available", PoolStats::getAvailable);
+            registerPoolGauge(registry, upstreamConnectionManager, "max", PoolStats::getMax);
+        };
+    }
+
+    private static void registerPoolGauge(MeterRegistry registry, PoolingHttpClientConnectionManager connectionManager,
+                                          String state, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder("bff.upstream.pool.connections", connectionManager, cm -> value.applyAsDouble(cm.getTotalStats()))
+                .tag("state", state)
+                .description("Upstream HTTP connection pool usage")
+                .register(registry);
+    }
+
+    private static HttpRoute routeFor(String origin) {
+        URI uri = URI.create(origin);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.entra.bff_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Limits for the shared outbound HTTP client used for data-backend and Entra token calls.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.upstream")
+public class UpstreamClientProperties {
+
+    /** Use the JDK client with HTTP/2 instead of the pooled HTTP/1.1 keep-alive client. */
+    private boolean http2 = false;
+
+    /** Maximum open connections across all hosts. */
+    private int maxConnections = 200;
+
+    /** Default maximum open connections per host. */
+    private int maxConnectionsPerHost = 50;
+
+    /** Per-host overrides keyed by origin, e.g. {@code "[http://localhost:3002]": 100} in YAML. */
+    private Map<String, Integer> hostMaxConnections = new LinkedHashMap<>();
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /** How long a request may wait for a free pooled connection before failing. */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    /** Idle keep-alive connections are closed after this long. */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+}
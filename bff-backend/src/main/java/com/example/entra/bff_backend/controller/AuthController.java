@@ -2,6 +2,7 @@ package com.example.entra.bff_backend.controller;
 
 import com.example.entra.bff_backend.dto.UserInfo;
 import com.example.entra.bff_backend.service.AuthService;
+import com.example.entra.bff_backend.service.TokenRefreshService;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.JWTParser;
@@ -28,6 +29,7 @@ public class AuthController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     private final AuthService authService;
+    private final TokenRefreshService tokenRefreshService;
     private final org.springframework.core.env.Environment environment;
 
     @Value("${spring.security.oauth2.client.registration.entra.client-id}")
@@ -111,6 +113,7 @@ public class AuthController {
             session.setAttribute("access_token", "mock-access-token");
             session.setAttribute("user_name", "Mock Developer");
             session.setAttribute("user_roles", List.of("role.alpha", "role.beta")); // Grant all roles
+            session.setAttribute(TokenRefreshService.ACCESS_TOKEN_SCOPES, "Data.Read");
             response.sendRedirect(reactUrl);
             return;
         }
@@ -124,8 +127,7 @@ public class AuthController {
         Map<String, Object> tokenResponse = authService.exchangeCodeForToken(code, codeVerifier);
 
         String accessToken = (String) tokenResponse.get("access_token");
-        session.setAttribute("access_token", accessToken);
-        session.setAttribute("refresh_token", tokenResponse.get("refresh_token"));
+        tokenRefreshService.storeTokens(session, tokenResponse);
 
         // Log access token claims for debugging
         if (accessToken != null) {
@@ -168,9 +170,10 @@ public class AuthController {
             return ResponseEntity.status(401).body("No refresh token found");
         }
 
-        Map<String, Object> tokenResponse = authService.refreshToken(refreshToken);
-        session.setAttribute("access_token", tokenResponse.get("access_token"));
-        session.setAttribute("refresh_token", tokenResponse.get("refresh_token"));
+        // Shares the refresh with any background or proxy-triggered refresh already in flight
+        if (tokenRefreshService.forceRefresh(session) == null) {
+            return ResponseEntity.status(401).body("Token refresh failed");
+        }
 
         return ResponseEntity.ok().build();
     }
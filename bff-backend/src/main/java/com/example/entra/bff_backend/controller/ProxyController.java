@@ -1,17 +1,35 @@
 package com.example.entra.bff_backend.controller;
 
+import com.example.entra.bff_backend.dto.BatchRequest;
+import com.example.entra.bff_backend.service.DataBackendClient;
+import com.example.entra.bff_backend.service.ProxyBatchService;
+import com.example.entra.bff_backend.service.ProxyResponseCache;
+import com.example.entra.bff_backend.service.ProxyResponseWriter;
+import com.example.entra.bff_backend.service.StreamFanOutService;
+import com.example.entra.bff_backend.service.TokenRefreshService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 
 @RestController
 @RequestMapping("/v1/proxy")
@@ -20,24 +38,42 @@ public class ProxyController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProxyController.class);
 
+    private static final List<String> CONDITIONAL_HEADERS = List.of(
+            HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE
+    );
+
     @Value("${app.data-backend-url:http://localhost:3002}")
     private String dataBackendUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${app.proxy.streaming:true}")
+    private boolean streaming;
+
+    private final ProxyResponseWriter proxyResponseWriter;
+
+    private final RestTemplate restTemplate;
+
+    private final DataBackendClient dataBackendClient;
+
+    private final TokenRefreshService tokenRefreshService;
+
+    private final ProxyResponseCache proxyResponseCache;
+
+    private final ProxyBatchService proxyBatchService;
+
+    private final StreamFanOutService streamFanOutService;
 
     @GetMapping("/**")
-    public ResponseEntity<?> proxyRequest(HttpSession session, jakarta.servlet.http.HttpServletRequest request) {
-        String accessToken = (String) session.getAttribute("access_token");
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<?> proxyRequest(HttpSession session, HttpServletRequest request, HttpServletResponse response) {
+        String accessToken = tokenRefreshService.getValidAccessToken(session);
         if (accessToken == null) {
             logger.error("ERROR: No access token in session");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No access token in session");
         }
 
-        String path = request.getRequestURI().replace("/v1/proxy", "/v1");
-        String url = dataBackendUrl + path;
-        if (request.getQueryString() != null) {
-            url += "?" + request.getQueryString();
-        }
+        String path = upstreamPath(request.getRequestURI());
+        String url = upstreamUrl(dataBackendUrl, path, request.getQueryString());
 
         logger.debug("ProxyController: Proxying to {}", url);
         logger.debug("ProxyController: Access token (first 50 chars): {}", accessToken.substring(0, Math.min(50, accessToken.length())));
@@ -45,15 +81,156 @@ public class ProxyController {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
         headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+        // Let data-backend answer the browser's revalidation with 304; ETag and Last-Modified come back the same way
+        for (String name : CONDITIONAL_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.set(name, value);
+            }
+        }
 
-        HttpEntity<String> entity = new HttpEntity<>(headers);
+        Duration cacheTtl = proxyResponseCache.ttlFor(path);
+        List<String> roles = (List<String>) session.getAttribute("user_roles");
+        String scopes = tokenRefreshService.grantedScopes(session);
+        if (cacheTtl != null && roles != null && scopes != null) {
+            serveFromCache(path, request, roles, scopes, cacheTtl, url, headers, session, response);
+            return null;
+        }
+
+        if (streaming) {
+            String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding != null) {
+                headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+            }
+            streamRequest(url, headers, session, response);
+            // The response has been written directly; null tells Spring MVC there is nothing left to render
+            return null;
+        }
 
         try {
-            return restTemplate.exchange(url, HttpMethod.GET, entity, byte[].class);
-        } catch (org.springframework.web.client.HttpStatusCodeException e) {
+            return exchangeWithRetry(url, headers, session);
+        } catch (HttpStatusCodeException e) {
             return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
+
+    /**
+     * Fetches several proxied paths in one round trip, e.g. {@code {"paths": ["/data/metrics", "/data/analytics"]}}.
+     * Always 200 once the batch ran; each item carries its own upstream status.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody BatchRequest batchRequest, HttpSession session) {
+        String accessToken = tokenRefreshService.getValidAccessToken(session);
+        if (accessToken == null) {
+            logger.error("ERROR: No access token in session");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No access token in session");
+        }
+        List<String> paths = batchRequest.getPaths();
+        if (paths == null || paths.isEmpty()) {
+            return ResponseEntity.badRequest().body("No paths given");
+        }
+        if (paths.size() > proxyBatchService.getMaxItems()) {
+            return ResponseEntity.badRequest().body("At most " + proxyBatchService.getMaxItems() + " paths per batch");
+        }
+        return ResponseEntity.ok(proxyBatchService.fetchAll(paths, accessToken, session));
+    }
+
+    /**
+     * Server-Sent Events stream of a data-backend resource, e.g. {@code /v1/proxy/data/metrics/stream}.
+     * Browsers with the same roles and token scopes share one upstream stream.
+     */
+    @GetMapping(value = "/data/{resource:[a-z]+}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<SseEmitter> stream(@PathVariable String resource, HttpSession session) {
+        List<String> roles = (List<String>) session.getAttribute("user_roles");
+        if (tokenRefreshService.getValidAccessToken(session) == null || roles == null) {
+            logger.error("ERROR: No access token in session");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String scopes = tokenRefreshService.grantedScopes(session);
+        if (scopes == null) {
+            // Scopes unknown (opaque token): joining another session's stream could show it data it may not read
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        SseEmitter emitter = streamFanOutService.subscribe(resource, roles, scopes, session);
+        if (emitter == null) {
+            // Browser stream limit reached
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(emitter);
+    }
+
+    private ResponseEntity<byte[]> exchangeWithRetry(String url, HttpHeaders headers, HttpSession session) {
+        try {
+            return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        } catch (HttpStatusCodeException e) {
+            HttpHeaders responseHeaders = e.getResponseHeaders();
+            boolean rejected = DataBackendClient.isTokenRejected(e.getStatusCode().value(),
+                    responseHeaders != null ? responseHeaders.getFirst(HttpHeaders.WWW_AUTHENTICATE) : null);
+            String refreshed = rejected ? tokenRefreshService.forceRefresh(session) : null;
+            if (refreshed == null) {
+                throw e;
+            }
+            headers.setBearerAuth(refreshed);
+            return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        }
+    }
+
+    private void streamRequest(String url, HttpHeaders headers, HttpSession session, HttpServletResponse response) {
+        // Upstream error statuses reach the browser as-is
+        try {
+            try (ClientHttpResponse upstream = dataBackendClient.get(url, headers, session)) {
+                proxyResponseWriter.write(upstream, response);
+            }
+        } catch (Exception e) {
+            reportFailure(url, e, response);
+        }
+    }
+
+    private void reportFailure(String url, Exception e, HttpServletResponse response) {
+        if (response.isCommitted()) {
+            // Status and part of the body are already on the wire; all we can do is cut the stream short
+            logger.warn("ProxyController: Upstream stream from {} aborted: {}", url, e.getMessage());
+            return;
+        }
+        try {
+            // resetBuffer rather than reset, so headers added by filters (CORS) survive
+            response.resetBuffer();
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            response.setContentLengthLong(-1);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(String.valueOf(e.getMessage()));
+        } catch (IOException ioe) {
+            logger.warn("ProxyController: Could not report upstream failure for {}", url, ioe);
+        }
+    }
+
+    private void serveFromCache(String path, HttpServletRequest request, List<String> roles, String scopes, Duration ttl,
+                                String url, HttpHeaders headers, HttpSession session, HttpServletResponse response) {
+        // The shared copy must be a full, uncompressed 200, whatever this particular browser already holds
+        HttpHeaders upstreamHeaders = new HttpHeaders();
+        upstreamHeaders.putAll(headers);
+        CONDITIONAL_HEADERS.forEach(upstreamHeaders::remove);
+        try {
+            ProxyResponseCache.CachedResponse cached = proxyResponseCache.get(path, request.getQueryString(), roles, scopes, ttl, () -> {
+                try (ClientHttpResponse upstream = dataBackendClient.get(url, upstreamHeaders, session)) {
+                    return proxyResponseWriter.read(upstream);
+                }
+            });
+            proxyResponseWriter.write(cached, request.getHeader(HttpHeaders.IF_NONE_MATCH), response);
+        } catch (Exception e) {
+            reportFailure(url, e, response);
+        }
+    }
+
+    // /v1/proxy/data/metrics -> /v1/data/metrics
+    static String upstreamPath(String requestUri) {
+        return requestUri.replace("/v1/proxy", "/v1");
+    }
+
+    static String upstreamUrl(String dataBackendUrl, String path, String queryString) {
+        return queryString != null ? dataBackendUrl + path + "?" + queryString : dataBackendUrl + path;
+    }
 }
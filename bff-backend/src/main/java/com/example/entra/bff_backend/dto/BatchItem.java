@@ -0,0 +1,21 @@
+package com.example.entra.bff_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItem {
+    private String path;
+    private int status;
+    /** Upstream JSON body, embedded as-is. */
+    @JsonRawValue
+    private String body;
+    /** Upstream non-JSON body, or why the item could not be fetched. */
+    private String error;
+}
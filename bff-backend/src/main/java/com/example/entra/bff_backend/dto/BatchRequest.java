@@ -0,0 +1,15 @@
+package com.example.entra.bff_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchRequest {
+    /** Proxied paths with optional query, e.g. {@code /data/metrics} or {@code /v1/proxy/data/metrics}. */
+    private List<String> paths;
+}
@@ -0,0 +1,15 @@
+package com.example.entra.bff_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchResponse {
+    /** One entry per requested path, in request order. */
+    private List<BatchItem> items;
+}
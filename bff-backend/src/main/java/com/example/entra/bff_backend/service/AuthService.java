@@ -1,5 +1,6 @@
 package com.example.entra.bff_backend.service;
 
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,6 +17,7 @@ import java.util.Base64;
 import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
@@ -31,7 +33,7 @@ public class AuthService {
     @Value("${spring.security.oauth2.client.provider.entra.issuer-uri}")
     private String issuerUri;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
     public String generateCodeVerifier() {
         SecureRandom secureRandom = new SecureRandom();
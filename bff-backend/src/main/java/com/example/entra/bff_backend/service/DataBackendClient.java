@@ -0,0 +1,64 @@
+package com.example.entra.bff_backend.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * GET requests to data-backend on behalf of a browser session, shared by the proxy and batch paths.
+ * <p>
+ * Requests go to the pooled request factory directly, so upstream error statuses come back as
+ * responses instead of being raised through RestTemplate's error handler. A request rejected for
+ * its token is retried once after the session's single-flight refresh.
+ */
+@Service
+public class DataBackendClient {
+
+    private final ClientHttpRequestFactory upstreamRequestFactory;
+    private final TokenRefreshService tokenRefreshService;
+
+    public DataBackendClient(ClientHttpRequestFactory upstreamRequestFactory, TokenRefreshService tokenRefreshService) {
+        this.upstreamRequestFactory = upstreamRequestFactory;
+        this.tokenRefreshService = tokenRefreshService;
+    }
+
+    /**
+     * Sends the request; when data-backend rejects the token, refreshes it, puts the new one into
+     * {@code headers} and sends the request once more. The caller closes the response.
+     */
+    public ClientHttpResponse get(String url, HttpHeaders headers, HttpSession session) throws IOException {
+        ClientHttpResponse response = execute(url, headers);
+        if (isTokenRejected(response.getStatusCode().value(), response.getHeaders().getFirst(HttpHeaders.WWW_AUTHENTICATE))) {
+            // Expired between our check and upstream's (clock skew, revoked early): refresh once and retry
+            String refreshed = tokenRefreshService.forceRefresh(session);
+            if (refreshed != null) {
+                response.close();
+                headers.setBearerAuth(refreshed);
+                response = execute(url, headers);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * data-backend's resource server answers an expired or otherwise invalid JWT with 401 and
+     * {@code WWW-Authenticate: Bearer error="invalid_token"}; other 401s are not worth a refresh.
+     */
+    public static boolean isTokenRejected(int status, String challenge) {
+        return status == HttpStatus.UNAUTHORIZED.value() && challenge != null && challenge.contains("invalid_token");
+    }
+
+    private ClientHttpResponse execute(String url, HttpHeaders headers) throws IOException {
+        ClientHttpRequest request = upstreamRequestFactory.createRequest(URI.create(url), HttpMethod.GET);
+        request.getHeaders().putAll(headers);
+        return request.execute();
+    }
+}
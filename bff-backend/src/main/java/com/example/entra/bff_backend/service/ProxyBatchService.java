@@ -0,0 +1,178 @@
+package com.example.entra.bff_backend.service;
+
+import com.example.entra.bff_backend.dto.BatchItem;
+import com.example.entra.bff_backend.dto.BatchResponse;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches several proxied paths for one session in parallel and combines the results.
+ * <p>
+ * Every item gets its own upstream status, so one failing resource does not fail the batch.
+ * Items share the session's token; an item rejected for an expired token triggers the usual
+ * single-flight refresh and is retried once. Cached routes are served from {@link ProxyResponseCache}.
+ * Items still running when the batch timeout elapses are reported as 504.
+ */
+@Service
+public class ProxyBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyBatchService.class);
+
+    private static final String PROXY_PREFIX = "/v1/proxy";
+
+    private final String dataBackendUrl;
+    private final int maxItems;
+    private final Duration timeout;
+    private final DataBackendClient dataBackendClient;
+    private final TokenRefreshService tokenRefreshService;
+    private final ProxyResponseWriter proxyResponseWriter;
+    private final ProxyResponseCache proxyResponseCache;
+    private final ExecutorService batchExecutor;
+
+    public ProxyBatchService(@Value("${app.data-backend-url:http://localhost:3002}") String dataBackendUrl,
+                             @Value("${app.proxy.batch.max-items:20}") int maxItems,
+                             @Value("${app.proxy.batch.timeout:10s}") Duration timeout,
+                             @Value("${app.proxy.batch.threads:32}") int threads,
+                             DataBackendClient dataBackendClient,
+                             TokenRefreshService tokenRefreshService,
+                             ProxyResponseWriter proxyResponseWriter,
+                             ProxyResponseCache proxyResponseCache) {
+        this.dataBackendUrl = dataBackendUrl;
+        this.maxItems = maxItems;
+        this.timeout = timeout;
+        this.dataBackendClient = dataBackendClient;
+        this.tokenRefreshService = tokenRefreshService;
+        this.proxyResponseWriter = proxyResponseWriter;
+        this.proxyResponseCache = proxyResponseCache;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.batchExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "proxy-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    @SuppressWarnings("unchecked")
+    public BatchResponse fetchAll(List<String> paths, String accessToken, HttpSession session) {
+        List<String> roles = (List<String>) session.getAttribute("user_roles");
+        String scopes = tokenRefreshService.grantedScopes(session);
+        List<CompletableFuture<BatchItem>> pending = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            pending.add(CompletableFuture.supplyAsync(() -> fetch(path, accessToken, roles, scopes, session), batchExecutor));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<BatchItem> items = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            CompletableFuture<BatchItem> item = pending.get(i);
+            try {
+                items.add(item.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                item.cancel(true);
+                items.add(failure(paths.get(i), HttpStatus.GATEWAY_TIMEOUT, "Timed out after " + timeout.toMillis() + " ms"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                items.add(failure(paths.get(i), HttpStatus.SERVICE_UNAVAILABLE, "Interrupted"));
+            } catch (ExecutionException e) {
+                logger.warn("ProxyBatchService: Fetching {} failed: {}", paths.get(i), e.getCause().getMessage());
+                items.add(failure(paths.get(i), HttpStatus.BAD_GATEWAY, String.valueOf(e.getCause().getMessage())));
+            }
+        }
+        return new BatchResponse(items);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    private BatchItem fetch(String requestedPath, String accessToken, List<String> roles, String scopes, HttpSession session) {
+        String pathAndQuery = requestedPath.startsWith(PROXY_PREFIX + "/") ? requestedPath.substring(PROXY_PREFIX.length()) : requestedPath;
+        if (!isSafePath(pathAndQuery)) {
+            return failure(requestedPath, HttpStatus.BAD_REQUEST, "Invalid path");
+        }
+        int queryStart = pathAndQuery.indexOf('?');
+        String path = "/v1" + (queryStart >= 0 ? pathAndQuery.substring(0, queryStart) : pathAndQuery);
+        String query = queryStart >= 0 ? pathAndQuery.substring(queryStart + 1) : null;
+        String url = dataBackendUrl + path + (query != null ? "?" + query : "");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+        try {
+            Duration cacheTtl = proxyResponseCache.ttlFor(path);
+            ProxyResponseCache.CachedResponse response = cacheTtl != null && roles != null && scopes != null
+                    ? proxyResponseCache.get(path, query, roles, scopes, cacheTtl, () -> load(url, headers, session))
+                    : load(url, headers, session);
+            return toItem(requestedPath, response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ProxyResponseCache.CachedResponse load(String url, HttpHeaders headers, HttpSession session) throws IOException {
+        try (ClientHttpResponse upstream = dataBackendClient.get(url, headers, session)) {
+            return proxyResponseWriter.read(upstream);
+        }
+    }
+
+    private static BatchItem toItem(String path, ProxyResponseCache.CachedResponse response) {
+        MediaType contentType = response.headers().getContentType();
+        String text = new String(response.body(), StandardCharsets.UTF_8);
+        if (response.body().length == 0) {
+            return new BatchItem(path, response.status(), null, null);
+        }
+        if (contentType != null && (contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                || contentType.getSubtype().endsWith("+json"))) {
+            return new BatchItem(path, response.status(), text, null);
+        }
+        return new BatchItem(path, response.status(), null, text);
+    }
+
+    private static BatchItem failure(String path, HttpStatus status, String error) {
+        return new BatchItem(path, status.value(), null, error);
+    }
+
+    // Items address data-backend only: an absolute path, no scheme or authority, no traversal. Checked
+    // after percent-decoding, as data-backend decodes %2e%2e and %2f too; a '%' that survives decoding
+    // means double encoding, which no data-backend path needs
+    private static boolean isSafePath(String path) {
+        String decoded;
+        try {
+            decoded = UriUtils.decode(path, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return decoded.startsWith("/") && !decoded.startsWith("//") && !decoded.contains("..")
+                && !decoded.contains("\\") && !decoded.contains("://") && !decoded.contains("#") && !decoded.contains("%");
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.entra.bff_backend.service;
+
+import com.example.entra.bff_backend.config.ProxyCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares proxied GET responses between sessions with the same roles and token scopes.
+ * <p>
+ * data-backend decides access from the caller's roles and the {@code Data.Read} scope, so a response
+ * fetched for one session is valid for every other session with exactly the same roles and scopes.
+ * Callers pass no scopes, and so skip the cache, for a session whose token has expired or whose
+ * scopes are unknown. Entries live for the TTL of their route and the cache is bounded by entry
+ * count, evicting the least recently or least frequently used entry. Concurrent misses for one key
+ * wait for a single upstream fetch; if that fetch does not produce a cacheable 200, each waiter
+ * falls back to its own request, so one session's rejected token never becomes another session's
+ * answer.
+ * <p>
+ * Reads are lock-free. Eviction scans the map under a lock, which is cheap for the few hundred
+ * keys a role-keyed cache holds.
+ */
+public class ProxyResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyResponseCache.class);
+
+    private final boolean enabled;
+    private final List<Route> routes = new ArrayList<>();
+    private final int maxEntries;
+    private final long maxEntrySize;
+    private final ProxyCacheProperties.Eviction eviction;
+    private final Duration waitTimeout;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Key, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong clock = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public ProxyResponseCache(ProxyCacheProperties properties, MeterRegistry registry) {
+        this.enabled = properties.isEnabled();
+        properties.getRoutes().forEach((pattern, ttl) ->
+                routes.add(new Route(PathPatternParser.defaultInstance.parse(pattern), ttl)));
+        this.maxEntries = properties.getMaxEntries();
+        this.maxEntrySize = properties.getMaxEntrySize().toBytes();
+        this.eviction = properties.getEviction();
+        this.waitTimeout = properties.getWaitTimeout();
+
+        this.hits = requests(registry, "hit");
+        this.misses = requests(registry, "miss");
+        this.coalesced = requests(registry, "coalesced");
+        this.sizeEvictions = evictions(registry, "size");
+        this.expiredEvictions = evictions(registry, "expired");
+        Gauge.builder("bff.proxy.cache.entries", entries, Map::size)
+                .description("Responses held in the proxy cache")
+                .register(registry);
+    }
+
+    /**
+     * Returns how long responses for this upstream path may be shared, or {@code null} if they are not cached.
+     */
+    public Duration ttlFor(String path) {
+        if (!enabled) {
+            return null;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (Route route : routes) {
+            if (route.pattern().matches(container)) {
+                return route.ttl().isZero() || route.ttl().isNegative() ? null : route.ttl();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached response for the key, or loads it once for all concurrent callers.
+     *
+     * @param roles  the session's roles; order does not matter
+     * @param scopes the session's token scopes, as {@link TokenRefreshService#grantedScopes} returns them
+     */
+    public CachedResponse get(String path, String query, Collection<String> roles, String scopes, Duration ttl,
+                              Loader loader) throws IOException {
+        Key key = new Key(path, query, roles.stream().sorted().distinct().toList(), scopes);
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                entry.lastUsed = clock.incrementAndGet();
+                entry.uses.incrementAndGet();
+                hits.increment();
+                return entry.response;
+            }
+            if (entries.remove(key, entry)) {
+                expiredEvictions.increment();
+            }
+        }
+
+        CompletableFuture<CachedResponse> created = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            CachedResponse shared = await(existing, key);
+            return shared != null ? shared : loader.load();
+        }
+
+        misses.increment();
+        try {
+            CachedResponse response = loader.load();
+            if (isCacheable(response)) {
+                put(key, response, now + ttl.toMillis());
+            }
+            created.complete(response);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Fetches the upstream response when the cache cannot answer. */
+    @FunctionalInterface
+    public interface Loader {
+        CachedResponse load() throws IOException;
+    }
+
+    /** Fully read upstream response; only the pass-through headers are kept. */
+    public record CachedResponse(int status, HttpHeaders headers, byte[] body) {
+    }
+
+    private CachedResponse await(CompletableFuture<CachedResponse> leader, Key key) {
+        try {
+            CachedResponse response = leader.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return isCacheable(response) ? response : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            logger.debug("Shared fetch for {} did not complete: {}", key.path(), e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isCacheable(CachedResponse response) {
+        if (response.status() != 200 || response.body().length > maxEntrySize) {
+            return false;
+        }
+        String cacheControl = response.headers().getCacheControl();
+        return cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    private void put(Key key, CachedResponse response, long expiresAt) {
+        Entry entry = new Entry(response, expiresAt, clock.incrementAndGet());
+        if (entries.put(key, entry) == null && entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        evictionLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            entries.entrySet().removeIf(candidate -> {
+                if (candidate.getValue().expiresAt <= now) {
+                    expiredEvictions.increment();
+                    return true;
+                }
+                return false;
+            });
+            while (entries.size() > maxEntries) {
+                Map.Entry<Key, Entry> victim = null;
+                for (Map.Entry<Key, Entry> candidate : entries.entrySet()) {
+                    if (victim == null || isColder(candidate.getValue(), victim.getValue())) {
+                        victim = candidate;
+                    }
+                }
+                if (victim == null) {
+                    break;
+                }
+                if (entries.remove(victim.getKey(), victim.getValue())) {
+                    sizeEvictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean isColder(Entry candidate, Entry victim) {
+        if (eviction == ProxyCacheProperties.Eviction.LFU && candidate.uses.get() != victim.uses.get()) {
+            return candidate.uses.get() < victim.uses.get();
+        }
+        return candidate.lastUsed < victim.lastUsed;
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("bff.proxy.cache.requests")
+                .tag("result", result)
+                .description("Proxy cache lookups by outcome")
+                .register(registry);
+    }
+
+    private static Counter evictions(MeterRegistry registry, String reason) {
+        return Counter.builder("bff.proxy.cache.evictions")
+                .tag("reason", reason)
+                .description("Entries dropped from the proxy cache")
+                .register(registry);
+    }
+
+    private record Route(PathPattern pattern, Duration ttl) {
+    }
+
+    private record Key(String path, String query, List<String> roles, String scopes) {
+    }
+
+    private static final class Entry {
+
+        final CachedResponse response;
+        final long expiresAt;
+        final AtomicLong uses = new AtomicLong();
+        volatile long lastUsed;
+
+        Entry(CachedResponse response, long expiresAt, long lastUsed) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.entra.bff_backend.service;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Copies an upstream response to the servlet response as the bytes arrive.
+ * The body is never held in memory as a whole: it flows through a fixed-size
+ * buffer borrowed from a bounded pool, so heap use per in-flight request is
+ * one buffer regardless of payload size.
+ */
+@Component
+public class ProxyResponseWriter {
+
+    // Entity headers that describe the bytes we forward untouched. Hop-by-hop headers such as
+    // Transfer-Encoding are left to the servlet container: without a Content-Length it chunks.
+    private static final List<String> PASS_THROUGH_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.VARY,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED
+    );
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+
+    public ProxyResponseWriter(@Value("${app.proxy.buffer-size:8192}") int bufferSize,
+                               @Value("${app.proxy.max-pooled-buffers:256}") int maxPooledBuffers) {
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(maxPooledBuffers);
+    }
+
+    public void write(ClientHttpResponse upstream, HttpServletResponse response) throws IOException {
+        response.setStatus(upstream.getStatusCode().value());
+        copyHeaders(upstream.getHeaders(), response);
+
+        byte[] buffer = acquire();
+        try (InputStream in = upstream.getBody()) {
+            OutputStream out = response.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                // Push what we have to the browser whenever upstream has nothing more buffered
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Reads a whole upstream response for {@link ProxyResponseCache}, keeping only the headers this
+     * writer would pass through.
+     */
+    public ProxyResponseCache.CachedResponse read(ClientHttpResponse upstream) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : PASS_THROUGH_HEADERS) {
+            List<String> values = upstream.getHeaders().get(name);
+            if (values != null) {
+                headers.put(name, List.copyOf(values));
+            }
+        }
+        try (InputStream in = upstream.getBody()) {
+            return new ProxyResponseCache.CachedResponse(upstream.getStatusCode().value(), HttpHeaders.readOnlyHttpHeaders(headers), in.readAllBytes());
+        }
+    }
+
+    /**
+     * Writes a cached response, or a bodiless 304 when the browser already holds the same ETag.
+     */
+    public void write(ProxyResponseCache.CachedResponse cached, String ifNoneMatch, HttpServletResponse response) throws IOException {
+        String eTag = cached.headers().getETag();
+        if (cached.status() == HttpServletResponse.SC_OK && eTag != null && ifNoneMatch != null
+                && matchesAny(ifNoneMatch, eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            for (String name : List.of(HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, HttpHeaders.VARY, HttpHeaders.LAST_MODIFIED)) {
+                cached.headers().getOrEmpty(name).forEach(value -> response.addHeader(name, value));
+            }
+            return;
+        }
+        response.setStatus(cached.status());
+        cached.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setContentLength(cached.body().length);
+        OutputStream out = response.getOutputStream();
+        out.write(cached.body());
+        out.flush();
+    }
+
+    // If-None-Match uses the weak comparison: W/"a" matches "a", but "a" never matches "ab"
+    static boolean matchesAny(String ifNoneMatch, String eTag) {
+        ETag current = ETag.create(eTag);
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void copyHeaders(HttpHeaders upstreamHeaders, HttpServletResponse response) {
+        for (String name : PASS_THROUGH_HEADERS) {
+            List<String> values = upstreamHeaders.get(name);
+            if (values != null) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        }
+        long contentLength = upstreamHeaders.getContentLength();
+        if (contentLength >= 0) {
+            response.setContentLengthLong(contentLength);
+        }
+    }
+
+    private byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    private void release(byte[] buffer) {
+        // A full pool simply drops the buffer; it is garbage once this request is done
+        buffers.offer(buffer);
+    }
+}
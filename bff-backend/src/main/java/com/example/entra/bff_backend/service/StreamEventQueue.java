@@ -0,0 +1,66 @@
+package com.example.entra.bff_backend.service;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of events waiting to be sent to one browser.
+ * <p>
+ * An event replaces a queued event of the same name, since both carry the whole resource and only
+ * the newer one matters; it goes to the back so events still leave in publication order. When the
+ * queue is full of other names the oldest event is dropped. An event published before one already
+ * offered is ignored, so a late replay of the feed's latest event never overtakes a newer one.
+ */
+final class StreamEventQueue {
+
+    enum Outcome { QUEUED, COALESCED, DROPPED_OLDEST, STALE }
+
+    private final int capacity;
+    private final ArrayDeque<StreamFanOutService.StreamEvent> events = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long newestSequence = -1;
+
+    StreamEventQueue(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    Outcome offer(StreamFanOutService.StreamEvent event) {
+        lock.lock();
+        try {
+            if (event.sequence() <= newestSequence) {
+                return Outcome.STALE;
+            }
+            newestSequence = event.sequence();
+            Outcome outcome = Outcome.QUEUED;
+            if (event.name() != null && events.removeIf(queued -> Objects.equals(queued.name(), event.name()))) {
+                outcome = Outcome.COALESCED;
+            } else if (events.size() >= capacity) {
+                events.pollFirst();
+                outcome = Outcome.DROPPED_OLDEST;
+            }
+            events.addLast(event);
+            return outcome;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    StreamFanOutService.StreamEvent poll() {
+        lock.lock();
+        try {
+            return events.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        lock.lock();
+        try {
+            return events.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
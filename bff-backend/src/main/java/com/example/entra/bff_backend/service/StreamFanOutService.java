@@ -0,0 +1,487 @@
+package com.example.entra.bff_backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import com.example.entra.bff_backend.config.UpstreamClientProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Relays data-backend's Server-Sent Events streams to browsers with one upstream connection per
+ * (resource, role set, token scopes).
+ * <p>
+ * data-backend decides access from the caller's roles and token scopes, so every browser with the
+ * same roles and scopes may see the same events; the first one to subscribe opens the upstream stream
+ * with its token and later ones join it, getting the latest event straight away. The upstream stream is
+ * closed when its last browser leaves, and reopened with {@code Last-Event-ID} and any remaining
+ * browser's token if it drops, or if it stays silent (not even heartbeats) for the upstream idle timeout.
+ * Upstream streams use the JDK client rather than the pooled proxy client: their bodies never end, and
+ * closing a JDK body stream cancels it instead of reading it to the end.
+ * <p>
+ * Each browser has a small bounded queue drained by a shared sender pool. Events carry a whole
+ * resource, so a newer event replaces a queued one of the same name (coalesce); if the queue is
+ * still full the oldest event is dropped. A slow browser therefore loses intermediate versions,
+ * never the latest, and never holds up the upstream reader or other browsers.
+ */
+@Service
+public class StreamFanOutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamFanOutService.class);
+
+    private final String dataBackendUrl;
+    private final int clientBuffer;
+    private final int maxClients;
+    private final Duration timeout;
+    private final Duration reconnectDelay;
+    private final Duration maxReconnectDelay;
+    private final Duration upstreamIdleTimeout;
+    private final HttpClient httpClient;
+    private final TokenRefreshService tokenRefreshService;
+
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+    private final ReentrantLock membershipLock = new ReentrantLock();
+    private final AtomicInteger clientCount = new AtomicInteger();
+    private final ExecutorService sendExecutor;
+    private final ExecutorService upstreamExecutor;
+
+    private final Counter sent;
+    private final Counter coalesced;
+    private final Counter dropped;
+
+    public StreamFanOutService(@Value("${app.data-backend-url:http://localhost:3002}") String dataBackendUrl,
+                               @Value("${app.proxy.stream.client-buffer:8}") int clientBuffer,
+                               @Value("${app.proxy.stream.max-clients:10000}") int maxClients,
+                               @Value("${app.proxy.stream.timeout:30m}") Duration timeout,
+                               @Value("${app.proxy.stream.threads:8}") int threads,
+                               @Value("${app.proxy.stream.reconnect-delay:1s}") Duration reconnectDelay,
+                               @Value("${app.proxy.stream.max-reconnect-delay:30s}") Duration maxReconnectDelay,
+                               @Value("${app.proxy.stream.upstream-idle-timeout:30s}") Duration upstreamIdleTimeout,
+                               UpstreamClientProperties upstreamClientProperties,
+                               TokenRefreshService tokenRefreshService,
+                               MeterRegistry registry) {
+        this.dataBackendUrl = dataBackendUrl;
+        this.clientBuffer = clientBuffer;
+        this.maxClients = maxClients;
+        this.timeout = timeout;
+        this.reconnectDelay = reconnectDelay;
+        this.maxReconnectDelay = maxReconnectDelay;
+        this.upstreamIdleTimeout = upstreamIdleTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(upstreamClientProperties.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(upstreamClientProperties.getConnectTimeout())
+                .build();
+        this.tokenRefreshService = tokenRefreshService;
+        this.sendExecutor = Executors.newFixedThreadPool(threads, daemonThreads("proxy-stream-"));
+        // One blocking reader per open upstream stream; there are only as many as (resource, role set) pairs in use
+        this.upstreamExecutor = Executors.newCachedThreadPool(daemonThreads("proxy-stream-upstream-"));
+
+        this.sent = events(registry, "sent");
+        this.coalesced = events(registry, "coalesced");
+        this.dropped = events(registry, "dropped");
+        Gauge.builder("bff.proxy.stream.upstreams", feeds, Map::size)
+                .description("Open upstream event streams")
+                .register(registry);
+        Gauge.builder("bff.proxy.stream.clients", clientCount, AtomicInteger::get)
+                .description("Browser event streams")
+                .register(registry);
+    }
+
+    /**
+     * Subscribes a browser to {@code /v1/data/{resource}/stream}.
+     *
+     * @param scopes the session's {@link TokenRefreshService#grantedScopes granted scopes}
+     * @return null when the client limit is reached
+     */
+    public SseEmitter subscribe(String resource, List<String> roles, String scopes, HttpSession session) {
+        if (clientCount.incrementAndGet() > maxClients) {
+            clientCount.decrementAndGet();
+            return null;
+        }
+        String key = resource + "|" + String.join(",", roles.stream().sorted().toList()) + "|" + scopes;
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Client client = new Client(emitter, session);
+
+        Feed feed;
+        membershipLock.lock();
+        try {
+            feed = feeds.computeIfAbsent(key, k -> new Feed(k, "/v1/data/" + resource + "/stream"));
+            feed.clients.add(client);
+            client.feed = feed;
+            if (feed.started.compareAndSet(false, true)) {
+                upstreamExecutor.execute(feed::run);
+            }
+        } finally {
+            membershipLock.unlock();
+        }
+        emitter.onCompletion(() -> leave(client));
+        emitter.onTimeout(() -> leave(client));
+        emitter.onError(error -> leave(client));
+
+        // A publish since the client joined may already have offered a newer event; the queue ignores this one then
+        StreamEvent latest = feed.latest;
+        if (latest != null) {
+            client.offer(latest);
+        }
+        return emitter;
+    }
+
+    /**
+     * Keeps idle browser connections open through intermediaries and detects closed ones; also
+     * drops upstream streams that went silent so they reconnect.
+     */
+    @Scheduled(fixedRateString = "${app.proxy.stream.heartbeat:15s}")
+    public void heartbeat() {
+        long silentSince = System.nanoTime() - upstreamIdleTimeout.toNanos();
+        feeds.values().forEach(feed -> {
+            feed.clients.forEach(Client::heartbeat);
+            feed.closeIfSilentSince(silentSince);
+        });
+    }
+
+    public int getUpstreamCount() {
+        return feeds.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        feeds.values().forEach(feed -> {
+            feed.stop();
+            feed.clients.forEach(client -> client.emitter.complete());
+        });
+        sendExecutor.shutdownNow();
+        upstreamExecutor.shutdownNow();
+    }
+
+    private void leave(Client client) {
+        Feed feed = client.feed;
+        membershipLock.lock();
+        try {
+            if (!feed.clients.remove(client)) {
+                return;
+            }
+            clientCount.decrementAndGet();
+            if (feed.clients.isEmpty()) {
+                feeds.remove(feed.key, feed);
+                feed.stop();
+            }
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * @param sequence position in the feed's publication order, counted from 0
+     */
+    record StreamEvent(long sequence, String id, String name, String data) {
+    }
+
+    private final class Feed {
+
+        private final String key;
+        private final String path;
+        private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile boolean stopped;
+        private volatile StreamEvent latest;
+        // Only the feed's reader thread publishes
+        private long published;
+        private volatile InputStream current;
+        private volatile long lastReceived = System.nanoTime();
+
+        Feed(String key, String path) {
+            this.key = key;
+            this.path = path;
+        }
+
+        void run() {
+            long delay = reconnectDelay.toMillis();
+            while (!stopped) {
+                try {
+                    if (relay()) {
+                        delay = reconnectDelay.toMillis();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    if (stopped) {
+                        return;
+                    }
+                    logger.warn("StreamFanOutService: Upstream stream {} failed: {}", key, e.getMessage());
+                }
+                if (stopped) {
+                    return;
+                }
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = Math.min(delay * 2, maxReconnectDelay.toMillis());
+            }
+        }
+
+        /**
+         * Streams one upstream connection until it ends.
+         *
+         * @return whether events were received, i.e. the connection was healthy
+         */
+        private boolean relay() throws IOException, InterruptedException {
+            Client owner = clients.stream().findFirst().orElse(null);
+            if (owner == null) {
+                return false;
+            }
+            String accessToken = owner.accessToken();
+            if (accessToken == null) {
+                // That session is gone; try the next browser's token
+                leave(owner);
+                owner.emitter.complete();
+                return true;
+            }
+            HttpResponse<InputStream> response = open(accessToken);
+            if (isTokenRejected(response)) {
+                response.body().close();
+                String refreshed = tokenRefreshService.forceRefresh(owner.session);
+                if (refreshed == null) {
+                    leave(owner);
+                    owner.emitter.complete();
+                    return true;
+                }
+                response = open(refreshed);
+            }
+            int status = response.statusCode();
+            if (status == HttpStatus.FORBIDDEN.value() || status == HttpStatus.NOT_FOUND.value()) {
+                // Nobody with this role set can read the resource; end every browser stream of it
+                response.body().close();
+                logger.info("StreamFanOutService: Upstream refused {} with {}", key, status);
+                clients.forEach(client -> {
+                    client.emitter.completeWithError(new IllegalStateException("Upstream answered " + status));
+                    leave(client);
+                });
+                return true;
+            }
+            if (status != HttpStatus.OK.value()) {
+                response.body().close();
+                throw new IOException("Upstream answered " + status);
+            }
+
+            current = response.body();
+            lastReceived = System.nanoTime();
+            boolean received = false;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                if (stopped) {
+                    return received;
+                }
+                String id = null;
+                String name = null;
+                StringBuilder data = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lastReceived = System.nanoTime();
+                    if (line.isEmpty()) {
+                        if (!data.isEmpty()) {
+                            publish(new StreamEvent(published++, id, name, data.toString()));
+                            received = true;
+                        }
+                        name = null;
+                        data.setLength(0);
+                    } else if (line.startsWith("data:")) {
+                        if (!data.isEmpty()) {
+                            data.append('\n');
+                        }
+                        data.append(field(line, 5));
+                    } else if (line.startsWith("event:")) {
+                        name = field(line, 6);
+                    } else if (line.startsWith("id:")) {
+                        id = field(line, 3);
+                    } else if (line.startsWith(":")) {
+                        // Upstream heartbeat: the connection is alive, browsers get their own heartbeats
+                        received = true;
+                    }
+                }
+            } finally {
+                current = null;
+            }
+            return received;
+        }
+
+        private HttpResponse<InputStream> open(String accessToken) throws IOException, InterruptedException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(dataBackendUrl + path))
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                    .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+            StreamEvent last = latest;
+            if (last != null && last.id() != null) {
+                request.header("Last-Event-ID", last.id());
+            }
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        }
+
+        private void publish(StreamEvent event) {
+            latest = event;
+            clients.forEach(client -> client.offer(event));
+        }
+
+        void stop() {
+            stopped = true;
+            close();
+        }
+
+        void closeIfSilentSince(long nanos) {
+            if (current != null && lastReceived - nanos < 0) {
+                logger.warn("StreamFanOutService: Upstream stream {} went silent; reconnecting", key);
+                close();
+            }
+        }
+
+        // Cancels the upstream body, which unblocks the reader thread
+        private void close() {
+            InputStream body = current;
+            if (body != null) {
+                try {
+                    body.close();
+                } catch (IOException e) {
+                    logger.debug("StreamFanOutService: Closing upstream stream {} failed: {}", key, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final class Client {
+
+        private final SseEmitter emitter;
+        private final HttpSession session;
+        private final StreamEventQueue queue = new StreamEventQueue(clientBuffer);
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private Feed feed;
+
+        Client(SseEmitter emitter, HttpSession session) {
+            this.emitter = emitter;
+            this.session = session;
+        }
+
+        String accessToken() {
+            try {
+                return tokenRefreshService.getValidAccessToken(session);
+            } catch (IllegalStateException e) {
+                // Session invalidated (logout) while the stream was open
+                return null;
+            }
+        }
+
+        void offer(StreamEvent event) {
+            switch (queue.offer(event)) {
+                case COALESCED -> coalesced.increment();
+                case DROPPED_OLDEST -> dropped.increment();
+                case STALE -> {
+                    return;
+                }
+                default -> {
+                }
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    StreamEvent event = queue.poll();
+                    boolean beat = heartbeatDue.getAndSet(false);
+                    if (event != null) {
+                        SseEmitter.SseEventBuilder builder = SseEmitter.event().data(event.data());
+                        if (event.id() != null) {
+                            builder.id(event.id());
+                        }
+                        if (event.name() != null) {
+                            builder.name(event.name());
+                        }
+                        emitter.send(builder);
+                        sent.increment();
+                    } else if (beat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        draining.set(false);
+                        // An offer may have landed after the last poll but before the flag was cleared
+                        if ((queue.isEmpty() && !heartbeatDue.get()) || !draining.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("StreamFanOutService: Dropping browser stream of {}: {}", feed.key, e.getMessage());
+                leave(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private static String field(String line, int prefixLength) {
+        return line.length() > prefixLength && line.charAt(prefixLength) == ' '
+                ? line.substring(prefixLength + 1)
+                : line.substring(prefixLength);
+    }
+
+    private static boolean isTokenRejected(HttpResponse<?> response) {
+        return DataBackendClient.isTokenRejected(response.statusCode(),
+                response.headers().firstValue(HttpHeaders.WWW_AUTHENTICATE).orElse(null));
+    }
+
+    private static Counter events(MeterRegistry registry, String outcome) {
+        return Counter.builder("bff.proxy.stream.events")
+                .description("Events relayed to browser streams, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
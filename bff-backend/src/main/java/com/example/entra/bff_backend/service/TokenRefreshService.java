@@ -0,0 +1,304 @@
+package com.example.entra.bff_backend.service;
+
+import com.nimbusds.jwt.JWTParser;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps each session's access token fresh ahead of its expiry.
+ * <p>
+ * Sessions that hold a refresh token are tracked after login. A background scan refreshes tokens
+ * that enter the refresh-ahead window, so the proxy path normally finds a valid token and never
+ * waits. When a request does need a refresh (token about to lapse, or upstream answered 401),
+ * all concurrent callers of that session share one in-flight {@link AuthService#refreshToken} call.
+ * Entra rotates refresh tokens, so two parallel refreshes would also race each other's grant.
+ * <p>
+ * With a Spring Session store ({@code app.session.store=offheap}) a refresh is written to the store
+ * directly, because the {@link HttpSession} seen by a request is only that request's copy.
+ */
+@Service
+public class TokenRefreshService implements HttpSessionListener {
+
+    public static final String ACCESS_TOKEN = "access_token";
+    public static final String REFRESH_TOKEN = "refresh_token";
+    public static final String ACCESS_TOKEN_EXPIRES_AT = "access_token_expires_at";
+    public static final String ACCESS_TOKEN_SCOPES = "access_token_scopes";
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRefreshService.class);
+
+    private final AuthService authService;
+    private final Duration refreshAhead;
+    private final Duration minValidity;
+    private final Duration refreshWaitTimeout;
+    private final ExecutorService refreshExecutor;
+
+    // Set when sessions live in a Spring Session store instead of the servlet container
+    private final SessionRepository<? extends Session> sessionRepository;
+
+    private final Map<String, TrackedSession> trackedSessions = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public TokenRefreshService(AuthService authService,
+                               Optional<SessionRepository<? extends Session>> sessionRepository,
+                               @Value("${app.token-refresh.refresh-ahead:5m}") Duration refreshAhead,
+                               @Value("${app.token-refresh.min-validity:30s}") Duration minValidity,
+                               @Value("${app.token-refresh.wait-timeout:10s}") Duration refreshWaitTimeout,
+                               @Value("${app.token-refresh.threads:4}") int threads) {
+        this.authService = authService;
+        this.sessionRepository = sessionRepository.orElse(null);
+        this.refreshAhead = refreshAhead;
+        this.minValidity = minValidity;
+        this.refreshWaitTimeout = refreshWaitTimeout;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stores a token endpoint response in the session and starts tracking its expiry.
+     */
+    public void storeTokens(HttpSession session, Map<String, Object> tokenResponse) {
+        Long expiresAt = applyTokens(session::setAttribute, tokenResponse);
+        track(session.getId(), session, session.getAttribute(REFRESH_TOKEN) != null, expiresAt);
+    }
+
+    /**
+     * Returns an access token that stays valid for at least {@code app.token-refresh.min-validity},
+     * refreshing first if necessary. Returns {@code null} when the session has no access token.
+     */
+    public String getValidAccessToken(HttpSession session) {
+        String accessToken = (String) session.getAttribute(ACCESS_TOKEN);
+        if (accessToken == null || !expiresWithin(session, minValidity)) {
+            return accessToken;
+        }
+        String refreshed = awaitRefresh(session);
+        return refreshed != null ? refreshed : accessToken;
+    }
+
+    /**
+     * Returns the scopes of the session's access token, sorted and space-separated, or {@code null}
+     * when the token has expired or its scopes are not known. data-backend checks these as well as
+     * the roles, so responses are only shared between sessions that agree on both.
+     */
+    public String grantedScopes(HttpSession session) {
+        Long expiresAt = (Long) session.getAttribute(ACCESS_TOKEN_EXPIRES_AT);
+        if (expiresAt != null && expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return (String) session.getAttribute(ACCESS_TOKEN_SCOPES);
+    }
+
+    /**
+     * Refreshes now regardless of the recorded expiry, e.g. after upstream rejected the token.
+     * Returns the new access token, or {@code null} when no refresh was possible.
+     */
+    public String forceRefresh(HttpSession session) {
+        return awaitRefresh(session);
+    }
+
+    /**
+     * Starts a refresh for the session, or joins the one already running.
+     */
+    public CompletableFuture<String> refresh(HttpSession session) {
+        return refresh(session.getId(), session);
+    }
+
+    @Scheduled(fixedDelayString = "${app.token-refresh.scan-interval:30s}")
+    public void refreshExpiringTokens() {
+        long refreshFrom = System.currentTimeMillis() + refreshAhead.toMillis();
+        // Uses the expiry recorded at tracking time, so the scan does not load any session
+        trackedSessions.forEach((sessionId, tracked) -> {
+            if (tracked.expiresAt() <= refreshFrom) {
+                refresh(sessionId, tracked.session());
+            }
+        });
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        trackedSessions.remove(event.getSession().getId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private CompletableFuture<String> refresh(String sessionId, HttpSession session) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(sessionId, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                created.complete(doRefresh(sessionId, session));
+            } catch (Throwable t) {
+                created.completeExceptionally(t);
+            } finally {
+                inFlight.remove(sessionId, created);
+            }
+        });
+        return created;
+    }
+
+    private String awaitRefresh(HttpSession session) {
+        if (session.getAttribute(REFRESH_TOKEN) == null) {
+            return null;
+        }
+        try {
+            return refresh(session.getId(), session).get(refreshWaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Token refresh for session {} did not complete: {}", session.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String doRefresh(String sessionId, HttpSession session) {
+        try {
+            String refreshToken = sessionRepository != null
+                    ? readFromRepository(sessionRepository, sessionId)
+                    : (String) session.getAttribute(REFRESH_TOKEN);
+            if (refreshToken == null) {
+                trackedSessions.remove(sessionId);
+                return null;
+            }
+            Map<String, Object> tokenResponse = authService.refreshToken(refreshToken);
+            if (sessionRepository != null) {
+                // Written straight to the store; the request's own copy only saves what it changed itself
+                if (!writeToRepository(sessionRepository, sessionId, tokenResponse)) {
+                    trackedSessions.remove(sessionId);
+                    return null;
+                }
+            } else {
+                storeTokens(session, tokenResponse);
+            }
+            logger.debug("Refreshed access token for session {}", sessionId);
+            return (String) tokenResponse.get(ACCESS_TOKEN);
+        } catch (IllegalStateException e) {
+            // Invalidated while the refresh was running
+            trackedSessions.remove(sessionId);
+            return null;
+        } catch (RuntimeException e) {
+            // A rejected refresh token will not get better by retrying every scan
+            logger.warn("Token refresh failed for session {}: {}", sessionId, e.getMessage());
+            trackedSessions.remove(sessionId);
+            throw e;
+        }
+    }
+
+    private <S extends Session> String readFromRepository(SessionRepository<S> repository, String sessionId) {
+        S stored = repository.findById(sessionId);
+        return stored != null ? stored.getAttribute(REFRESH_TOKEN) : null;
+    }
+
+    private <S extends Session> boolean writeToRepository(SessionRepository<S> repository, String sessionId,
+                                                          Map<String, Object> tokenResponse) {
+        S stored = repository.findById(sessionId);
+        if (stored == null) {
+            return false;
+        }
+        Long expiresAt = applyTokens(stored::setAttribute, tokenResponse);
+        repository.save(stored);
+        track(sessionId, null, stored.getAttribute(REFRESH_TOKEN) != null, expiresAt);
+        return true;
+    }
+
+    /**
+     * Copies a token endpoint response into session attributes ({@code null} removes) and returns
+     * the access token's expiry, if known.
+     */
+    private static Long applyTokens(BiConsumer<String, Object> setAttribute, Map<String, Object> tokenResponse) {
+        String accessToken = (String) tokenResponse.get(ACCESS_TOKEN);
+        setAttribute.accept(ACCESS_TOKEN, accessToken);
+        Object refreshToken = tokenResponse.get(REFRESH_TOKEN);
+        if (refreshToken != null) {
+            setAttribute.accept(REFRESH_TOKEN, refreshToken);
+        }
+        Long expiresAt = expiresAt(accessToken, tokenResponse.get("expires_in"));
+        setAttribute.accept(ACCESS_TOKEN_EXPIRES_AT, expiresAt);
+        setAttribute.accept(ACCESS_TOKEN_SCOPES, scopes(accessToken));
+        return expiresAt;
+    }
+
+    private void track(String sessionId, HttpSession session, boolean hasRefreshToken, Long expiresAt) {
+        if (hasRefreshToken && expiresAt != null) {
+            // With a session store the request's HttpSession is a throwaway copy; only the id is kept
+            trackedSessions.put(sessionId, new TrackedSession(sessionRepository == null ? session : null, expiresAt));
+        } else {
+            trackedSessions.remove(sessionId);
+        }
+    }
+
+    private boolean expiresWithin(HttpSession session, Duration window) {
+        Long expiresAt = (Long) session.getAttribute(ACCESS_TOKEN_EXPIRES_AT);
+        return expiresAt != null && expiresAt - System.currentTimeMillis() <= window.toMillis();
+    }
+
+    private record TrackedSession(HttpSession session, long expiresAt) {
+    }
+
+    private static String scopes(String accessToken) {
+        if (accessToken == null) {
+            return null;
+        }
+        try {
+            String scp = JWTParser.parse(accessToken).getJWTClaimsSet().getStringClaim("scp");
+            return scp == null ? "" : String.join(" ", Arrays.stream(scp.trim().split("\\s+")).sorted().distinct().toList());
+        } catch (Exception e) {
+            // Opaque token: scopes unknown, so its responses are never shared
+            return null;
+        }
+    }
+
+    private static Long expiresAt(String accessToken, Object expiresIn) {
+        if (expiresIn != null) {
+            try {
+                return System.currentTimeMillis() + Long.parseLong(expiresIn.toString()) * 1000;
+            } catch (NumberFormatException ignored) {
+                // fall back to the token's own exp claim
+            }
+        }
+        if (accessToken == null) {
+            return null;
+        }
+        try {
+            Date expirationTime = JWTParser.parse(accessToken).getJWTClaimsSet().getExpirationTime();
+            return expirationTime != null ? expirationTime.getTime() : null;
+        } catch (Exception e) {
+            // Opaque token (e.g. the no-security mock): nothing to track
+            return null;
+        }
+    }
+}
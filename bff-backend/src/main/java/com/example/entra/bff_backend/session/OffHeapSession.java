@@ -0,0 +1,151 @@
+package com.example.entra.bff_backend.session;
+
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Request-scoped, on-heap view of one session record held by {@link OffHeapSessionRepository}.
+ * <p>
+ * The object lives only while a request is using the session. It remembers which attributes the
+ * request changed, so saving merges just those changes into the stored record and never overwrites
+ * values written concurrently by another request or by the background token refresh.
+ */
+public final class OffHeapSession implements Session {
+
+    private String id;
+    private String originalId;
+    private final boolean isNew;
+    private final Instant creationTime;
+    private Instant lastAccessedTime;
+    private Duration maxInactiveInterval;
+    private final Duration absoluteTimeout;
+    private final Map<String, Object> attributes;
+
+    // Attribute name -> new value, or null for a removal
+    private final Map<String, Object> changes = new HashMap<>();
+
+    OffHeapSession(Duration maxInactiveInterval, Duration absoluteTimeout) {
+        this.id = newId();
+        this.originalId = this.id;
+        this.isNew = true;
+        this.creationTime = Instant.now();
+        this.lastAccessedTime = this.creationTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.absoluteTimeout = absoluteTimeout;
+        this.attributes = new HashMap<>();
+    }
+
+    OffHeapSession(SessionRecord record, Duration absoluteTimeout) {
+        this.id = record.id();
+        this.originalId = record.id();
+        this.isNew = false;
+        this.creationTime = Instant.ofEpochMilli(record.creationTime());
+        this.lastAccessedTime = Instant.ofEpochMilli(record.lastAccessedTime());
+        this.maxInactiveInterval = Duration.ofSeconds(record.maxInactiveSeconds());
+        this.absoluteTimeout = absoluteTimeout;
+        this.attributes = new HashMap<>(record.attributes());
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String changeSessionId() {
+        this.id = newId();
+        return this.id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String attributeName) {
+        return (T) attributes.get(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        return Collections.unmodifiableSet(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+        if (attributeValue == null) {
+            removeAttribute(attributeName);
+            return;
+        }
+        attributes.put(attributeName, attributeValue);
+        changes.put(attributeName, attributeValue);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+        attributes.remove(attributeName);
+        changes.put(attributeName, null);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+        this.lastAccessedTime = lastAccessedTime;
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+        this.maxInactiveInterval = interval;
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    @Override
+    public boolean isExpired() {
+        Instant now = Instant.now();
+        boolean idle = !maxInactiveInterval.isNegative()
+                && now.isAfter(lastAccessedTime.plus(maxInactiveInterval));
+        return idle || now.isAfter(creationTime.plus(absoluteTimeout));
+    }
+
+    boolean isNew() {
+        return isNew;
+    }
+
+    String getOriginalId() {
+        return originalId;
+    }
+
+    Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    Map<String, Object> getChanges() {
+        return changes;
+    }
+
+    void markSaved() {
+        changes.clear();
+        originalId = id;
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.entra.bff_backend.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.SessionRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link SessionRepository} that keeps session records outside the Java heap in a {@link SessionArena}.
+ * <p>
+ * Only a map from session id to block address stays on the heap. A request works on an
+ * {@link OffHeapSession} decoded from the record, and saving merges the attributes that request
+ * changed into the current record, so a background token refresh and a concurrent request never
+ * undo each other's writes. Sessions expire after the idle timeout and, regardless of activity,
+ * after the absolute timeout.
+ */
+public class OffHeapSessionRepository implements SessionRepository<OffHeapSession>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapSessionRepository.class);
+
+    private final SessionArena arena;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration absoluteTimeout;
+
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks;
+
+    /**
+     * @param file backing file to keep sessions across restarts, or {@code null} for direct memory
+     */
+    public OffHeapSessionRepository(long maxMemory, int segmentSize, Path file, Duration defaultMaxInactiveInterval,
+                                    Duration absoluteTimeout, int lockStripes) {
+        this(new SessionArena(maxMemory, segmentSize, file), defaultMaxInactiveInterval, absoluteTimeout, lockStripes);
+    }
+
+    OffHeapSessionRepository(SessionArena arena, Duration defaultMaxInactiveInterval, Duration absoluteTimeout, int lockStripes) {
+        this.arena = arena;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.absoluteTimeout = absoluteTimeout;
+        this.locks = new ReentrantLock[Integer.highestOneBit(Math.max(1, lockStripes - 1) << 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        arena.recover(address -> {
+            try {
+                byte[] record = arena.read(address);
+                index.put(SessionRecordCodec.decode(record, record.length).id(), address);
+            } catch (RuntimeException e) {
+                // One damaged record costs one session, not the start-up
+                logger.warn("Dropping unreadable session record at {}: {}", Long.toHexString(address), e.getMessage());
+                arena.free(address);
+            }
+        });
+        if (!index.isEmpty()) {
+            logger.info("Recovered {} sessions from the session file", index.size());
+        }
+    }
+
+    @Override
+    public OffHeapSession createSession() {
+        return new OffHeapSession(defaultMaxInactiveInterval, absoluteTimeout);
+    }
+
+    @Override
+    public void save(OffHeapSession session) {
+        String id = session.getId();
+        String originalId = session.getOriginalId();
+        // Always lock stripes in the same order when the id changed
+        int originalStripe = stripe(originalId);
+        int stripe = stripe(id);
+        ReentrantLock first = locks[Math.min(originalStripe, stripe)];
+        ReentrantLock second = locks[Math.max(originalStripe, stripe)];
+        first.lock();
+        second.lock();
+        try {
+            Long address = index.get(originalId);
+            if (address == null && !session.isNew()) {
+                // Deleted (logout) or expired while this request was running
+                return;
+            }
+            long lastAccessedTime = session.getLastAccessedTime().toEpochMilli();
+            int maxInactiveSeconds = (int) session.getMaxInactiveInterval().toSeconds();
+
+            if (address != null && id.equals(originalId) && session.getChanges().isEmpty()) {
+                arena.touch(address, Math.max(lastAccessedTime, arena.lastAccessedTime(address)), maxInactiveSeconds);
+                return;
+            }
+
+            Map<String, Object> attributes;
+            if (address == null) {
+                attributes = session.getAttributes();
+            } else {
+                byte[] stored = arena.read(address);
+                attributes = new HashMap<>(SessionRecordCodec.decode(stored, stored.length).attributes());
+                session.getChanges().forEach((name, value) -> {
+                    if (value == null) {
+                        attributes.remove(name);
+                    } else {
+                        attributes.put(name, value);
+                    }
+                });
+                lastAccessedTime = Math.max(lastAccessedTime, arena.lastAccessedTime(address));
+            }
+
+            byte[] record = SessionRecordCodec.encode(id, attributes);
+            long creationTime = session.getCreationTime().toEpochMilli();
+            long stored = write(originalId, address != null ? address : -1, record, creationTime, lastAccessedTime,
+                    maxInactiveSeconds);
+            if (!id.equals(originalId)) {
+                index.remove(originalId);
+            }
+            index.put(id, stored);
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+        session.markSaved();
+    }
+
+    @Override
+    public OffHeapSession findById(String id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Long address = index.get(id);
+            if (address == null) {
+                return null;
+            }
+            if (isExpired(address, System.currentTimeMillis())) {
+                remove(id, address);
+                return null;
+            }
+            byte[] stored = arena.read(address);
+            SessionRecordCodec.Decoded decoded = SessionRecordCodec.decode(stored, stored.length);
+            SessionRecord record = new SessionRecord(decoded.id(), arena.creationTime(address),
+                    arena.lastAccessedTime(address), arena.maxInactiveSeconds(address), decoded.attributes());
+            return new OffHeapSession(record, absoluteTimeout);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Long address = index.get(id);
+            if (address != null) {
+                remove(id, address);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the records of all expired sessions. Reads only the block headers of live sessions.
+     *
+     * @return the number of sessions removed
+     */
+    @Scheduled(fixedDelayString = "${app.session.offheap.eviction-interval:60s}")
+    public int evictExpired() {
+        return evictExpired(null);
+    }
+
+    /**
+     * @param keepId session being saved by the caller, which already holds its stripe lock; the lock
+     *               is reentrant, so without this the eviction could free the block being rewritten
+     */
+    private int evictExpired(String keepId) {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+            if (entry.getKey().equals(keepId) || !isExpired(entry.getValue(), now)) {
+                continue;
+            }
+            ReentrantLock lock = lockFor(entry.getKey());
+            // A session in use right now is not idle; also keeps a save that evicts for space deadlock-free
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                Long address = index.get(entry.getKey());
+                if (address != null && isExpired(address, now)) {
+                    remove(entry.getKey(), address);
+                    evicted++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} expired sessions", evicted);
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long usedBytes() {
+        return arena.usedBytes();
+    }
+
+    public long reservedBytes() {
+        return arena.reservedBytes();
+    }
+
+    public long maxBytes() {
+        return arena.maxBytes();
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private long write(String id, long address, byte[] record, long creationTime, long lastAccessedTime,
+                       int maxInactiveSeconds) {
+        try {
+            return arena.write(address, record, creationTime, lastAccessedTime, maxInactiveSeconds);
+        } catch (SessionStoreFullException e) {
+            // Make room from expired sessions before giving up, but never from the one being written
+            if (evictExpired(id) == 0) {
+                throw e;
+            }
+            return arena.write(address, record, creationTime, lastAccessedTime, maxInactiveSeconds);
+        }
+    }
+
+    private boolean isExpired(long address, long now) {
+        if (now - arena.creationTime(address) >= absoluteTimeout.toMillis()) {
+            return true;
+        }
+        int maxInactiveSeconds = arena.maxInactiveSeconds(address);
+        return maxInactiveSeconds >= 0 && now - arena.lastAccessedTime(address) >= maxInactiveSeconds * 1000L;
+    }
+
+    private void remove(String id, long address) {
+        index.remove(id);
+        arena.free(address);
+    }
+
+    private ReentrantLock lockFor(String id) {
+        return locks[stripe(id)];
+    }
+
+    private int stripe(String id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.entra.bff_backend.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size-class block allocator over direct or memory-mapped buffers.
+ * <p>
+ * Memory is reserved in segments of equal size, either as direct buffers (gone on restart) or as
+ * consecutive regions of one mapped file (kept across restarts and re-read by {@link #recover}).
+ * Each block carries a 40-byte header with the session timestamps, so expiry scans only read a few
+ * bytes per session. The header also holds a checksum of the record, written after the record bytes
+ * and before the length, so a record torn by a crash mid-write is detected and dropped on recovery. Blocks come in power-of-two size classes from 256 bytes up; freed blocks go to
+ * a per-class free list and are reused before the segment is extended.
+ * <p>
+ * Callers must serialise access to one block themselves; the arena only guards its own bookkeeping.
+ *
+ * <pre>
+ * segment := magic:i64 bump:i32 segmentSize:i32 reserved[48] block*
+ * block   := magic:i32 state:u8 sizeClass:u8 reserved:i16 recordLength:i32 checksum:i32
+ *            maxInactiveSeconds:i32 reserved:i32 creationTime:i64 lastAccessedTime:i64
+ *            record[recordLength] padding
+ * </pre>
+ */
+final class SessionArena implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionArena.class);
+
+    static final int MIN_BLOCK_SIZE = 256;
+    static final int SIZE_CLASSES = 10;
+
+    private static final long SEGMENT_MAGIC = 0x4246465345535332L; // "BFFSESS2"
+    private static final int SEGMENT_HEADER = 64;
+    private static final int SEGMENT_BUMP = 8;
+    private static final int SEGMENT_SIZE = 12;
+
+    private static final int BLOCK_MAGIC = 0x5E55B10C;
+    private static final int BLOCK_HEADER = 40;
+    private static final int BLOCK_STATE = 4;
+    private static final int BLOCK_SIZE_CLASS = 5;
+    private static final int BLOCK_RECORD_LENGTH = 8;
+    private static final int BLOCK_CHECKSUM = 12;
+    private static final int BLOCK_MAX_INACTIVE = 16;
+    private static final int BLOCK_CREATION_TIME = 24;
+    private static final int BLOCK_LAST_ACCESSED = 32;
+
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FileChannel file;
+
+    private final ReentrantLock growLock = new ReentrantLock();
+    private volatile ByteBuffer[] segments = new ByteBuffer[0];
+    private final Queue<Long>[] freeLists;
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * @param maxMemory   upper bound for all segments together
+     * @param segmentSize size of one segment; at least the largest block size
+     * @param file        backing file, or {@code null} for direct buffers
+     */
+    @SuppressWarnings("unchecked")
+    SessionArena(long maxMemory, int segmentSize, Path file) {
+        int largestBlock = MIN_BLOCK_SIZE << (SIZE_CLASSES - 1);
+        if (segmentSize < SEGMENT_HEADER + largestBlock) {
+            throw new IllegalArgumentException("Segment size must be at least " + (SEGMENT_HEADER + largestBlock) + " bytes");
+        }
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(1, maxMemory / segmentSize);
+        this.freeLists = new Queue[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            freeLists[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.file = file != null ? openFile(file) : null;
+    }
+
+    /** Largest record that fits into a block. */
+    static int maxRecordLength() {
+        return (MIN_BLOCK_SIZE << (SIZE_CLASSES - 1)) - BLOCK_HEADER;
+    }
+
+    /**
+     * Stores a record, in place when the current block still fits it, and returns its address.
+     * The previous block is released when the record had to move.
+     *
+     * @param address current address of the record, or {@code -1} for a new one
+     */
+    long write(long address, byte[] record, long creationTime, long lastAccessedTime, int maxInactiveSeconds) {
+        int sizeClass = sizeClass(record.length);
+        if (address >= 0 && sizeClass(address) < sizeClass) {
+            // Allocate before freeing so a full arena leaves the old record intact
+            long moved = allocate(sizeClass);
+            free(address);
+            address = moved;
+        } else if (address < 0) {
+            address = allocate(sizeClass);
+        }
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        // Record first, then checksum and length: a crash in between leaves a mismatch recover() drops
+        segment.put(offset + BLOCK_HEADER, record);
+        segment.putInt(offset + BLOCK_CHECKSUM, checksum(ByteBuffer.wrap(record)));
+        segment.putInt(offset + BLOCK_RECORD_LENGTH, record.length);
+        segment.putInt(offset + BLOCK_MAX_INACTIVE, maxInactiveSeconds);
+        segment.putLong(offset + BLOCK_CREATION_TIME, creationTime);
+        segment.putLong(offset + BLOCK_LAST_ACCESSED, lastAccessedTime);
+        segment.put(offset + BLOCK_STATE, USED);
+        return address;
+    }
+
+    /** Updates only the access bookkeeping of a stored record. */
+    void touch(long address, long lastAccessedTime, int maxInactiveSeconds) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        segment.putLong(offset + BLOCK_LAST_ACCESSED, lastAccessedTime);
+        segment.putInt(offset + BLOCK_MAX_INACTIVE, maxInactiveSeconds);
+    }
+
+    byte[] read(long address) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        byte[] record = new byte[segment.getInt(offset + BLOCK_RECORD_LENGTH)];
+        segment.get(offset + BLOCK_HEADER, record);
+        return record;
+    }
+
+    long creationTime(long address) {
+        return segment(address).getLong(offset(address) + BLOCK_CREATION_TIME);
+    }
+
+    long lastAccessedTime(long address) {
+        return segment(address).getLong(offset(address) + BLOCK_LAST_ACCESSED);
+    }
+
+    int maxInactiveSeconds(long address) {
+        return segment(address).getInt(offset(address) + BLOCK_MAX_INACTIVE);
+    }
+
+    void free(long address) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        int sizeClass = segment.get(offset + BLOCK_SIZE_CLASS);
+        segment.put(offset + BLOCK_STATE, FREE);
+        usedBytes.addAndGet(-blockSize(sizeClass));
+        freeLists[sizeClass].add(address);
+    }
+
+    /**
+     * Re-reads the segments of the backing file and reports every stored block whose record is intact.
+     * Blocks with a torn record are freed. Must be called once, before any other use. Without a
+     * backing file there is nothing to recover.
+     */
+    void recover(LongConsumer usedBlock) {
+        if (file == null) {
+            return;
+        }
+        try {
+            long existing = file.size() / segmentSize;
+            for (int index = 0; index < existing && index < maxSegments; index++) {
+                ByteBuffer segment = map(index);
+                if (segment.getLong(0) != SEGMENT_MAGIC || segment.getInt(SEGMENT_SIZE) != segmentSize) {
+                    logger.warn("Session file segment {} is not readable; starting from segment {}", index, index);
+                    break;
+                }
+                appendSegment(segment);
+                int bump = Math.min(segment.getInt(SEGMENT_BUMP), segmentSize);
+                for (int offset = SEGMENT_HEADER; offset < bump; ) {
+                    int sizeClass = segment.get(offset + BLOCK_SIZE_CLASS);
+                    if (segment.getInt(offset) != BLOCK_MAGIC || sizeClass < 0 || sizeClass >= SIZE_CLASSES
+                            || offset + blockSize(sizeClass) > bump) {
+                        logger.warn("Session file segment {} is damaged at offset {}; ignoring the rest of it", index, offset);
+                        segment.putInt(SEGMENT_BUMP, offset);
+                        break;
+                    }
+                    long address = address(index, offset);
+                    if (segment.get(offset + BLOCK_STATE) != USED) {
+                        freeLists[sizeClass].add(address);
+                    } else if (!isIntact(segment, offset, sizeClass)) {
+                        logger.warn("Session file segment {} has a torn record at offset {}; dropping it", index, offset);
+                        segment.put(offset + BLOCK_STATE, FREE);
+                        freeLists[sizeClass].add(address);
+                    } else {
+                        usedBytes.addAndGet(blockSize(sizeClass));
+                        usedBlock.accept(address);
+                    }
+                    offset += blockSize(sizeClass);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    long reservedBytes() {
+        return (long) segments.length * segmentSize;
+    }
+
+    long maxBytes() {
+        return (long) maxSegments * segmentSize;
+    }
+
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close session file: {}", e.getMessage());
+        }
+    }
+
+    private long allocate(int sizeClass) {
+        Long reused = freeLists[sizeClass].poll();
+        if (reused != null) {
+            usedBytes.addAndGet(blockSize(sizeClass));
+            return reused;
+        }
+        int blockSize = blockSize(sizeClass);
+        growLock.lock();
+        try {
+            ByteBuffer[] current = segments;
+            int index = current.length - 1;
+            int bump = index >= 0 ? current[index].getInt(SEGMENT_BUMP) : segmentSize;
+            if (bump + blockSize > segmentSize) {
+                if (current.length >= maxSegments) {
+                    throw new SessionStoreFullException(maxBytes());
+                }
+                index = current.length;
+                appendSegment(newSegment(index));
+                bump = SEGMENT_HEADER;
+            }
+            ByteBuffer segment = segments[index];
+            segment.putInt(bump, BLOCK_MAGIC);
+            segment.put(bump + BLOCK_STATE, FREE);
+            segment.put(bump + BLOCK_SIZE_CLASS, (byte) sizeClass);
+            segment.putInt(SEGMENT_BUMP, bump + blockSize);
+            usedBytes.addAndGet(blockSize);
+            return address(index, bump);
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    private ByteBuffer newSegment(int index) {
+        ByteBuffer segment;
+        if (file != null) {
+            try {
+                segment = map(index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            segment = ByteBuffer.allocateDirect(segmentSize);
+        }
+        segment.putLong(0, SEGMENT_MAGIC);
+        segment.putInt(SEGMENT_BUMP, SEGMENT_HEADER);
+        segment.putInt(SEGMENT_SIZE, segmentSize);
+        return segment;
+    }
+
+    private void appendSegment(ByteBuffer segment) {
+        ByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[grown.length - 1] = segment;
+        segments = grown;
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        return file.map(FileChannel.MapMode.READ_WRITE, (long) index * segmentSize, segmentSize);
+    }
+
+    private int sizeClass(long address) {
+        return segment(address).get(offset(address) + BLOCK_SIZE_CLASS);
+    }
+
+    private static int sizeClass(int recordLength) {
+        if (recordLength > maxRecordLength()) {
+            throw new IllegalArgumentException("Session record of " + recordLength + " bytes exceeds the limit of " + maxRecordLength());
+        }
+        int units = (recordLength + BLOCK_HEADER + MIN_BLOCK_SIZE - 1) / MIN_BLOCK_SIZE;
+        return 32 - Integer.numberOfLeadingZeros(units - 1);
+    }
+
+    private static int blockSize(int sizeClass) {
+        return MIN_BLOCK_SIZE << sizeClass;
+    }
+
+    private ByteBuffer segment(long address) {
+        return segments[(int) (address >>> 32)];
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static long address(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    private static boolean isIntact(ByteBuffer segment, int offset, int sizeClass) {
+        int recordLength = segment.getInt(offset + BLOCK_RECORD_LENGTH);
+        if (recordLength < 0 || recordLength > blockSize(sizeClass) - BLOCK_HEADER) {
+            return false;
+        }
+        return segment.getInt(offset + BLOCK_CHECKSUM) == checksum(segment.slice(offset + BLOCK_HEADER, recordLength));
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static FileChannel openFile(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                java.nio.file.Files.createDirectories(parent);
+            }
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.entra.bff_backend.session;
+
+import java.util.Map;
+
+/**
+ * Decoded contents of one stored session.
+ */
+record SessionRecord(String id, long creationTime, long lastAccessedTime, int maxInactiveSeconds,
+                     Map<String, Object> attributes) {
+}
@@ -0,0 +1,342 @@
+package com.example.entra.bff_backend.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary layout of a session's id and attributes.
+ * <p>
+ * The attributes the BFF itself writes get a one-byte tag instead of their name. Tokens are stored
+ * as the raw bytes behind their base64url segments, which is a quarter smaller than the text, and
+ * roles are a counted run of length-prefixed strings rather than a {@code List} of heap objects.
+ * Anything else (e.g. a saved request from Spring Security) falls back to Java serialization.
+ *
+ * <pre>
+ * record    := version:u8 id:str attribute* END
+ * attribute := tag:u8 value          (well-known names)
+ *            | OTHER name:str len:varint bytes
+ * token     := PLAIN str | DOTTED parts:varint (len:varint bytes)*
+ * str       := len:varint utf8
+ * </pre>
+ */
+final class SessionRecordCodec {
+
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+    private static final int ACCESS_TOKEN = 1;
+    private static final int REFRESH_TOKEN = 2;
+    private static final int CODE_VERIFIER = 3;
+    private static final int USER_NAME = 4;
+    private static final int USER_ROLES = 5;
+    private static final int ACCESS_TOKEN_EXPIRES_AT = 6;
+    private static final int ACCESS_TOKEN_SCOPES = 7;
+    private static final int OTHER = 127;
+
+    private static final int TOKEN_PLAIN = 0;
+    private static final int TOKEN_DOTTED = 1;
+
+    private static final Base64.Decoder BASE64URL_DECODER = Base64.getUrlDecoder();
+    private static final Base64.Encoder BASE64URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private SessionRecordCodec() {
+    }
+
+    static byte[] encode(String id, Map<String, Object> attributes) {
+        Writer out = new Writer(1024);
+        out.u8(VERSION);
+        out.str(id);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            encodeAttribute(out, attribute.getKey(), attribute.getValue());
+        }
+        out.u8(END);
+        return out.toByteArray();
+    }
+
+    static Decoded decode(byte[] bytes, int length) {
+        Reader in = new Reader(bytes, length);
+        int version = in.u8();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported session record version " + version);
+        }
+        String id = in.str();
+        Map<String, Object> attributes = new HashMap<>();
+        for (int tag = in.u8(); tag != END; tag = in.u8()) {
+            switch (tag) {
+                case ACCESS_TOKEN -> attributes.put("access_token", readToken(in));
+                case REFRESH_TOKEN -> attributes.put("refresh_token", readToken(in));
+                case CODE_VERIFIER -> attributes.put("code_verifier", in.str());
+                case USER_NAME -> attributes.put("user_name", in.str());
+                case USER_ROLES -> attributes.put("user_roles", readRoles(in));
+                case ACCESS_TOKEN_EXPIRES_AT -> attributes.put("access_token_expires_at", in.i64());
+                case ACCESS_TOKEN_SCOPES -> attributes.put("access_token_scopes", in.str());
+                case OTHER -> attributes.put(in.str(), deserialize(in.bytes()));
+                default -> throw new IllegalStateException("Unknown session attribute tag " + tag);
+            }
+        }
+        return new Decoded(id, attributes);
+    }
+
+    record Decoded(String id, Map<String, Object> attributes) {
+    }
+
+    private static void encodeAttribute(Writer out, String name, Object value) {
+        switch (name) {
+            case "access_token" -> {
+                if (value instanceof String token) {
+                    out.u8(ACCESS_TOKEN);
+                    writeToken(out, token);
+                    return;
+                }
+            }
+            case "refresh_token" -> {
+                if (value instanceof String token) {
+                    out.u8(REFRESH_TOKEN);
+                    writeToken(out, token);
+                    return;
+                }
+            }
+            case "code_verifier" -> {
+                if (value instanceof String verifier) {
+                    out.u8(CODE_VERIFIER);
+                    out.str(verifier);
+                    return;
+                }
+            }
+            case "user_name" -> {
+                if (value instanceof String userName) {
+                    out.u8(USER_NAME);
+                    out.str(userName);
+                    return;
+                }
+            }
+            case "user_roles" -> {
+                if (value instanceof Collection<?> roles && roles.stream().allMatch(String.class::isInstance)) {
+                    out.u8(USER_ROLES);
+                    out.varint(roles.size());
+                    roles.forEach(role -> out.str((String) role));
+                    return;
+                }
+            }
+            case "access_token_expires_at" -> {
+                if (value instanceof Long expiresAt) {
+                    out.u8(ACCESS_TOKEN_EXPIRES_AT);
+                    out.i64(expiresAt);
+                    return;
+                }
+            }
+            case "access_token_scopes" -> {
+                if (value instanceof String scopes) {
+                    out.u8(ACCESS_TOKEN_SCOPES);
+                    out.str(scopes);
+                    return;
+                }
+            }
+            default -> {
+                // not one of ours
+            }
+        }
+        out.u8(OTHER);
+        out.str(name);
+        out.bytes(serialize(name, value));
+    }
+
+    private static void writeToken(Writer out, String token) {
+        String[] parts = token.split("\\.", -1);
+        byte[][] decoded = new byte[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                decoded[i] = BASE64URL_DECODER.decode(parts[i]);
+            } catch (IllegalArgumentException e) {
+                decoded = null;
+                break;
+            }
+            // Only keep the binary form when it reproduces the exact original text
+            if (!BASE64URL_ENCODER.encodeToString(decoded[i]).equals(parts[i])) {
+                decoded = null;
+                break;
+            }
+        }
+        if (decoded == null) {
+            out.u8(TOKEN_PLAIN);
+            out.str(token);
+            return;
+        }
+        out.u8(TOKEN_DOTTED);
+        out.varint(decoded.length);
+        for (byte[] part : decoded) {
+            out.bytes(part);
+        }
+    }
+
+    private static String readToken(Reader in) {
+        if (in.u8() == TOKEN_PLAIN) {
+            return in.str();
+        }
+        int parts = in.varint();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                token.append('.');
+            }
+            token.append(BASE64URL_ENCODER.encodeToString(in.bytes()));
+        }
+        return token.toString();
+    }
+
+    private static List<String> readRoles(Reader in) {
+        int count = in.varint();
+        List<String> roles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            roles.add(in.str());
+        }
+        return roles;
+    }
+
+    private static byte[] serialize(String name, Object value) {
+        if (!(value instanceof Serializable)) {
+            throw new IllegalArgumentException("Session attribute '" + name + "' is not Serializable: " + value.getClass().getName());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int size;
+
+        Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void u8(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                u8((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            u8(value);
+        }
+
+        void i64(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void str(String value) {
+            bytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void bytes(byte[] value) {
+            varint(value.length);
+            ensure(value.length);
+            System.arraycopy(value, 0, buffer, size, value.length);
+            size += value.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] buffer, int limit) {
+            this.buffer = buffer;
+            this.limit = limit;
+        }
+
+        int u8() {
+            if (position >= limit) {
+                throw new IllegalStateException("Truncated session record");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = u8();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        long i64() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | u8();
+            }
+            return value;
+        }
+
+        String str() {
+            int length = varint();
+            check(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        byte[] bytes() {
+            int length = varint();
+            check(length);
+            byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return value;
+        }
+
+        private void check(int length) {
+            if (length < 0 || position + length > limit) {
+                throw new IllegalStateException("Truncated session record");
+            }
+        }
+    }
+}
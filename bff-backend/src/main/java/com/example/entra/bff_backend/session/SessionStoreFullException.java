@@ -0,0 +1,13 @@
+package com.example.entra.bff_backend.session;
+
+/**
+ * Thrown when a session record does not fit and the off-heap store has reached its configured size.
+ * <p>
+ * Deliberately not an {@link IllegalStateException}, which session callers read as "session invalidated".
+ */
+public class SessionStoreFullException extends RuntimeException {
+
+    SessionStoreFullException(long maxBytes) {
+        super("Session store is full (" + maxBytes + " bytes)");
+    }
+}
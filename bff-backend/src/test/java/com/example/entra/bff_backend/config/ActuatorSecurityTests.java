@@ -0,0 +1,51 @@
+package com.example.entra.bff_backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"ENTRA_CLIENT_ID=bff", "ENTRA_CLIENT_SECRET=secret", "ENTRA_TENANT_ID=tenant",
+		"app.actuator.password=scrape-secret"})
+@AutoConfigureMockMvc
+class ActuatorSecurityTests {
+
+	private static final String POOL_METRIC = "/actuator/metrics/bff.upstream.pool.connections";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	// Stands in for the Entra registration, whose issuer discovery would need the network
+	@MockitoBean
+	private ClientRegistrationRepository clientRegistrationRepository;
+
+	@Test
+	void healthIsPublic() throws Exception {
+		mockMvc.perform(get("/actuator/health"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void metricsNeedTheActuatorUser() throws Exception {
+		mockMvc.perform(get(POOL_METRIC))
+				.andExpect(status().isUnauthorized());
+		mockMvc.perform(get(POOL_METRIC).with(httpBasic("actuator", "wrong")))
+				.andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get(POOL_METRIC).with(httpBasic("actuator", "scrape-secret")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.name").value("bff.upstream.pool.connections"))
+				.andExpect(jsonPath("$.availableTags[0].tag").value("state"));
+		mockMvc.perform(get(POOL_METRIC).param("tag", "state:max").with(httpBasic("actuator", "scrape-secret")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.measurements[0].value").isNumber());
+	}
+}
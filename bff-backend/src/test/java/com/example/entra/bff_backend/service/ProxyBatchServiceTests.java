@@ -0,0 +1,108 @@
+package com.example.entra.bff_backend.service;
+
+import com.example.entra.bff_backend.config.ProxyCacheProperties;
+import com.example.entra.bff_backend.dto.BatchItem;
+import com.example.entra.bff_backend.dto.BatchResponse;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.mock.web.MockHttpSession;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ProxyBatchServiceTests {
+
+	private static final long UPSTREAM_DELAY_MILLIS = 300;
+
+	private HttpServer upstream;
+	private ProxyBatchService service;
+
+	@BeforeEach
+	void startUpstream() throws IOException {
+		upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		upstream.setExecutor(Executors.newCachedThreadPool());
+		upstream.createContext("/v1/data/metrics", exchange -> respond(exchange.getResponseBody(), exchange, 200, "application/json", "{\"value\":1250}"));
+		upstream.createContext("/v1/data/analytics", exchange -> respond(exchange.getResponseBody(), exchange, 403, "text/plain", "Forbidden"));
+		upstream.createContext("/v1/data/slow", exchange -> {
+			sleep(5000);
+			respond(exchange.getResponseBody(), exchange, 200, "application/json", "{}");
+		});
+		upstream.start();
+
+		TokenRefreshService tokenRefreshService = mock(TokenRefreshService.class);
+		service = new ProxyBatchService("http://127.0.0.1:" + upstream.getAddress().getPort(), 10, Duration.ofSeconds(2), 8,
+				new DataBackendClient(new SimpleClientHttpRequestFactory(), tokenRefreshService), tokenRefreshService,
+				new ProxyResponseWriter(8192, 4),
+				new ProxyResponseCache(new ProxyCacheProperties(), new SimpleMeterRegistry()));
+	}
+
+	@AfterEach
+	void stopUpstream() {
+		service.shutdown();
+		upstream.stop(0);
+	}
+
+	@Test
+	void fetchesInParallelWithPerItemStatus() {
+		long start = System.nanoTime();
+		BatchResponse response = service.fetchAll(
+				List.of("/data/metrics", "/v1/proxy/data/analytics", "/data/metrics?range=1h", "/data/../actuator"),
+				"token", new MockHttpSession());
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(response.getItems()).extracting(BatchItem::getStatus).containsExactly(200, 403, 200, 400);
+		assertThat(response.getItems().get(0).getBody()).isEqualTo("{\"value\":1250}");
+		assertThat(response.getItems().get(1).getError()).isEqualTo("Forbidden");
+		// Sequentially the three upstream calls of 300 ms each would take at least 900 ms
+		assertThat(elapsedMillis).isLessThan(UPSTREAM_DELAY_MILLIS * 3);
+
+		String json = JsonMapper.builder().build().writeValueAsString(response.getItems().get(0));
+		assertThat(json).isEqualTo("{\"path\":\"/data/metrics\",\"status\":200,\"body\":{\"value\":1250}}");
+	}
+
+	@Test
+	void rejectsPercentEncodedTraversal() {
+		BatchResponse response = service.fetchAll(
+				List.of("/data/%2e%2e/actuator", "/data/%2E%2E%2Factuator", "/data%2f..%2factuator", "/data/%252e%252e/actuator", "/data/%zz"),
+				"token", new MockHttpSession());
+
+		assertThat(response.getItems()).extracting(BatchItem::getStatus).containsOnly(400);
+	}
+
+	@Test
+	void reportsItemsPastTheTimeoutAsGatewayTimeout() {
+		BatchResponse response = service.fetchAll(List.of("/data/slow", "/data/metrics"), "token", new MockHttpSession());
+
+		assertThat(response.getItems()).extracting(BatchItem::getStatus).containsExactly(504, 200);
+	}
+
+	private static void respond(OutputStream body, com.sun.net.httpserver.HttpExchange exchange, int status, String contentType, String text) throws IOException {
+		sleep(UPSTREAM_DELAY_MILLIS);
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		body.write(bytes);
+		exchange.close();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.example.entra.bff_backend.service;
+
+import com.example.entra.bff_backend.config.ProxyCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProxyResponseCacheTests {
+
+	private static final Duration TTL = Duration.ofMinutes(1);
+
+	private static final String SCOPES = "Data.Read";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void sharesResponsesPerRoleSetOnly() throws Exception {
+		ProxyResponseCache cache = cache(ProxyCacheProperties.Eviction.LRU, 16);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("/v1/data/metrics", null, List.of("role.alpha", "role.beta"), SCOPES, TTL, () -> ok("a", loads));
+		ProxyResponseCache.CachedResponse sameRoles = cache.get("/v1/data/metrics", null, List.of("role.beta", "role.alpha"), SCOPES, TTL, () -> ok("b", loads));
+		ProxyResponseCache.CachedResponse otherRoles = cache.get("/v1/data/metrics", null, List.of("role.alpha"), SCOPES, TTL, () -> ok("c", loads));
+		ProxyResponseCache.CachedResponse otherQuery = cache.get("/v1/data/metrics", "x=1", List.of("role.alpha"), SCOPES, TTL, () -> ok("d", loads));
+
+		assertThat(body(sameRoles)).isEqualTo("a");
+		assertThat(body(otherRoles)).isEqualTo("c");
+		assertThat(body(otherQuery)).isEqualTo("d");
+		assertThat(loads).hasValue(3);
+		assertThat(count("bff.proxy.cache.requests", "result", "hit")).isEqualTo(1);
+		assertThat(count("bff.proxy.cache.requests", "result", "miss")).isEqualTo(3);
+	}
+
+	@Test
+	void sharesResponsesPerScopeSetOnly() throws Exception {
+		ProxyResponseCache cache = cache(ProxyCacheProperties.Eviction.LRU, 16);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("/v1/data/metrics", null, List.of("role.alpha"), SCOPES, TTL, () -> ok("a", loads));
+		ProxyResponseCache.CachedResponse noScopes = cache.get("/v1/data/metrics", null, List.of("role.alpha"), "", TTL,
+				() -> new ProxyResponseCache.CachedResponse(403, HttpHeaders.EMPTY, new byte[0]));
+
+		assertThat(noScopes.status()).isEqualTo(403);
+		assertThat(count("bff.proxy.cache.requests", "result", "hit")).isZero();
+	}
+
+	@Test
+	void concurrentMissesShareOneFetch() throws Exception {
+		ProxyResponseCache cache = cache(ProxyCacheProperties.Eviction.LRU, 16);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ProxyResponseCache.CachedResponse>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(callers.submit(() -> cache.get("/v1/data/metrics", null, List.of("role.alpha"), SCOPES, TTL, () -> {
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return ok("shared", loads);
+				})));
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<ProxyResponseCache.CachedResponse> result : results) {
+				assertThat(body(result.get(5, TimeUnit.SECONDS))).isEqualTo("shared");
+			}
+		} finally {
+			callers.shutdownNow();
+		}
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void doesNotShareOrCacheErrors() throws Exception {
+		ProxyResponseCache cache = cache(ProxyCacheProperties.Eviction.LRU, 16);
+
+		cache.get("/v1/data/metrics", null, List.of("role.alpha"), SCOPES, TTL,
+				() -> new ProxyResponseCache.CachedResponse(401, HttpHeaders.EMPTY, new byte[0]));
+		ProxyResponseCache.CachedResponse next = cache.get("/v1/data/metrics", null, List.of("role.alpha"), SCOPES, TTL,
+				() -> ok("ok", new AtomicInteger()));
+
+		assertThat(next.status()).isEqualTo(200);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() throws Exception {
+		ProxyResponseCache cache = cache(ProxyCacheProperties.Eviction.LRU, 2);
+		AtomicInteger loads = new AtomicInteger();
+		load(cache, "/a", loads);
+		load(cache, "/b", loads);
+		load(cache, "/a", loads);
+		load(cache, "/c", loads);
+
+		load(cache, "/a", loads);
+		assertThat(loads).hasValue(3);
+		load(cache, "/b", loads);
+		assertThat(loads).hasValue(4);
+		assertThat(count("bff.proxy.cache.evictions", "reason", "size")).isEqualTo(2);
+	}
+
+	@Test
+	void evictsLeastFrequentlyUsed() throws Exception {
+		ProxyResponseCache cache = cache(ProxyCacheProperties.Eviction.LFU, 2);
+		AtomicInteger loads = new AtomicInteger();
+		load(cache, "/a", loads);
+		load(cache, "/a", loads);
+		load(cache, "/a", loads);
+		load(cache, "/b", loads);
+		load(cache, "/b", loads);
+		load(cache, "/c", loads);
+
+		load(cache, "/a", loads);
+		assertThat(loads).hasValue(3);
+		load(cache, "/c", loads);
+		assertThat(loads).hasValue(4);
+	}
+
+	@Test
+	void cachesOnlyConfiguredRoutes() {
+		ProxyCacheProperties properties = new ProxyCacheProperties();
+		properties.setEnabled(true);
+		properties.setRoutes(Map.of("/v1/data/metrics", Duration.ofSeconds(5), "/v1/data/off", Duration.ZERO));
+		ProxyResponseCache cache = new ProxyResponseCache(properties, registry);
+
+		assertThat(cache.ttlFor("/v1/data/metrics")).isEqualTo(Duration.ofSeconds(5));
+		assertThat(cache.ttlFor("/v1/data/off")).isNull();
+		assertThat(cache.ttlFor("/v1/data/analytics")).isNull();
+
+		properties.setEnabled(false);
+		assertThat(new ProxyResponseCache(properties, new SimpleMeterRegistry()).ttlFor("/v1/data/metrics")).isNull();
+	}
+
+	private ProxyResponseCache cache(ProxyCacheProperties.Eviction eviction, int maxEntries) {
+		ProxyCacheProperties properties = new ProxyCacheProperties();
+		properties.setEnabled(true);
+		properties.setEviction(eviction);
+		properties.setMaxEntries(maxEntries);
+		return new ProxyResponseCache(properties, registry);
+	}
+
+	private static void load(ProxyResponseCache cache, String path, AtomicInteger loads) throws Exception {
+		cache.get(path, null, List.of("role.alpha"), SCOPES, TTL, () -> ok(path, loads));
+	}
+
+	private static ProxyResponseCache.CachedResponse ok(String body, AtomicInteger loads) {
+		loads.incrementAndGet();
+		return new ProxyResponseCache.CachedResponse(200, HttpHeaders.EMPTY, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String body(ProxyResponseCache.CachedResponse response) {
+		return new String(response.body(), StandardCharsets.UTF_8);
+	}
+
+	private double count(String name, String tag, String value) {
+		return registry.get(name).tag(tag, value).counter().count();
+	}
+}
@@ -0,0 +1,38 @@
+package com.example.entra.bff_backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProxyResponseWriterTests {
+
+	private final ProxyResponseWriter writer = new ProxyResponseWriter(8192, 4);
+
+	@Test
+	void answersAMatchingEntityTagWithNotModified() throws Exception {
+		assertThat(write("\"v1\"")).isEqualTo(304);
+		assertThat(write("\"v0\", \"v1\"")).isEqualTo(304);
+		assertThat(write("W/\"v1\"")).isEqualTo(304);
+		assertThat(write("*")).isEqualTo(304);
+	}
+
+	@Test
+	void comparesEntityTagsExactly() throws Exception {
+		assertThat(write("\"v10\"")).isEqualTo(200);
+		assertThat(write("\"xv1\", \"v\"")).isEqualTo(200);
+	}
+
+	private int write(String ifNoneMatch) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+		ProxyResponseCache.CachedResponse cached = new ProxyResponseCache.CachedResponse(200, headers,
+				"{}".getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		writer.write(cached, ifNoneMatch, response);
+		return response.getStatus();
+	}
+}
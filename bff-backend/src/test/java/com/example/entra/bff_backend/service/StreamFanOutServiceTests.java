@@ -0,0 +1,198 @@
+package com.example.entra.bff_backend.service;
+
+import com.example.entra.bff_backend.config.UpstreamClientProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class StreamFanOutServiceTests {
+
+	private HttpServer upstream;
+	private StreamFanOutService service;
+	private MockMvc mockMvc;
+	private final AtomicInteger connections = new AtomicInteger();
+	private final List<OutputStream> openStreams = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void startUpstream() throws IOException {
+		upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		upstream.setExecutor(Executors.newCachedThreadPool());
+		upstream.createContext("/v1/data/metrics/stream", exchange -> {
+			connections.incrementAndGet();
+			// Like data-backend, which wants SCOPE_Data.Read on top of the roles
+			if (!"Bearer token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+				exchange.sendResponseHeaders(403, -1);
+				exchange.close();
+				return;
+			}
+			exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+			exchange.sendResponseHeaders(200, 0);
+			OutputStream body = exchange.getResponseBody();
+			openStreams.add(body);
+			write(body, "id:\"v1\"\nevent:metrics\ndata:{\"value\":1250}\n\n");
+		});
+		upstream.start();
+
+		TokenRefreshService tokenRefreshService = mock(TokenRefreshService.class);
+		when(tokenRefreshService.getValidAccessToken(any())).thenAnswer(call -> {
+			String scopes = (String) call.<HttpSession>getArgument(0).getAttribute("scopes");
+			return scopes == null || scopes.contains("Data.Read") ? "token" : "unscoped-token";
+		});
+		service = new StreamFanOutService("http://127.0.0.1:" + upstream.getAddress().getPort(), 4, 100, Duration.ofMinutes(1), 2,
+				Duration.ofMillis(50), Duration.ofMillis(200), Duration.ofSeconds(30), new UpstreamClientProperties(), tokenRefreshService,
+				new SimpleMeterRegistry());
+		mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(service)).build();
+	}
+
+	@AfterEach
+	void stopUpstream() {
+		service.shutdown();
+		upstream.stop(0);
+	}
+
+	@Test
+	void sharesOneUpstreamStreamPerRoleSet() throws Exception {
+		MockHttpServletResponse first = subscribe("role.alpha,role.beta");
+		await(first, "{\"value\":1250}");
+		MockHttpServletResponse second = subscribe("role.beta,role.alpha");
+		await(second, "{\"value\":1250}");
+		assertThat(connections.get()).isEqualTo(1);
+		assertThat(second.getContentAsString()).contains("id:\"v1\"", "event:metrics");
+
+		for (OutputStream stream : openStreams) {
+			write(stream, "id:\"v2\"\nevent:metrics\ndata:{\"value\":1300}\n\n");
+		}
+		await(first, "{\"value\":1300}");
+		await(second, "{\"value\":1300}");
+
+		await(subscribe("role.alpha"), "{\"value\":1250}");
+		assertThat(service.getUpstreamCount()).isEqualTo(2);
+		assertThat(connections.get()).isEqualTo(2);
+	}
+
+	@Test
+	void sessionWithoutTheScopeDoesNotJoinAStreamOfTheSameRoles() throws Exception {
+		MockHttpServletResponse scoped = subscribe("role.alpha", "Data.Read");
+		await(scoped, "{\"value\":1250}");
+
+		MockHttpServletResponse unscoped = subscribe("role.alpha", "User.Read");
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (connections.get() < 2) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		Thread.sleep(200);
+		assertThat(unscoped.getContentAsString()).doesNotContain("1250");
+		assertThat(scoped.getContentAsString()).contains("{\"value\":1250}");
+	}
+
+	@Test
+	void reconnectsWhenTheUpstreamStreamDrops() throws Exception {
+		MockHttpServletResponse browser = subscribe("role.alpha");
+		await(browser, "{\"value\":1250}");
+
+		openStreams.get(0).close();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (connections.get() < 2) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		assertThat(service.getUpstreamCount()).isEqualTo(1);
+	}
+
+	@Test
+	void coalescesByNameAndDropsTheOldestWhenFull() {
+		StreamEventQueue queue = new StreamEventQueue(2);
+
+		assertThat(queue.offer(new StreamFanOutService.StreamEvent(0, "1", "metrics", "a"))).isEqualTo(StreamEventQueue.Outcome.QUEUED);
+		assertThat(queue.offer(new StreamFanOutService.StreamEvent(1, "2", "analytics", "b"))).isEqualTo(StreamEventQueue.Outcome.QUEUED);
+		assertThat(queue.offer(new StreamFanOutService.StreamEvent(2, "3", "metrics", "c"))).isEqualTo(StreamEventQueue.Outcome.COALESCED);
+		assertThat(queue.offer(new StreamFanOutService.StreamEvent(3, "4", null, "d"))).isEqualTo(StreamEventQueue.Outcome.DROPPED_OLDEST);
+
+		assertThat(queue.poll().id()).isEqualTo("3");
+		assertThat(queue.poll().id()).isEqualTo("4");
+		assertThat(queue.isEmpty()).isTrue();
+	}
+
+	@Test
+	void ignoresAnEventOlderThanOneAlreadyOffered() {
+		StreamEventQueue queue = new StreamEventQueue(2);
+
+		// A publish that reached a joining client before the replay of the latest event it had read
+		assertThat(queue.offer(new StreamFanOutService.StreamEvent(8, "9", "metrics", "new"))).isEqualTo(StreamEventQueue.Outcome.QUEUED);
+		assertThat(queue.offer(new StreamFanOutService.StreamEvent(7, "8", "metrics", "old"))).isEqualTo(StreamEventQueue.Outcome.STALE);
+		assertThat(queue.poll().data()).isEqualTo("new");
+		assertThat(queue.offer(new StreamFanOutService.StreamEvent(8, "9", "metrics", "new"))).isEqualTo(StreamEventQueue.Outcome.STALE);
+		assertThat(queue.isEmpty()).isTrue();
+	}
+
+	private MockHttpServletResponse subscribe(String roles) throws Exception {
+		return subscribe(roles, "Data.Read");
+	}
+
+	private MockHttpServletResponse subscribe(String roles, String scopes) throws Exception {
+		MvcResult result = mockMvc.perform(get("/stream").param("roles", roles).param("scopes", scopes))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return result.getResponse();
+	}
+
+	private static void await(MockHttpServletResponse response, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!response.getContentAsString().contains(expected)) {
+			assertThat(System.currentTimeMillis()).as("waiting for %s", expected).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static void write(OutputStream body, String text) throws IOException {
+		body.write(text.getBytes(StandardCharsets.UTF_8));
+		body.flush();
+	}
+
+	@RestController
+	static class StreamController {
+
+		private final StreamFanOutService service;
+
+		StreamController(StreamFanOutService service) {
+			this.service = service;
+		}
+
+		@GetMapping("/stream")
+		SseEmitter stream(@RequestParam List<String> roles, @RequestParam String scopes, HttpSession session) {
+			session.setAttribute("scopes", scopes);
+			return service.subscribe("metrics", roles, scopes, session);
+		}
+	}
+}
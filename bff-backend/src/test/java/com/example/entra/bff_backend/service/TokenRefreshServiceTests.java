@@ -0,0 +1,89 @@
+package com.example.entra.bff_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRefreshServiceTests {
+
+	private final AuthService authService = mock(AuthService.class);
+
+	private final TokenRefreshService service = new TokenRefreshService(authService, Optional.empty(),
+			Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(5), 2);
+
+	@AfterEach
+	void shutdown() {
+		service.shutdown();
+	}
+
+	@Test
+	void concurrentRequestsShareOneRefresh() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		when(authService.refreshToken("refresh-1")).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return Map.of("access_token", "access-2", "refresh_token", "refresh-2", "expires_in", 3600);
+		});
+
+		MockHttpSession session = new MockHttpSession();
+		service.storeTokens(session, Map.of("access_token", "access-1", "refresh_token", "refresh-1", "expires_in", 10));
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(callers.submit(() -> service.getValidAccessToken(session)));
+			}
+			Thread.sleep(100);
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("access-2");
+			}
+		} finally {
+			callers.shutdownNow();
+		}
+
+		verify(authService, times(1)).refreshToken(anyString());
+		assertThat(session.getAttribute("refresh_token")).isEqualTo("refresh-2");
+	}
+
+	@Test
+	void backgroundScanRefreshesOnlyTokensInsideTheWindow() throws Exception {
+		when(authService.refreshToken("refresh-soon")).thenReturn(
+				Map.of("access_token", "fresh", "refresh_token", "refresh-next", "expires_in", 3600));
+
+		MockHttpSession expiringSoon = new MockHttpSession();
+		service.storeTokens(expiringSoon, Map.of("access_token", "stale", "refresh_token", "refresh-soon", "expires_in", 60));
+		MockHttpSession longLived = new MockHttpSession();
+		service.storeTokens(longLived, Map.of("access_token", "valid", "refresh_token", "refresh-later", "expires_in", 3600));
+
+		service.refreshExpiringTokens();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!"fresh".equals(expiringSoon.getAttribute("access_token")) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(expiringSoon.getAttribute("access_token")).isEqualTo("fresh");
+		assertThat(longLived.getAttribute("access_token")).isEqualTo("valid");
+		verify(authService, never()).refreshToken("refresh-later");
+	}
+}
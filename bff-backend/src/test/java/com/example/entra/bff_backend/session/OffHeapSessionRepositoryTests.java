@@ -0,0 +1,227 @@
+package com.example.entra.bff_backend.session;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapSessionRepositoryTests {
+
+	private static final int SEGMENT_SIZE = 1 << 20;
+
+	private static final String ACCESS_TOKEN = jwt("{\"alg\":\"RS256\",\"kid\":\"k1\"}",
+			"{\"sub\":\"user-1\",\"scp\":\"Data.Read\",\"roles\":[\"role.alpha\"],\"exp\":1900000000}");
+
+	@Test
+	void roundTripsAttributesInCompactForm() {
+		OffHeapSessionRepository repository = repository(null);
+		OffHeapSession session = repository.createSession();
+		session.setAttribute("access_token", ACCESS_TOKEN);
+		session.setAttribute("refresh_token", "opaque.refresh-token==");
+		session.setAttribute("user_name", "Ada");
+		session.setAttribute("user_roles", List.of("role.alpha", "role.beta"));
+		session.setAttribute("access_token_expires_at", 1_900_000_000_000L);
+		session.setAttribute("other", new java.util.ArrayList<>(List.of(1, 2)));
+		repository.save(session);
+
+		OffHeapSession loaded = repository.findById(session.getId());
+
+		assertThat(loaded.<String>getAttribute("access_token")).isEqualTo(ACCESS_TOKEN);
+		assertThat(loaded.<String>getAttribute("refresh_token")).isEqualTo("opaque.refresh-token==");
+		assertThat(loaded.<String>getAttribute("user_name")).isEqualTo("Ada");
+		assertThat(loaded.<List<String>>getAttribute("user_roles")).containsExactly("role.alpha", "role.beta");
+		assertThat(loaded.<Long>getAttribute("access_token_expires_at")).isEqualTo(1_900_000_000_000L);
+		assertThat(loaded.<List<Integer>>getAttribute("other")).containsExactly(1, 2);
+
+		byte[] record = SessionRecordCodec.encode(session.getId(), Map.of("access_token", ACCESS_TOKEN));
+		assertThat(record.length).isLessThan(ACCESS_TOKEN.length());
+	}
+
+	@Test
+	void saveMergesOnlyChangedAttributes() {
+		OffHeapSessionRepository repository = repository(null);
+		OffHeapSession session = repository.createSession();
+		session.setAttribute("access_token", "a1");
+		session.setAttribute("user_name", "Ada");
+		repository.save(session);
+
+		OffHeapSession request = repository.findById(session.getId());
+		OffHeapSession backgroundRefresh = repository.findById(session.getId());
+		backgroundRefresh.setAttribute("access_token", "a2");
+		repository.save(backgroundRefresh);
+		request.setAttribute("user_name", "Grace");
+		repository.save(request);
+
+		OffHeapSession loaded = repository.findById(session.getId());
+		assertThat(loaded.<String>getAttribute("access_token")).isEqualTo("a2");
+		assertThat(loaded.<String>getAttribute("user_name")).isEqualTo("Grace");
+	}
+
+	@Test
+	void expiresIdleAndOldSessionsAndReusesTheirBlocks() {
+		OffHeapSessionRepository repository = repository(null);
+		OffHeapSession idle = repository.createSession();
+		idle.setLastAccessedTime(Instant.now().minus(Duration.ofHours(1)));
+		repository.save(idle);
+		OffHeapSession active = repository.createSession();
+		repository.save(active);
+		long usedBefore = repository.usedBytes();
+
+		assertThat(repository.evictExpired()).isEqualTo(1);
+		assertThat(repository.findById(idle.getId())).isNull();
+		assertThat(repository.findById(active.getId())).isNotNull();
+		assertThat(repository.usedBytes()).isLessThan(usedBefore);
+
+		repository.save(repository.createSession());
+		assertThat(repository.reservedBytes()).isEqualTo(SEGMENT_SIZE);
+	}
+
+	@Test
+	void changedSessionIdMovesTheRecord() {
+		OffHeapSessionRepository repository = repository(null);
+		OffHeapSession session = repository.createSession();
+		session.setAttribute("user_name", "Ada");
+		repository.save(session);
+		String originalId = session.getId();
+
+		OffHeapSession loaded = repository.findById(originalId);
+		loaded.changeSessionId();
+		repository.save(loaded);
+
+		assertThat(repository.findById(originalId)).isNull();
+		assertThat(repository.findById(loaded.getId()).<String>getAttribute("user_name")).isEqualTo("Ada");
+		assertThat(repository.size()).isEqualTo(1);
+	}
+
+	@Test
+	void mappedFileSurvivesRestart(@TempDir Path directory) {
+		Path file = directory.resolve("sessions.bin");
+		String id;
+		try (OffHeapSessionRepository repository = repository(file)) {
+			OffHeapSession session = repository.createSession();
+			session.setAttribute("access_token", ACCESS_TOKEN);
+			repository.save(session);
+			OffHeapSession deleted = repository.createSession();
+			repository.save(deleted);
+			repository.deleteById(deleted.getId());
+			id = session.getId();
+		}
+
+		try (OffHeapSessionRepository restarted = repository(file)) {
+			assertThat(restarted.size()).isEqualTo(1);
+			assertThat(restarted.findById(id).<String>getAttribute("access_token")).isEqualTo(ACCESS_TOKEN);
+		}
+	}
+
+	@Test
+	void failsWhenFullOfLiveSessions() {
+		OffHeapSessionRepository repository = repository(null);
+		String large = "x".repeat(SessionArena.maxRecordLength() - 64);
+		assertThatThrownBy(() -> {
+			for (int i = 0; i < 100; i++) {
+				OffHeapSession session = repository.createSession();
+				session.setAttribute("user_name", large);
+				repository.save(session);
+			}
+		}).isInstanceOf(SessionStoreFullException.class).hasMessageContaining("full");
+	}
+
+	@Test
+	void tornRecordIsDroppedOnRestart(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("sessions.bin");
+		String intactId;
+		String tornId;
+		try (OffHeapSessionRepository repository = repository(file)) {
+			OffHeapSession intact = repository.createSession();
+			intact.setAttribute("user_name", "Ada");
+			repository.save(intact);
+			OffHeapSession torn = repository.createSession();
+			torn.setAttribute("user_name", "Grace");
+			repository.save(torn);
+			intactId = intact.getId();
+			tornId = torn.getId();
+		}
+		byte[] bytes = Files.readAllBytes(file);
+		int at = indexOf(bytes, tornId.getBytes(StandardCharsets.UTF_8));
+		bytes[at] ^= 0x7F;
+		Files.write(file, bytes);
+
+		try (OffHeapSessionRepository restarted = repository(file)) {
+			assertThat(restarted.size()).isEqualTo(1);
+			assertThat(restarted.findById(intactId).<String>getAttribute("user_name")).isEqualTo("Ada");
+			assertThat(restarted.findById(tornId)).isNull();
+		}
+	}
+
+	@Test
+	void evictingForSpaceNeverFreesTheSessionBeingSaved() {
+		OffHeapSessionRepository repository = repository(null);
+		String large = "x".repeat(SessionArena.maxRecordLength() - 64);
+		OffHeapSession saving = repository.createSession();
+		repository.save(saving);
+		OffHeapSession other = repository.createSession();
+		other.setAttribute("user_name", large);
+		repository.save(other);
+		assertThatThrownBy(() -> {
+			for (int i = 0; i < 100; i++) {
+				OffHeapSession session = repository.createSession();
+				session.setAttribute("user_name", large);
+				repository.save(session);
+			}
+		}).isInstanceOf(SessionStoreFullException.class);
+		other.setMaxInactiveInterval(Duration.ZERO);
+		repository.save(other);
+
+		saving.setMaxInactiveInterval(Duration.ZERO);
+		repository.save(saving);
+
+		// Expired, and outgrows its block while the store is full; only the other session may make room
+		saving.setAttribute("user_name", large);
+		repository.save(saving);
+
+		// A block freed twice would hand the same address to both of these
+		OffHeapSession first = repository.createSession();
+		first.setAttribute("user_name", "Ada");
+		repository.save(first);
+		OffHeapSession second = repository.createSession();
+		second.setAttribute("user_name", "Grace");
+		repository.save(second);
+		assertThat(repository.findById(first.getId()).<String>getAttribute("user_name")).isEqualTo("Ada");
+		assertThat(repository.findById(second.getId()).<String>getAttribute("user_name")).isEqualTo("Grace");
+	}
+
+	private static OffHeapSessionRepository repository(Path file) {
+		return new OffHeapSessionRepository(SEGMENT_SIZE, SEGMENT_SIZE, file, Duration.ofMinutes(30), Duration.ofHours(12), 8);
+	}
+
+	private static int indexOf(byte[] bytes, byte[] part) {
+		outer:
+		for (int i = 0; i <= bytes.length - part.length; i++) {
+			for (int j = 0; j < part.length; j++) {
+				if (bytes[i + j] != part[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		throw new AssertionError("Not found in the session file");
+	}
+
+	private static String jwt(String header, String claims) {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+				+ encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + "."
+				+ encoder.encodeToString(new byte[256]);
+	}
+}
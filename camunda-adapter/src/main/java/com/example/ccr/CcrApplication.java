@@ -2,12 +2,14 @@ package com.example.ccr;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.camunda.bpm.client.spring.annotation.EnableExternalTaskClient;
 import org.camunda.community.rest.EnableCamundaRestClient;
 
 @SpringBootApplication
 @EnableCamundaRestClient
 @EnableExternalTaskClient(baseUrl = "http://localhost:8080/engine-rest")
+@EnableScheduling
 public class CcrApplication {
 
 	public static void main(String[] args) {
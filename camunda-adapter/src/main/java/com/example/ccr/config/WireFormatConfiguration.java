@@ -0,0 +1,61 @@
+package com.example.ccr.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Lets callers that send {@code Accept: application/x-jackson-smile}, i.e. the orchestrator, get
+ * responses as Smile instead of JSON.
+ * <p>
+ * Smile writes each property name once per response and refers back to it afterwards, which is most
+ * of the saving on listings where every row repeats {@code caseId}, {@code businessKey} and
+ * {@code status}. Short repeated values such as statuses are shared the same way. The converter
+ * takes the place of Spring MVC's default Smile converter, which sits after the JSON one, so browsers,
+ * curl and anything else sending {@code *}{@code /*} keep getting JSON.
+ */
+@Configuration
+public class WireFormatConfiguration implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public WireFormatConfiguration(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // The default one writes dates as timestamps and would answer before a converter appended here
+        MappingJackson2SmileHttpMessageConverter smile = new MappingJackson2SmileHttpMessageConverter(smileMapper(objectMapperBuilder));
+        boolean replaced = false;
+        for (ListIterator<HttpMessageConverter<?>> it = converters.listIterator(); it.hasNext(); ) {
+            if (it.next() instanceof MappingJackson2SmileHttpMessageConverter) {
+                if (replaced) {
+                    it.remove();
+                } else {
+                    it.set(smile);
+                    replaced = true;
+                }
+            }
+        }
+        if (!replaced) {
+            converters.add(smile);
+        }
+    }
+
+    /** A Smile mapper with the same settings as the JSON one, so both encode dates and nulls alike. */
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return builder.createXmlMapper(false).factory(factory).build();
+    }
+}
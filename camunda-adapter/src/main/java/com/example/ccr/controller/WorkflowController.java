@@ -1,54 +1,140 @@
 package com.example.ccr.controller;
 
+import com.example.ccr.service.BulkExecutor;
+import com.example.ccr.service.CaseLookupService;
+import com.example.ccr.service.CaseQueryService;
+import com.example.ccr.service.CaseReadModel;
+import com.example.ccr.service.CaseSummary;
+import com.example.ccr.service.SignatureCorrelationService;
+import com.example.ccr.service.TaskCompletionService;
+import com.example.ccr.service.TaskVariableService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.camunda.bpm.engine.HistoryService;
 import org.camunda.bpm.engine.RuntimeService;
 import org.camunda.bpm.engine.TaskService;
 import org.camunda.bpm.engine.history.HistoricProcessInstance;
 import org.camunda.bpm.engine.task.Task;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/workflow")
 public class WorkflowController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Milliseconds since the read model answering the request last synced; absent when the engine answered
+    private static final String STALENESS_HEADER = "X-Read-Model-Staleness-Ms";
+
     @Autowired
     private RuntimeService runtimeService;
     @Autowired
     private TaskService taskService;
     @Autowired
     private HistoryService historyService;
+    @Autowired
+    private CaseQueryService caseQueryService;
+    @Autowired
+    private CaseReadModel caseReadModel;
+    @Autowired
+    private CaseLookupService caseLookupService;
+    @Autowired
+    private TaskVariableService taskVariableService;
+    @Autowired
+    private SignatureCorrelationService signatureCorrelationService;
+    @Autowired
+    private TaskCompletionService taskCompletionService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
-     * DASHBOARD: Fetch all cases with status filtering.
-     * GET /workflow/cases?status=running|completed
+     * DASHBOARD: One page of cases, newest first, with status filtering.
+     * GET /workflow/cases?status=running|completed&limit=100&cursor=...&fields=caseId,status
+     * The body stays a JSON array; the cursor of the next page, if any, comes back in X-Next-Cursor.
      */
     @GetMapping("/cases")
-    public List<Map<String, Object>> getAllCases(@RequestParam(required = false) String status) {
-        var query = historyService.createHistoricProcessInstanceQuery()
-                .orderByProcessInstanceStartTime().desc();
-
-        if ("running".equalsIgnoreCase(status)) query.unfinished();
-        else if ("completed".equalsIgnoreCase(status)) query.finished();
-
-        return query.list().stream().map(hi -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("caseId", hi.getId());
-            map.put("businessKey", hi.getBusinessKey());
-            map.put("status", hi.getEndTime() == null ? "RUNNING" : "COMPLETED");
-            map.put("startTime", hi.getStartTime());
-            return map;
-        }).collect(Collectors.toList());
+    public ResponseEntity<List<Map<String, Object>>> getAllCases(@RequestParam(required = false) String status,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) String fields) {
+        CaseQueryService.CasePage page;
+        try {
+            page = caseQueryService.page(status, limit, cursor, fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        if (page.staleness() != null) {
+            response.header(STALENESS_HEADER, String.valueOf(page.staleness().toMillis()));
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * EXPORT: Every matching case as NDJSON, read from the engine one page at a time.
+     * GET /workflow/cases with Accept: application/x-ndjson
+     */
+    @GetMapping(value = "/cases", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportCases(@RequestParam(required = false) String status,
+                                                             @RequestParam(required = false) String fields) {
+        try {
+            // Reject a bad projection while a 400 can still be sent
+            CaseQueryService.projection(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                caseQueryService.forEach(status, fields, items -> {
+                    try {
+                        for (Map<String, Object> item : items) {
+                            out.write(objectMapper.writeValueAsBytes(item));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     /**
      * MACRO VIEW: High-level roadmap and link to active task.
      * GET /workflow/case/{lookupId}/macro
+     * Served from the case read model; the engine is only asked for cases the model does not hold yet.
      */
     @GetMapping("/case/{lookupId}/macro")
-    public Map<String, Object> getMacroView(@PathVariable String lookupId) {
+    public ResponseEntity<Map<String, Object>> getMacroView(@PathVariable String lookupId) {
+        Optional<CaseSummary> known = caseReadModel.find(lookupId);
+        if (known.isPresent()) {
+            Duration staleness = caseReadModel.staleness();
+            return ResponseEntity.ok()
+                    .header(STALENESS_HEADER, String.valueOf(staleness == null ? 0 : staleness.toMillis()))
+                    .body(macroView(known.get()));
+        }
+
         // Lookup by Business Key (998) or Internal ID
         HistoricProcessInstance hi = historyService.createHistoricProcessInstanceQuery()
                 .processInstanceBusinessKey(lookupId).singleResult();
@@ -57,20 +143,55 @@ public class WorkflowController {
 
         if (hi == null) throw new RuntimeException("Case not found");
 
-        boolean isFinished = hi.getEndTime() != null;
+        Task activeTask = hi.getEndTime() == null
+                ? taskService.createTaskQuery().processInstanceId(hi.getId()).singleResult()
+                : null;
+        CaseSummary summary = CaseSummary.of(hi, activeTask);
+        caseReadModel.put(summary);
+        return ResponseEntity.ok(macroView(summary));
+    }
+
+    /**
+     * MACRO VIEW (BATCH): Roadmaps for a whole dashboard page in one call.
+     * POST /workflow/cases/macro with a JSON array of business keys or instance ids
+     * Returns an object keyed by the requested id; ids that match no case are left out.
+     */
+    @PostMapping("/cases/macro")
+    public Map<String, Map<String, Object>> getMacroViews(@RequestBody List<String> lookupIds) {
+        Map<String, CaseSummary> cases;
+        try {
+            cases = caseLookupService.resolve(lookupIds);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        Map<String, Map<String, Object>> res = new LinkedHashMap<>();
+        cases.forEach((lookupId, summary) -> res.put(lookupId, macroView(summary)));
+        return res;
+    }
+
+    /**
+     * READ MODEL: Sync state of the in-memory case model behind the dashboard and macro view.
+     * GET /workflow/read-model
+     */
+    @GetMapping("/read-model")
+    public Map<String, Object> getReadModelStatus() {
+        return caseReadModel.status();
+    }
+
+    private static Map<String, Object> macroView(CaseSummary summary) {
         Map<String, Object> res = new HashMap<>();
-        res.put("caseId", hi.getId());
-        res.put("businessKey", hi.getBusinessKey());
-        res.put("isLive", !isFinished);
-
-        if (!isFinished) {
-            Task activeTask = taskService.createTaskQuery().processInstanceId(hi.getId()).singleResult();
-            if (activeTask != null) {
-                res.put("activeTaskId", activeTask.getId());
-                res.put("activeTaskName", activeTask.getName());
+        res.put("caseId", summary.caseId());
+        res.put("businessKey", summary.businessKey());
+        res.put("isLive", !summary.isFinished());
+
+        if (!summary.isFinished()) {
+            if (summary.activeTaskId() != null) {
+                res.put("activeTaskId", summary.activeTaskId());
+                res.put("activeTaskName", summary.activeTaskName());
                 // Business Phase Mapping
-                if (activeTask.getName() != null && activeTask.getName().contains("Review")) res.put("currentPhase", "Intake Review");
-                else res.put("currentPhase", activeTask.getName());
+                String name = summary.activeTaskName();
+                if (name != null && name.contains("Review")) res.put("currentPhase", "Intake Review");
+                else res.put("currentPhase", name);
             }
         } else {
             res.put("currentPhase", "Completed");
@@ -80,20 +201,43 @@ public class WorkflowController {
 
     /**
      * MICRO VIEW: Task-specific details and Form Key.
-     * GET /workflow/task/{taskId}/micro
+     * GET /workflow/task/{taskId}/micro?variables=amount,applicant&deserializeValues=false
+     * Large variables (bytes, files, big text or objects) come back as handles listed in lazyVariables.
      */
     @GetMapping("/task/{taskId}/micro")
-    public Map<String, Object> getMicroView(@PathVariable String taskId) {
+    public Map<String, Object> getMicroView(@PathVariable String taskId,
+                                            @RequestParam(required = false) List<String> variables,
+                                            @RequestParam(defaultValue = "false") boolean deserializeValues) {
         Task task = taskService.createTaskQuery().taskId(taskId).singleResult();
         if (task == null) throw new RuntimeException("Task not found");
 
+        TaskVariableService.VariableView view = taskVariableService.load(taskId, variables, deserializeValues);
         Map<String, Object> res = new HashMap<>();
         res.put("taskId", task.getId());
         res.put("formKey", task.getFormKey());
-        res.put("variables", taskService.getVariables(taskId));
+        res.put("variables", view.values());
+        res.put("lazyVariables", view.lazy());
         return res;
     }
 
+    /**
+     * VARIABLE: Raw content of one variable, typically a lazy handle from the micro view.
+     * GET /workflow/task/{taskId}/variables/{name}
+     */
+    @GetMapping("/task/{taskId}/variables/{name}")
+    public ResponseEntity<InputStreamResource> getTaskVariable(@PathVariable String taskId, @PathVariable String name) {
+        TaskVariableService.VariableContent content = taskVariableService.open(taskId, name);
+        if (content == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No variable '" + name + "' on task " + taskId);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(content.contentType()));
+        if (content.filename() != null) {
+            response.header(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(content.filename(), StandardCharsets.UTF_8).build().toString());
+        }
+        return response.body(new InputStreamResource(content.body()));
+    }
+
     /**
      * ACTION: Complete a user task.
      * POST /workflow/task/{taskId}/complete
@@ -101,9 +245,47 @@ public class WorkflowController {
     @PostMapping("/task/{taskId}/complete")
     public String completeTask(@PathVariable String taskId, @RequestBody Map<String, Object> vars) {
         taskService.complete(taskId, vars);
+        caseReadModel.reloadCasesOfTasks(List.of(taskId));
         return "✅ Task " + taskId + " completed.";
     }
 
+    /**
+     * ACTION (BULK): Complete many user tasks, each with its own variables.
+     * POST /workflow/tasks/complete?async=false with [{"taskId": "...", "variables": {...}}, ...]
+     * Small batches return counts and one result per task (COMPLETED or FAILED). Batches over
+     * app.tasks.completion.async-threshold, or any batch with async=true, return 202 and a job to poll.
+     */
+    @PostMapping("/tasks/complete")
+    public ResponseEntity<Map<String, Object>> completeTasks(@RequestBody List<TaskCompletionService.Completion> completions,
+                                                             @RequestParam(defaultValue = "false") boolean async) {
+        try {
+            if (!async && !taskCompletionService.runsAsJob(completions.size())) {
+                return ResponseEntity.ok(bulkResponse(taskCompletionService.complete(completions)));
+            }
+            TaskCompletionService.Job job = taskCompletionService.start(completions);
+            Map<String, Object> res = job.status();
+            String statusUrl = "/workflow/tasks/complete/" + job.getId();
+            res.put("statusUrl", statusUrl);
+            return ResponseEntity.accepted().header(HttpHeaders.LOCATION, statusUrl).body(res);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * ACTION (BULK): Progress of a bulk completion job, with every task's result once it is DONE, or an
+     * error once it is FAILED (it could not run to the end, or ran past app.tasks.completion.max-job-age).
+     * GET /workflow/tasks/complete/{jobId}
+     */
+    @GetMapping("/tasks/complete/{jobId}")
+    public Map<String, Object> getCompletionJob(@PathVariable String jobId) {
+        TaskCompletionService.Job job = taskCompletionService.job(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No completion job " + jobId);
+        }
+        return job.status();
+    }
+
     /**
      * SIGNAL: Correlate signature message to move past wait state.
      * POST /workflow/case/{businessKey}/sign
@@ -113,6 +295,35 @@ public class WorkflowController {
         runtimeService.createMessageCorrelation("Message_SignatureReceived")
                 .processInstanceBusinessKey(businessKey)
                 .correlate();
+        caseReadModel.reloadCases(List.of(businessKey));
         return "✅ Signature correlated for " + businessKey;
     }
+
+    /**
+     * SIGNAL (BULK): Correlate signatures for many business keys, e.g. the provider's nightly batch.
+     * POST /workflow/cases/sign with a JSON array of business keys
+     * Returns counts per status and one result per key (CORRELATED, NOT_WAITING or FAILED).
+     */
+    @PostMapping("/cases/sign")
+    public Map<String, Object> signDocumentsBulk(@RequestBody List<String> businessKeys) {
+        List<BulkExecutor.Result> results;
+        try {
+            results = signatureCorrelationService.correlate(businessKeys);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return bulkResponse(results);
+    }
+
+    private static Map<String, Object> bulkResponse(List<BulkExecutor.Result> results) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (BulkExecutor.Result result : results) {
+            counts.merge(result.status(), 1, Integer::sum);
+        }
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("total", results.size());
+        res.put("counts", counts);
+        res.put("results", results);
+        return res;
+    }
 }
@@ -0,0 +1,81 @@
+package com.example.ccr.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs one engine call per key on a fixed pool and reports the outcome of every key.
+ * <p>
+ * Each call is a REST round trip to the engine, so a batch of thousands goes through a pool's width
+ * at a time instead of one after another. The pool is shared by concurrent batches, which keeps the
+ * load on engine-rest bounded however many arrive at once.
+ */
+public class BulkExecutor {
+
+    /**
+     * @param error the failure message, null when the call succeeded
+     */
+    public record Result(String key, String status, String error) {
+    }
+
+    private final ExecutorService pool;
+
+    public BulkExecutor(String threadPrefix, int parallelism) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Calls {@code action} for every key and waits for all of them.
+     *
+     * @param successStatus status reported for keys whose call returned normally
+     * @param failureStatus status reported for a key whose call threw
+     * @return one result per key, in the order of {@code keys}
+     */
+    public List<Result> run(List<String> keys, String successStatus, Consumer<String> action,
+                            Function<RuntimeException, String> failureStatus) {
+        return submit(keys, successStatus, action, failureStatus, result -> {
+        }).join();
+    }
+
+    /**
+     * Starts calling {@code action} for every key without waiting.
+     *
+     * @param onResult told about each key as soon as its call is done, from a pool thread
+     * @return completes with one result per key, in the order of {@code keys}, once all calls are done
+     */
+    public CompletableFuture<List<Result>> submit(List<String> keys, String successStatus, Consumer<String> action,
+                                                  Function<RuntimeException, String> failureStatus,
+                                                  Consumer<Result> onResult) {
+        List<CompletableFuture<Result>> calls = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                Result result;
+                try {
+                    action.accept(key);
+                    result = new Result(key, successStatus, null);
+                } catch (RuntimeException e) {
+                    result = new Result(key, failureStatus.apply(e), String.valueOf(e.getMessage()));
+                }
+                onResult.accept(result);
+                return result;
+            }, pool));
+        }
+        return CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new))
+                .thenApply(done -> calls.stream().map(CompletableFuture::join).toList());
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
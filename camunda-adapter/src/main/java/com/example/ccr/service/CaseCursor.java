@@ -0,0 +1,49 @@
+package com.example.ccr.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the case listing: the start time and id of the last case returned.
+ * <p>
+ * Cases are listed newest first, ties on start time broken by id, so the next page is everything
+ * strictly after this pair in that order. Callers get it as an opaque base64url token.
+ */
+public record CaseCursor(long startTimeMillis, String caseId) {
+
+    private static final String VERSION = "v1";
+
+    public String encode() {
+        String raw = VERSION + ":" + startTimeMillis + ":" + caseId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static CaseCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        String[] parts = raw.split(":", 3);
+        if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[2].isEmpty()) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        try {
+            return new CaseCursor(Long.parseLong(parts[1]), parts[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+
+    /**
+     * Whether a case with this start time and id comes after the cursor, i.e. belongs to the next page.
+     */
+    boolean precedes(long otherStartTimeMillis, String otherCaseId) {
+        return otherStartTimeMillis < startTimeMillis
+                || (otherStartTimeMillis == startTimeMillis && otherCaseId.compareTo(caseId) < 0);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.task.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves many cases at once for the batched macro view.
+ * <p>
+ * Whatever {@link CaseReadModel} holds is answered from memory. The rest costs at most three
+ * set-based engine queries however many ids were asked for: instances by business key, instances by
+ * id for the keys that matched nothing, and the active tasks of the live ones.
+ */
+@Service
+public class CaseLookupService {
+
+    private final HistoryService historyService;
+    private final TaskService taskService;
+    private final CaseReadModel readModel;
+    private final int maxBatchSize;
+
+    public CaseLookupService(HistoryService historyService,
+                             TaskService taskService,
+                             CaseReadModel readModel,
+                             @Value("${app.cases.max-macro-batch-size:500}") int maxBatchSize) {
+        this.historyService = historyService;
+        this.taskService = taskService;
+        this.readModel = readModel;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @param lookupIds business keys or process instance ids, as accepted by the single macro view
+     * @return the cases found, keyed by the lookup id that found them, in request order; unknown ids are left out
+     * @throws IllegalArgumentException for more than {@code app.cases.max-macro-batch-size} distinct ids
+     */
+    public Map<String, CaseSummary> resolve(Collection<String> lookupIds) {
+        Set<String> wanted = new LinkedHashSet<>(lookupIds);
+        wanted.remove(null);
+        if (wanted.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " cases per request");
+        }
+
+        Map<String, CaseSummary> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String lookupId : wanted) {
+            readModel.find(lookupId).ifPresentOrElse(summary -> found.put(lookupId, summary), () -> missing.add(lookupId));
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(fetch(missing));
+        }
+
+        Map<String, CaseSummary> resolved = new LinkedHashMap<>();
+        for (String lookupId : wanted) {
+            CaseSummary summary = found.get(lookupId);
+            if (summary != null) {
+                resolved.put(lookupId, summary);
+            }
+        }
+        return resolved;
+    }
+
+    private Map<String, CaseSummary> fetch(Set<String> lookupIds) {
+        // Business keys win over ids, as in the single lookup; oldest first so a reused key ends on its newest case
+        Map<String, HistoricProcessInstance> byLookupId = new HashMap<>();
+        for (HistoricProcessInstance hi : historyService.createHistoricProcessInstanceQuery()
+                .processInstanceBusinessKeyIn(lookupIds.toArray(String[]::new))
+                .orderByProcessInstanceStartTime().asc().list()) {
+            byLookupId.put(hi.getBusinessKey(), hi);
+        }
+        Set<String> byId = new HashSet<>(lookupIds);
+        byId.removeAll(byLookupId.keySet());
+        if (!byId.isEmpty()) {
+            for (HistoricProcessInstance hi : historyService.createHistoricProcessInstanceQuery().processInstanceIds(byId).list()) {
+                byLookupId.put(hi.getId(), hi);
+            }
+        }
+
+        String[] live = byLookupId.values().stream()
+                .filter(hi -> hi.getEndTime() == null)
+                .map(HistoricProcessInstance::getId)
+                .distinct()
+                .toArray(String[]::new);
+        Map<String, Task> activeTasks = new HashMap<>();
+        if (live.length > 0) {
+            List<Task> tasks = taskService.createTaskQuery().processInstanceIdIn(live).active().orderByTaskCreateTime().asc().list();
+            for (Task task : tasks) {
+                activeTasks.putIfAbsent(task.getProcessInstanceId(), task);
+            }
+        }
+
+        Map<String, CaseSummary> fetched = new HashMap<>();
+        byLookupId.forEach((lookupId, hi) -> {
+            CaseSummary summary = CaseSummary.of(hi, activeTasks.get(hi.getId()));
+            readModel.put(summary);
+            fetched.put(lookupId, summary);
+        });
+        return fetched;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.history.HistoricProcessInstanceQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keyset-paginated reads of the historic case list.
+ * <p>
+ * A page is fetched with {@code startedBefore(cursor start time)}, which the engine applies as
+ * {@code START_TIME_ <= ?}, ordered by start time and id descending, and cut to the page size. Only
+ * cases sharing the cursor's exact start time are filtered here, so each page costs one bounded
+ * engine query however deep into the listing it is, unlike {@code firstResult} offsets.
+ * <p>
+ * While {@link CaseReadModel} is serving, pages come from memory in the same order instead.
+ */
+@Service
+public class CaseQueryService {
+
+    /** Fields a caller can ask for with {@code fields=}; the first four are the default projection. */
+    public static final Map<String, Function<CaseSummary, Object>> FIELDS = fields();
+
+    public static final List<String> DEFAULT_FIELDS = List.of("caseId", "businessKey", "status", "startTime");
+
+    /**
+     * @param staleness age of the read model the page came from, null if it was read from the engine
+     */
+    public record CasePage(List<Map<String, Object>> items, String nextCursor, Duration staleness) {
+    }
+
+    private final HistoryService historyService;
+    private final CaseReadModel readModel;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int exportPageSize;
+
+    public CaseQueryService(HistoryService historyService,
+                            CaseReadModel readModel,
+                            @Value("${app.cases.default-page-size:100}") int defaultPageSize,
+                            @Value("${app.cases.max-page-size:1000}") int maxPageSize,
+                            @Value("${app.cases.export-page-size:500}") int exportPageSize) {
+        this.historyService = historyService;
+        this.readModel = readModel;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.exportPageSize = exportPageSize;
+    }
+
+    /**
+     * @param limit page size, null for the default; capped at {@code app.cases.max-page-size}
+     * @param cursor token from a previous page's {@code nextCursor}, null for the first page
+     * @param fields comma-separated projection, null for {@link #DEFAULT_FIELDS}
+     * @throws IllegalArgumentException for a malformed cursor, an unknown field or a non-positive limit
+     */
+    public CasePage page(String status, Integer limit, String cursor, String fields) {
+        int size = limit == null ? defaultPageSize : limit;
+        if (size <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return fetchPage(status, Math.min(size, maxPageSize), cursor == null ? null : CaseCursor.decode(cursor), projection(fields));
+    }
+
+    /**
+     * Hands every matching case to {@code sink}, one engine page at a time, so an export of any size
+     * holds a single page in memory.
+     */
+    public void forEach(String status, String fields, Consumer<List<Map<String, Object>>> sink) {
+        List<String> projection = projection(fields);
+        CaseCursor cursor = null;
+        do {
+            CasePage page = fetchPage(status, exportPageSize, cursor, projection);
+            sink.accept(page.items());
+            cursor = page.nextCursor() == null ? null : CaseCursor.decode(page.nextCursor());
+        } while (cursor != null);
+    }
+
+    private CasePage fetchPage(String status, int size, CaseCursor cursor, List<String> projection) {
+        Duration staleness = readModel.staleness();
+        List<CaseSummary> rows;
+        if (readModel.isServing()) {
+            rows = readModel.page(status, cursor, size + 1);
+        } else {
+            staleness = null;
+            rows = fetchAfter(status, cursor, size + 1).stream().map(hi -> CaseSummary.of(hi, null)).toList();
+        }
+        boolean more = rows.size() > size;
+        List<CaseSummary> pageRows = more ? rows.subList(0, size) : rows;
+
+        List<Map<String, Object>> items = new ArrayList<>(pageRows.size());
+        for (CaseSummary row : pageRows) {
+            items.add(project(row, projection));
+        }
+        String nextCursor = null;
+        if (more) {
+            CaseSummary last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new CaseCursor(last.startTime().getTime(), last.caseId()).encode();
+        }
+        return new CasePage(items, nextCursor, staleness);
+    }
+
+    private List<HistoricProcessInstance> fetchAfter(String status, CaseCursor cursor, int wanted) {
+        List<HistoricProcessInstance> result = new ArrayList<>(wanted);
+        // The inclusive bound always returns the cursor's own case again, so ask for one extra row
+        int batch = cursor == null ? wanted : wanted + 1;
+        int first = 0;
+        while (true) {
+            HistoricProcessInstanceQuery query = historyService.createHistoricProcessInstanceQuery();
+            if ("running".equalsIgnoreCase(status)) query.unfinished();
+            else if ("completed".equalsIgnoreCase(status)) query.finished();
+            if (cursor != null) query.startedBefore(new Date(cursor.startTimeMillis()));
+            query.orderByProcessInstanceStartTime().desc().orderByProcessInstanceId().desc();
+
+            List<HistoricProcessInstance> rows = query.listPage(first, batch);
+            for (HistoricProcessInstance row : rows) {
+                if (cursor == null || cursor.precedes(row.getStartTime().getTime(), row.getId())) {
+                    result.add(row);
+                    if (result.size() == wanted) {
+                        return result;
+                    }
+                }
+            }
+            if (rows.size() < batch) {
+                return result;
+            }
+            // More of the batch than expected were cases at the cursor's start time already listed; read on
+            first += rows.size();
+        }
+    }
+
+    /**
+     * Parses a {@code fields=} projection.
+     *
+     * @throws IllegalArgumentException for an unknown field
+     */
+    public static List<String> projection(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return DEFAULT_FIELDS;
+        }
+        List<String> projection = Arrays.stream(fields.split(",")).map(String::trim).filter(f -> !f.isEmpty()).distinct().toList();
+        for (String field : projection) {
+            if (!FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "'; known: " + FIELDS.keySet());
+            }
+        }
+        return projection;
+    }
+
+    /** One listing row: the projected fields of a case, in projection order. */
+    static Map<String, Object> project(CaseSummary row, List<String> projection) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        for (String field : projection) {
+            item.put(field, FIELDS.get(field).apply(row));
+        }
+        return item;
+    }
+
+    private static Map<String, Function<CaseSummary, Object>> fields() {
+        Map<String, Function<CaseSummary, Object>> fields = new LinkedHashMap<>();
+        fields.put("caseId", CaseSummary::caseId);
+        fields.put("businessKey", CaseSummary::businessKey);
+        fields.put("status", CaseSummary::status);
+        fields.put("startTime", CaseSummary::startTime);
+        fields.put("endTime", CaseSummary::endTime);
+        fields.put("processDefinitionKey", CaseSummary::processDefinitionKey);
+        fields.put("state", CaseSummary::state);
+        return Collections.unmodifiableMap(fields);
+    }
+}
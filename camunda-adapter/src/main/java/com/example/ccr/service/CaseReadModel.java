@@ -0,0 +1,344 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.query.Query;
+import org.camunda.bpm.engine.task.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory copy of every case, so dashboard and macro reads cost no engine round trips.
+ * <p>
+ * The first sync pages through all historic process instances and active tasks. Later syncs only
+ * ask the engine for instances that executed an activity or finished since the previous sync's
+ * high-water mark (taken {@code app.read-model.clock-skew} early, since it is stamped with this
+ * host's clock), and reload the active task of just those. Changes that touch no activity, such as
+ * suspension or deletion, are picked up by the periodic full resync. Writes made through this
+ * adapter reload the cases they touched straight away, so they are visible to the next read.
+ * <p>
+ * Reads are only served while the last successful sync is within {@code app.read-model.max-staleness};
+ * otherwise, and for cases not in the model yet, callers go to the engine.
+ */
+@Service
+public class CaseReadModel {
+
+    private static final Logger LOG = Logger.getLogger(CaseReadModel.class.getName());
+
+    /** Dashboard order: newest first, ties broken by id descending. */
+    static final Comparator<CaseCursor> LISTING_ORDER = Comparator.comparingLong(CaseCursor::startTimeMillis)
+            .thenComparing(CaseCursor::caseId)
+            .reversed();
+
+    private final HistoryService historyService;
+    private final TaskService taskService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration clockSkew;
+    private final Duration fullResyncInterval;
+    private final Duration maxStaleness;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile Cases cases = new Cases();
+    private volatile Date highWaterMark;
+    private volatile long lastSyncMillis;
+    private volatile long lastFullSyncMillis;
+    private volatile String lastError;
+
+    public CaseReadModel(HistoryService historyService,
+                         TaskService taskService,
+                         @Value("${app.read-model.enabled:true}") boolean enabled,
+                         @Value("${app.read-model.batch-size:500}") int batchSize,
+                         @Value("${app.read-model.clock-skew:5s}") Duration clockSkew,
+                         @Value("${app.read-model.full-resync-interval:1h}") Duration fullResyncInterval,
+                         @Value("${app.read-model.max-staleness:1m}") Duration maxStaleness) {
+        this.historyService = historyService;
+        this.taskService = taskService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.clockSkew = clockSkew;
+        this.fullResyncInterval = fullResyncInterval;
+        this.maxStaleness = maxStaleness;
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-model.poll-interval:5s}")
+    public void sync() {
+        if (!enabled || !syncLock.tryLock()) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Date mark = new Date(started - clockSkew.toMillis());
+            if (highWaterMark == null || started - lastFullSyncMillis >= fullResyncInterval.toMillis()) {
+                fullLoad();
+                lastFullSyncMillis = started;
+            } else {
+                applyChangesSince(highWaterMark);
+            }
+            highWaterMark = mark;
+            lastSyncMillis = System.currentTimeMillis();
+            lastError = null;
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            LOG.log(Level.WARNING, "Case read model sync failed; reads fall back to the engine once stale", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /** Whether reads may be answered from memory. */
+    public boolean isServing() {
+        Duration staleness = staleness();
+        return staleness != null && staleness.compareTo(maxStaleness) <= 0;
+    }
+
+    /** Time since the last successful sync, or null before the first. */
+    public Duration staleness() {
+        long synced = lastSyncMillis;
+        return synced == 0 ? null : Duration.ofMillis(Math.max(0, System.currentTimeMillis() - synced));
+    }
+
+    /**
+     * Looks a case up by business key, then by instance id. Empty when the case is unknown or the
+     * model is not serving; the caller should then ask the engine and {@link #put} the answer.
+     */
+    public Optional<CaseSummary> find(String lookupId) {
+        if (!isServing()) {
+            return Optional.empty();
+        }
+        Cases current = cases;
+        String caseId = current.idByBusinessKey.getOrDefault(lookupId, lookupId);
+        return Optional.ofNullable(current.byId.get(caseId));
+    }
+
+    /** Records a case read straight from the engine so the next lookup is served from memory. */
+    public void put(CaseSummary summary) {
+        cases.put(summary);
+    }
+
+    /**
+     * Reloads the cases whose active task these are, e.g. right after completing them. Tasks of cases
+     * the model does not hold are ignored.
+     */
+    public void reloadCasesOfTasks(Collection<String> taskIds) {
+        Cases current = cases;
+        Set<String> caseIds = new HashSet<>();
+        for (String taskId : taskIds) {
+            String caseId = current.caseIdByActiveTask.get(taskId);
+            if (caseId != null) {
+                caseIds.add(caseId);
+            }
+        }
+        reload(caseIds);
+    }
+
+    /**
+     * Reloads the cases with these business keys or instance ids, e.g. right after correlating a
+     * message to them. Ids of cases the model does not hold are ignored.
+     */
+    public void reloadCases(Collection<String> lookupIds) {
+        Cases current = cases;
+        Set<String> caseIds = new HashSet<>();
+        for (String lookupId : lookupIds) {
+            String caseId = current.idByBusinessKey.getOrDefault(lookupId, lookupId);
+            if (current.byId.containsKey(caseId)) {
+                caseIds.add(caseId);
+            }
+        }
+        reload(caseIds);
+    }
+
+    /**
+     * Up to {@code size} cases in listing order, strictly after {@code after} when given.
+     */
+    public List<CaseSummary> page(String status, CaseCursor after, int size) {
+        ConcurrentSkipListMap<CaseCursor, CaseSummary> ordered = cases.ordered;
+        Collection<CaseSummary> candidates = after == null ? ordered.values() : ordered.tailMap(after, false).values();
+        List<CaseSummary> page = new ArrayList<>(Math.min(size, 1024));
+        for (CaseSummary summary : candidates) {
+            if (summary.matches(status)) {
+                page.add(summary);
+                if (page.size() == size) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    public Map<String, Object> status() {
+        Duration staleness = staleness();
+        Date mark = highWaterMark;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("serving", isServing());
+        status.put("cases", cases.byId.size());
+        status.put("lastSyncAt", lastSyncMillis == 0 ? null : Instant.ofEpochMilli(lastSyncMillis).toString());
+        status.put("stalenessMs", staleness == null ? null : staleness.toMillis());
+        status.put("highWaterMark", mark == null ? null : mark.toInstant().toString());
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private void fullLoad() {
+        Map<String, Task> activeTasks = new HashMap<>();
+        forEachPage(() -> taskService.createTaskQuery().active().orderByTaskCreateTime().asc(),
+                task -> activeTasks.putIfAbsent(task.getProcessInstanceId(), task));
+
+        Cases fresh = new Cases();
+        forEachPage(() -> historyService.createHistoricProcessInstanceQuery().orderByProcessInstanceId().asc(),
+                hi -> fresh.put(CaseSummary.of(hi, activeTasks.get(hi.getId()))));
+        cases = fresh;
+    }
+
+    private void applyChangesSince(Date since) {
+        Map<String, HistoricProcessInstance> changed = new LinkedHashMap<>();
+        forEachPage(() -> historyService.createHistoricProcessInstanceQuery().executedActivityAfter(since).orderByProcessInstanceId().asc(),
+                hi -> changed.put(hi.getId(), hi));
+        forEachPage(() -> historyService.createHistoricProcessInstanceQuery().finishedAfter(since).orderByProcessInstanceId().asc(),
+                hi -> changed.put(hi.getId(), hi));
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Cases current = cases;
+        List<String> ids = new ArrayList<>(changed.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            putWithActiveTasks(current, ids.subList(from, Math.min(ids.size(), from + batchSize)), changed);
+        }
+    }
+
+    /**
+     * Reads the given cases from the engine again. Waits for a running sync, so a load that read the
+     * engine before the caller's write cannot put the old state back afterwards. When the engine
+     * cannot be read, the cases are dropped instead and reads of them fall back to the engine.
+     */
+    private void reload(Set<String> caseIds) {
+        if (!enabled || caseIds.isEmpty()) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            Cases current = cases;
+            List<String> ids = new ArrayList<>(caseIds);
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<String> chunk = ids.subList(from, Math.min(ids.size(), from + batchSize));
+                Map<String, HistoricProcessInstance> instances = new HashMap<>();
+                for (HistoricProcessInstance hi : historyService.createHistoricProcessInstanceQuery()
+                        .processInstanceIds(new HashSet<>(chunk)).list()) {
+                    instances.put(hi.getId(), hi);
+                }
+                putWithActiveTasks(current, chunk, instances);
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Reloading " + caseIds.size() + " cases failed; dropping them from the read model", e);
+            Cases current = cases;
+            caseIds.forEach(current::remove);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /** Stores each case with its first active task; ids without an instance are removed. */
+    private void putWithActiveTasks(Cases target, List<String> ids, Map<String, HistoricProcessInstance> instances) {
+        Map<String, Task> activeTasks = new HashMap<>();
+        for (Task task : taskService.createTaskQuery().processInstanceIdIn(ids.toArray(String[]::new))
+                .active().orderByTaskCreateTime().asc().list()) {
+            activeTasks.putIfAbsent(task.getProcessInstanceId(), task);
+        }
+        for (String id : ids) {
+            HistoricProcessInstance hi = instances.get(id);
+            if (hi == null) {
+                target.remove(id);
+            } else {
+                target.put(CaseSummary.of(hi, activeTasks.get(id)));
+            }
+        }
+    }
+
+    private <T> void forEachPage(Supplier<? extends Query<?, T>> query, Consumer<T> action) {
+        int first = 0;
+        List<T> rows;
+        do {
+            rows = query.get().listPage(first, batchSize);
+            rows.forEach(action);
+            first += rows.size();
+        } while (rows.size() == batchSize);
+    }
+
+    private static CaseCursor key(CaseSummary summary) {
+        return new CaseCursor(summary.startTime() == null ? 0 : summary.startTime().getTime(), summary.caseId());
+    }
+
+    /** One generation of the model; a full load builds a new one and swaps it in. */
+    private static final class Cases {
+
+        final ConcurrentHashMap<String, CaseSummary> byId = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, String> idByBusinessKey = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<CaseCursor, CaseSummary> ordered = new ConcurrentSkipListMap<>(LISTING_ORDER);
+        final ConcurrentHashMap<String, String> caseIdByActiveTask = new ConcurrentHashMap<>();
+
+        void put(CaseSummary summary) {
+            // The start time never changes, so a case keeps its position in the listing
+            CaseSummary previous = byId.put(summary.caseId(), summary);
+            ordered.put(key(summary), summary);
+            if (previous != null && previous.activeTaskId() != null) {
+                caseIdByActiveTask.remove(previous.activeTaskId(), summary.caseId());
+            }
+            if (summary.activeTaskId() != null) {
+                caseIdByActiveTask.put(summary.activeTaskId(), summary.caseId());
+            }
+            if (summary.businessKey() != null) {
+                // A reused business key resolves to the newest case, as the dashboard lists it first
+                idByBusinessKey.merge(summary.businessKey(), summary.caseId(),
+                        (existing, candidate) -> newer(existing, candidate));
+            }
+        }
+
+        void remove(String caseId) {
+            CaseSummary summary = byId.remove(caseId);
+            if (summary == null) {
+                return;
+            }
+            ordered.remove(key(summary));
+            if (summary.businessKey() != null) {
+                idByBusinessKey.remove(summary.businessKey(), caseId);
+            }
+            if (summary.activeTaskId() != null) {
+                caseIdByActiveTask.remove(summary.activeTaskId(), caseId);
+            }
+        }
+
+        private String newer(String existingId, String candidateId) {
+            CaseSummary existing = byId.get(existingId);
+            CaseSummary candidate = byId.get(candidateId);
+            if (existing == null || candidate == null) {
+                return candidateId;
+            }
+            return LISTING_ORDER.compare(key(candidate), key(existing)) <= 0 ? candidateId : existingId;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.task.Task;
+
+import java.util.Date;
+
+/**
+ * What the dashboard and macro view need to know about one case, held by {@link CaseReadModel}.
+ * <p>
+ * Immutable: a sync replaces the whole entry, so a reader never sees a half-updated case.
+ */
+public record CaseSummary(String caseId,
+                          String businessKey,
+                          String processDefinitionKey,
+                          Date startTime,
+                          Date endTime,
+                          String state,
+                          String activeTaskId,
+                          String activeTaskName) {
+
+    public static CaseSummary of(HistoricProcessInstance hi, Task activeTask) {
+        return new CaseSummary(hi.getId(), hi.getBusinessKey(), hi.getProcessDefinitionKey(), hi.getStartTime(),
+                hi.getEndTime(), hi.getState(),
+                activeTask == null ? null : activeTask.getId(),
+                activeTask == null ? null : activeTask.getName());
+    }
+
+    public boolean isFinished() {
+        return endTime != null;
+    }
+
+    public String status() {
+        return isFinished() ? "COMPLETED" : "RUNNING";
+    }
+
+    boolean matches(String statusFilter) {
+        if ("running".equalsIgnoreCase(statusFilter)) return !isFinished();
+        if ("completed".equalsIgnoreCase(statusFilter)) return isFinished();
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ccr.service;
+
+import jakarta.annotation.PreDestroy;
+import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
+import org.camunda.bpm.engine.RuntimeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Correlates {@code Message_SignatureReceived} for a whole batch of business keys, such as the
+ * e-signature provider's nightly delivery, {@code app.signatures.concurrency} keys at a time.
+ * The correlated cases are reloaded into the {@link CaseReadModel} before the results are returned.
+ */
+@Service
+public class SignatureCorrelationService {
+
+    public static final String MESSAGE = "Message_SignatureReceived";
+    public static final String CORRELATED = "CORRELATED";
+    /** No case with that business key is waiting for a signature. */
+    public static final String NOT_WAITING = "NOT_WAITING";
+    public static final String FAILED = "FAILED";
+
+    private final RuntimeService runtimeService;
+    private final CaseReadModel readModel;
+    private final BulkExecutor executor;
+    private final int maxBatchSize;
+
+    public SignatureCorrelationService(RuntimeService runtimeService,
+                                       CaseReadModel readModel,
+                                       @Value("${app.signatures.concurrency:32}") int concurrency,
+                                       @Value("${app.signatures.max-batch-size:10000}") int maxBatchSize) {
+        this.runtimeService = runtimeService;
+        this.readModel = readModel;
+        this.executor = new BulkExecutor("signature-", concurrency);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return one result per distinct business key, in request order
+     * @throws IllegalArgumentException for more than {@code app.signatures.max-batch-size} keys
+     */
+    public List<BulkExecutor.Result> correlate(List<String> businessKeys) {
+        List<String> keys = new ArrayList<>(new LinkedHashSet<>(businessKeys));
+        keys.removeIf(Objects::isNull);
+        if (keys.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " business keys per request");
+        }
+        List<BulkExecutor.Result> results = executor.run(keys, CORRELATED,
+                businessKey -> runtimeService.createMessageCorrelation(MESSAGE)
+                        .processInstanceBusinessKey(businessKey)
+                        .correlate(),
+                e -> e instanceof MismatchingMessageCorrelationException ? NOT_WAITING : FAILED);
+        List<String> correlated = new ArrayList<>();
+        for (BulkExecutor.Result result : results) {
+            if (CORRELATED.equals(result.status())) {
+                correlated.add(result.key());
+            }
+        }
+        readModel.reloadCases(correlated);
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
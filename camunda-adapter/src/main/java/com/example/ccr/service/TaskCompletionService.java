@@ -0,0 +1,244 @@
+package com.example.ccr.service;
+
+import jakarta.annotation.PreDestroy;
+import org.camunda.bpm.engine.TaskService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Completes many user tasks per request, {@code app.tasks.completion.concurrency} at a time.
+ * <p>
+ * Batches up to {@code app.tasks.completion.async-threshold} tasks are completed before the call
+ * returns. Larger ones are started as a job and answered straight away with its id; the job's
+ * progress, and every task's result once it is done, can be read with {@link #job} for
+ * {@code app.tasks.completion.job-retention} after it finishes. The cases of completed tasks are
+ * reloaded into the {@link CaseReadModel} before the results are reported. A job that cannot run to
+ * the end (pool shut down, an Error) or is still running after {@code app.tasks.completion.max-job-age}
+ * is reported as FAILED instead of staying RUNNING forever.
+ */
+@Service
+public class TaskCompletionService {
+
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final Logger LOG = Logger.getLogger(TaskCompletionService.class.getName());
+
+    /** One task to complete, with the variables to submit. */
+    public record Completion(String taskId, Map<String, Object> variables) {
+    }
+
+    private final TaskService taskService;
+    private final CaseReadModel readModel;
+    private final BulkExecutor executor;
+    private final int asyncThreshold;
+    private final int maxBatchSize;
+    private final Duration jobRetention;
+    private final Duration maxJobAge;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public TaskCompletionService(TaskService taskService,
+                                 CaseReadModel readModel,
+                                 @Value("${app.tasks.completion.concurrency:16}") int concurrency,
+                                 @Value("${app.tasks.completion.async-threshold:100}") int asyncThreshold,
+                                 @Value("${app.tasks.completion.max-batch-size:5000}") int maxBatchSize,
+                                 @Value("${app.tasks.completion.job-retention:1h}") Duration jobRetention,
+                                 @Value("${app.tasks.completion.max-job-age:1h}") Duration maxJobAge) {
+        this.taskService = taskService;
+        this.readModel = readModel;
+        this.executor = new BulkExecutor("task-completion-", concurrency);
+        this.asyncThreshold = asyncThreshold;
+        this.maxBatchSize = maxBatchSize;
+        this.jobRetention = jobRetention;
+        this.maxJobAge = maxJobAge;
+    }
+
+    /** Whether a batch of this size is run as a job rather than within the request. */
+    public boolean runsAsJob(int batchSize) {
+        return batchSize > asyncThreshold;
+    }
+
+    /**
+     * Completes every task and waits for all of them.
+     *
+     * @return one result per task, in request order
+     * @throws IllegalArgumentException for a missing or repeated task id, or too many tasks
+     */
+    public List<BulkExecutor.Result> complete(List<Completion> completions) {
+        Map<String, Map<String, Object>> variables = variablesByTask(completions);
+        List<BulkExecutor.Result> results = executor.run(new ArrayList<>(variables.keySet()), COMPLETED,
+                taskId -> taskService.complete(taskId, variables.get(taskId)), e -> FAILED);
+        reloadCompletedCases(results);
+        return results;
+    }
+
+    /**
+     * Starts completing every task and returns the job tracking it.
+     *
+     * @throws IllegalArgumentException for a missing or repeated task id, or too many tasks
+     */
+    public Job start(List<Completion> completions) {
+        Map<String, Map<String, Object>> variables = variablesByTask(completions);
+        Job job = new Job(UUID.randomUUID().toString(), variables.size());
+        jobs.put(job.id, job);
+        try {
+            executor.submit(new ArrayList<>(variables.keySet()), COMPLETED,
+                            taskId -> taskService.complete(taskId, variables.get(taskId)), e -> FAILED,
+                            result -> job.done.incrementAndGet())
+                    .whenComplete((results, failure) -> {
+                        if (failure != null) {
+                            LOG.log(Level.WARNING, "Completion job " + job.id + " did not run to the end", failure);
+                            job.fail(String.valueOf(failure.getMessage()));
+                            return;
+                        }
+                        try {
+                            reloadCompletedCases(results);
+                        } catch (RuntimeException e) {
+                            // The tasks are completed either way; the read model catches up on its next sync
+                            LOG.log(Level.WARNING, "Could not reload the cases of completion job " + job.id, e);
+                        }
+                        job.finish(results);
+                    });
+        } catch (RuntimeException e) {
+            // Rejected before anything ran, e.g. while shutting down: the caller gets the error, not a job
+            jobs.remove(job.id);
+            throw e;
+        }
+        return job;
+    }
+
+    /** The job with that id, or null if there is none or it finished more than the retention period ago. */
+    public Job job(String id) {
+        return jobs.get(id);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.completion.job-cleanup-interval:1m}")
+    public void evictFinishedJobs() {
+        Instant now = Instant.now();
+        Instant startedBefore = now.minus(maxJobAge);
+        for (Job job : jobs.values()) {
+            if (job.createdAt.isBefore(startedBefore) && job.fail("Did not finish within " + maxJobAge)) {
+                LOG.warning("Completion job " + job.id + " did not finish within " + maxJobAge + "; reported as FAILED");
+            }
+        }
+        Instant cutoff = now.minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void reloadCompletedCases(List<BulkExecutor.Result> results) {
+        List<String> completed = new ArrayList<>();
+        for (BulkExecutor.Result result : results) {
+            if (COMPLETED.equals(result.status())) {
+                completed.add(result.key());
+            }
+        }
+        readModel.reloadCasesOfTasks(completed);
+    }
+
+    private Map<String, Map<String, Object>> variablesByTask(List<Completion> completions) {
+        if (completions.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " tasks per request");
+        }
+        Map<String, Map<String, Object>> variables = new LinkedHashMap<>();
+        for (Completion completion : completions) {
+            if (completion == null || completion.taskId() == null || completion.taskId().isBlank()) {
+                throw new IllegalArgumentException("Every entry needs a taskId");
+            }
+            Map<String, Object> taskVariables = completion.variables() == null ? new HashMap<>() : completion.variables();
+            if (variables.putIfAbsent(completion.taskId(), taskVariables) != null) {
+                throw new IllegalArgumentException("Task " + completion.taskId() + " is listed more than once");
+            }
+        }
+        return variables;
+    }
+
+    /** A batch started by {@link #start}. */
+    public static final class Job {
+
+        private final String id;
+        private final int total;
+        private final AtomicInteger done = new AtomicInteger();
+        private final Instant createdAt = Instant.now();
+        private List<BulkExecutor.Result> results;
+        private String error;
+        private volatile Instant finishedAt;
+
+        private Job(String id, int total) {
+            this.id = id;
+            this.total = total;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        /**
+         * Progress, plus counts per status and every task's result once the job is DONE. A FAILED job
+         * has an error instead; its done count says how many tasks were attempted.
+         */
+        public synchronized Map<String, Object> status() {
+            List<BulkExecutor.Result> finished = results;
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("jobId", id);
+            status.put("state", finishedAt == null ? "RUNNING" : finished != null ? "DONE" : FAILED);
+            status.put("total", total);
+            status.put("done", finished == null ? done.get() : total);
+            status.put("createdAt", createdAt.toString());
+            if (finishedAt != null) {
+                status.put("finishedAt", finishedAt.toString());
+            }
+            if (finished != null) {
+                Map<String, Integer> counts = new TreeMap<>();
+                for (BulkExecutor.Result result : finished) {
+                    counts.merge(result.status(), 1, Integer::sum);
+                }
+                status.put("counts", counts);
+                status.put("results", finished);
+            } else if (finishedAt != null) {
+                status.put("error", error);
+            }
+            return status;
+        }
+
+        // The first outcome wins: a job already reported as FAILED for its age stays that way
+        private synchronized void finish(List<BulkExecutor.Result> results) {
+            if (finishedAt == null) {
+                this.results = results;
+                this.finishedAt = Instant.now();
+            }
+        }
+
+        private synchronized boolean fail(String error) {
+            if (finishedAt != null) {
+                return false;
+            }
+            this.error = error;
+            this.finishedAt = Instant.now();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.ccr.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.camunda.bpm.engine.variable.value.SerializableValue;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task variables for the micro view, loaded selectively and without deserializing objects.
+ * <p>
+ * Small values are returned inline. Bytes, files, non-JSON serialized objects and anything whose
+ * text is longer than {@code app.micro.inline-limit} come back as a lazy handle pointing at
+ * {@code /workflow/task/{taskId}/variables/{name}}, so the size of the form payload no longer grows
+ * with the documents a process has accumulated.
+ */
+@Service
+public class TaskVariableService {
+
+    private static final String OCTET_STREAM = "application/octet-stream";
+    // Marks a value that is returned as a handle rather than inline
+    private static final Object LAZY = new Object();
+
+    /**
+     * @param values inline values, and handles for the names in {@code lazy}
+     */
+    public record VariableView(Map<String, Object> values, List<String> lazy) {
+    }
+
+    /** Raw content of one variable, for streaming it to the client. */
+    public record VariableContent(String contentType, String filename, InputStream body) {
+    }
+
+    private final TaskService taskService;
+    private final ObjectMapper objectMapper;
+    private final int inlineLimit;
+
+    public TaskVariableService(TaskService taskService,
+                               ObjectMapper objectMapper,
+                               @Value("${app.micro.inline-limit:16384}") int inlineLimit) {
+        this.taskService = taskService;
+        this.objectMapper = objectMapper;
+        this.inlineLimit = inlineLimit;
+    }
+
+    /**
+     * @param names variables to load, null for every variable in scope
+     * @param deserialize whether object values are deserialized on the engine side; off by default,
+     *                    as serialized JSON can be inlined without the classes being known here
+     */
+    public VariableView load(String taskId, Collection<String> names, boolean deserialize) {
+        VariableMap variables = names == null
+                ? taskService.getVariablesTyped(taskId, deserialize)
+                : taskService.getVariablesTyped(taskId, names, deserialize);
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<String> lazy = new ArrayList<>();
+        for (String name : variables.keySet()) {
+            TypedValue value = variables.getValueTyped(name);
+            Object inline = inline(value);
+            if (inline == LAZY) {
+                values.put(name, handle(taskId, name, value));
+                lazy.add(name);
+            } else {
+                values.put(name, inline);
+            }
+        }
+        return new VariableView(values, lazy);
+    }
+
+    /**
+     * @return the variable's content, or null if the task has no such variable
+     */
+    public VariableContent open(String taskId, String name) {
+        TypedValue value = taskService.getVariableTyped(taskId, name, false);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof FileValue file) {
+            String contentType = file.getMimeType() == null ? OCTET_STREAM : file.getMimeType();
+            InputStream body = file.getValue() == null ? InputStream.nullInputStream() : file.getValue();
+            return new VariableContent(contentType, file.getFilename(), body);
+        }
+        // Checked before anything calls getValue(), which throws for an object left serialized
+        if (value instanceof SerializableValue serializable && !serializable.isDeserialized()) {
+            return text(serializable.getValueSerialized(), contentType(serializable.getSerializationDataFormat()));
+        }
+        if (value.getValue() instanceof byte[] bytes) {
+            return new VariableContent(OCTET_STREAM, null, new ByteArrayInputStream(bytes));
+        }
+        if (value instanceof SerializableValue) {
+            try {
+                return text(objectMapper.writeValueAsString(value.getValue()), "application/json");
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Variable '" + name + "' cannot be written as JSON", e);
+            }
+        }
+        return text(value.getValue() == null ? "" : String.valueOf(value.getValue()), "text/plain");
+    }
+
+    private Object inline(TypedValue value) {
+        if (value == null) {
+            return null;
+        }
+        ValueType type = value.getType();
+        if (ValueType.FILE.equals(type) || ValueType.BYTES.equals(type)) {
+            return LAZY;
+        }
+        if (value instanceof SerializableValue serializable && !serializable.isDeserialized()) {
+            String serialized = serializable.getValueSerialized();
+            if (serialized == null) {
+                return null;
+            }
+            if (serialized.length() > inlineLimit || !isJson(serializable.getSerializationDataFormat())) {
+                return LAZY;
+            }
+            try {
+                return objectMapper.readTree(serialized);
+            } catch (JsonProcessingException e) {
+                return LAZY;
+            }
+        }
+        if (value.getValue() instanceof String text && text.length() > inlineLimit) {
+            return LAZY;
+        }
+        return value.getValue();
+    }
+
+    private Map<String, Object> handle(String taskId, String name, TypedValue value) {
+        Map<String, Object> handle = new LinkedHashMap<>();
+        handle.put("lazy", true);
+        handle.put("type", value.getType() == null ? null : value.getType().getName());
+        handle.put("href", "/workflow/task/" + UriUtils.encodePathSegment(taskId, StandardCharsets.UTF_8)
+                + "/variables/" + UriUtils.encodePathSegment(name, StandardCharsets.UTF_8));
+        if (value instanceof FileValue file) {
+            handle.put("filename", file.getFilename());
+            handle.put("mimeType", file.getMimeType());
+        } else if (value instanceof SerializableValue serializable && !serializable.isDeserialized()) {
+            handle.put("serializationDataFormat", serializable.getSerializationDataFormat());
+            handle.put("size", serializable.getValueSerialized() == null ? 0 : serializable.getValueSerialized().length());
+        } else if (value.getValue() instanceof byte[] bytes) {
+            handle.put("size", bytes.length);
+        } else if (value.getValue() instanceof String text) {
+            handle.put("size", text.length());
+        }
+        return handle;
+    }
+
+    private static VariableContent text(String text, String contentType) {
+        return new VariableContent(contentType, null, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static boolean isJson(String dataFormat) {
+        return dataFormat != null && dataFormat.contains("json");
+    }
+
+    private static String contentType(String dataFormat) {
+        if (isJson(dataFormat)) return "application/json";
+        if (dataFormat != null && dataFormat.contains("xml")) return "application/xml";
+        return "text/plain";
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.ccr.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.camunda.bpm.client.spring.event.SubscriptionInitializedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Concurrent execution mode for the {@code fund-loan} topic.
+ * <p>
+ * The external task client runs its handlers one after another on a single thread, so with a
+ * two-second core banking call an adapter disburses about one case every two seconds however many
+ * tasks it has locked. When {@code app.disbursement.concurrent.enabled} is set this runner closes
+ * that subscription and talks to engine-rest itself:
+ * <ul>
+ *     <li>fetch-and-lock asks for exactly as many tasks as there are free slots out of
+ *     {@code app.disbursement.concurrent.concurrency}, long polling while all are idle;</li>
+ *     <li>each task runs {@link FundDisbursementWorker#disburse} on a bounded pool;</li>
+ *     <li>a task still running when half its lock has elapsed gets its lock extended;</li>
+ *     <li>complete and failure are sent asynchronously, and the slot is freed once the engine answers.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "app.disbursement.concurrent.enabled", havingValue = "true")
+public class ConcurrentDisbursementRunner {
+
+    private static final Logger LOG = Logger.getLogger(ConcurrentDisbursementRunner.class.getName());
+
+    static final String TOPIC = "fund-loan";
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final FundDisbursementWorker worker;
+    private final ObjectMapper objectMapper;
+    private final String engineRestUrl;
+    private final Duration lockDuration;
+    private final Duration asyncResponseTimeout;
+    private final String workerId;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Semaphore slots;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final ScheduledExecutorService lockExtender;
+    private volatile boolean running;
+    private volatile Thread fetchThread;
+
+    public ConcurrentDisbursementRunner(FundDisbursementWorker worker,
+                                        ObjectMapper objectMapper,
+                                        @Value("${camunda.bpm.client.base-url}") String engineRestUrl,
+                                        @Value("${app.disbursement.concurrent.concurrency:16}") int concurrency,
+                                        @Value("${app.disbursement.concurrent.lock-duration:30s}") Duration lockDuration,
+                                        @Value("${app.disbursement.concurrent.async-response-timeout:20s}") Duration asyncResponseTimeout,
+                                        @Value("${app.disbursement.concurrent.worker-id:}") String workerId) {
+        this.worker = worker;
+        this.objectMapper = objectMapper;
+        this.engineRestUrl = engineRestUrl.endsWith("/") ? engineRestUrl.substring(0, engineRestUrl.length() - 1) : engineRestUrl;
+        this.lockDuration = lockDuration;
+        this.asyncResponseTimeout = asyncResponseTimeout;
+        this.workerId = workerId == null || workerId.isBlank() ? "ccr-" + UUID.randomUUID() : workerId;
+        this.slots = new Semaphore(Math.max(1, concurrency));
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), daemonThreads("disbursement-"));
+        this.lockExtender = Executors.newSingleThreadScheduledExecutor(daemonThreads("disbursement-locks-"));
+    }
+
+    /** Keeps the single-threaded subscription for the same topic from competing for tasks. */
+    @EventListener
+    public void closeSubscription(SubscriptionInitializedEvent event) {
+        if (TOPIC.equals(event.getSource().getTopicName()) && event.getSource().isOpen()) {
+            event.getSource().close();
+            LOG.info("Closed the " + TOPIC + " subscription; tasks are run by " + workerId + " instead");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        long period = Math.max(1, lockDuration.toMillis() / 4);
+        lockExtender.scheduleAtFixedRate(this::extendLocks, period, period, TimeUnit.MILLISECONDS);
+        Thread thread = new Thread(this::fetchLoop, "disbursement-fetch");
+        thread.setDaemon(true);
+        fetchThread = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = fetchThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        lockExtender.shutdownNow();
+        executor.shutdown();
+        try {
+            // Give running disbursements a chance to finish and report before their locks lapse
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Tasks currently locked by this runner, running or waiting for the engine to take their result. */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void fetchLoop() {
+        long backoff = 0;
+        while (running) {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            int free = 1 + slots.drainPermits();
+
+            List<JsonNode> tasks;
+            try {
+                tasks = fetchAndLock(free);
+                backoff = 0;
+            } catch (InterruptedException e) {
+                slots.release(free);
+                return;
+            } catch (IOException | RuntimeException e) {
+                slots.release(free);
+                backoff = Math.min(MAX_BACKOFF_MILLIS, backoff == 0 ? 500 : backoff * 2);
+                LOG.log(Level.WARNING, "Fetch and lock failed; retrying in " + backoff + " ms", e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+
+            slots.release(Math.max(0, free - tasks.size()));
+            for (JsonNode task : tasks) {
+                dispatch(task);
+            }
+        }
+    }
+
+    private List<JsonNode> fetchAndLock(int maxTasks) throws IOException, InterruptedException {
+        Map<String, Object> topic = new LinkedHashMap<>();
+        topic.put("topicName", TOPIC);
+        topic.put("lockDuration", lockDuration.toMillis());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("workerId", workerId);
+        body.put("maxTasks", maxTasks);
+        body.put("usePriority", true);
+        body.put("asyncResponseTimeout", asyncResponseTimeout.toMillis());
+        body.put("topics", List.of(topic));
+
+        HttpRequest request = post("/external-task/fetchAndLock", body)
+                .timeout(asyncResponseTimeout.plusSeconds(10))
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("fetchAndLock returned " + response.statusCode());
+        }
+        List<JsonNode> tasks = new ArrayList<>();
+        objectMapper.readTree(response.body()).forEach(tasks::add);
+        return tasks;
+    }
+
+    private void dispatch(JsonNode task) {
+        String taskId = task.path("id").asText();
+        String businessKey = task.path("businessKey").isNull() ? null : task.path("businessKey").asText(null);
+        InFlight entry = new InFlight(taskId, System.currentTimeMillis() + lockDuration.toMillis());
+        inFlight.put(taskId, entry);
+        executor.execute(() -> run(entry, businessKey));
+    }
+
+    private void run(InFlight entry, String businessKey) {
+        try {
+            worker.disburse(businessKey);
+            report(entry, "complete", Map.of("workerId", workerId));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reportFailure(entry, e);
+        } catch (RuntimeException e) {
+            reportFailure(entry, e);
+        }
+    }
+
+    private void reportFailure(InFlight entry, Exception e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("workerId", workerId);
+        body.put("errorMessage", "Funding Failed");
+        body.put("errorDetails", String.valueOf(e.getMessage()));
+        body.put("retries", 0);
+        body.put("retryTimeout", 1000);
+        report(entry, "failure", body);
+    }
+
+    private void report(InFlight entry, String action, Map<String, Object> body) {
+        entry.reporting = true;
+        CompletableFuture<HttpResponse<Void>> sent;
+        try {
+            sent = httpClient.sendAsync(post("/external-task/" + entry.taskId + "/" + action, body).build(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((response, error) -> {
+            inFlight.remove(entry.taskId);
+            slots.release();
+            if (error != null || response.statusCode() >= 300) {
+                LOG.warning("Could not " + action + " external task " + entry.taskId + ": "
+                        + (error != null ? error.getMessage() : "HTTP " + response.statusCode()));
+            }
+        });
+    }
+
+    private void extendLocks() {
+        long now = System.currentTimeMillis();
+        long lockMillis = lockDuration.toMillis();
+        for (InFlight entry : inFlight.values()) {
+            if (entry.reporting || entry.lockExpiresAt - now > lockMillis / 2) {
+                continue;
+            }
+            entry.lockExpiresAt = now + lockMillis;
+            try {
+                httpClient.sendAsync(post("/external-task/" + entry.taskId + "/extendLock",
+                                Map.of("workerId", workerId, "newDuration", lockMillis)).build(),
+                        HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            if (error != null || response.statusCode() >= 300) {
+                                LOG.warning("Could not extend the lock of external task " + entry.taskId);
+                            }
+                        });
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not extend the lock of external task " + entry.taskId, e);
+            }
+        }
+    }
+
+    private HttpRequest.Builder post(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(engineRestUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class InFlight {
+
+        final String taskId;
+        volatile long lockExpiresAt;
+        volatile boolean reporting;
+
+        InFlight(String taskId, long lockExpiresAt) {
+            this.taskId = taskId;
+            this.lockExpiresAt = lockExpiresAt;
+        }
+    }
+}
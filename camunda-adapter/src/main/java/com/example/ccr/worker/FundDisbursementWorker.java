@@ -4,8 +4,10 @@ import org.camunda.bpm.client.spring.annotation.ExternalTaskSubscription;
 import org.camunda.bpm.client.task.ExternalTask;
 import org.camunda.bpm.client.task.ExternalTaskHandler;
 import org.camunda.bpm.client.task.ExternalTaskService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.logging.Logger;
 
 @Component
@@ -14,17 +16,19 @@ public class FundDisbursementWorker implements ExternalTaskHandler {
 
     private static final Logger LOG = Logger.getLogger(FundDisbursementWorker.class.getName());
 
+    private final Duration coreBankingLatency;
+
+    public FundDisbursementWorker(@Value("${app.disbursement.core-banking-latency:2s}") Duration coreBankingLatency) {
+        this.coreBankingLatency = coreBankingLatency;
+    }
+
     @Override
     public void execute(ExternalTask externalTask, ExternalTaskService externalTaskService) {
         // 1. Get data from the workflow
         String businessKey = externalTask.getBusinessKey();
-        LOG.info("💰 STARTING DISBURSEMENT for Case: " + businessKey);
 
         try {
-            // 2. Simulate complex banking logic (API calls to Core Banking)
-            LOG.info("... Connecting to SWIFT network ...");
-            Thread.sleep(2000); // Fake processing time
-            LOG.info("... Transfer Complete.");
+            disburse(businessKey);
 
             // 3. Complete the task
             externalTaskService.complete(externalTask);
@@ -35,4 +39,16 @@ public class FundDisbursementWorker implements ExternalTaskHandler {
             externalTaskService.handleFailure(externalTask, "Funding Failed", e.getMessage(), 0, 1000);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The disbursement itself, shared by this handler and {@link ConcurrentDisbursementRunner}.
+     */
+    public void disburse(String businessKey) throws InterruptedException {
+        LOG.info("💰 STARTING DISBURSEMENT for Case: " + businessKey);
+
+        // 2. Simulate complex banking logic (API calls to Core Banking)
+        LOG.info("... Connecting to SWIFT network ...");
+        Thread.sleep(coreBankingLatency.toMillis()); // Fake processing time
+        LOG.info("... Transfer Complete.");
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.ccr.config;
+
+import com.example.ccr.service.CaseQueryService;
+import com.example.ccr.service.CaseSummary;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig(WireFormatConfigurationTests.WebConfig.class)
+class WireFormatConfigurationTests {
+
+	private static final String SMILE = "application/x-jackson-smile";
+
+	private static final TypeReference<List<Map<String, Object>>> ROWS = new TypeReference<>() {
+	};
+
+	private final ObjectMapper json = builder().build();
+	private final ObjectMapper smile = WireFormatConfiguration.smileMapper(builder());
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Test
+	void smileCarriesTheSameListingAsJson() throws IOException {
+		List<Map<String, Object>> listing = listing(500);
+
+		// The orchestrator must get back exactly what it would have got as JSON
+		assertThat(smile.readValue(smile.writeValueAsBytes(listing), ROWS))
+				.isEqualTo(json.readValue(json.writeValueAsBytes(listing), ROWS));
+	}
+
+	@Test
+	void smileResponsesCarryDatesAsIsoStrings() throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+		byte[] asSmile = mockMvc.perform(get("/cases").accept(SMILE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(SMILE))
+				.andReturn().getResponse().getContentAsByteArray();
+		mockMvc.perform(get("/cases").accept("*/*"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/json"));
+
+		// Decoded without any date handling, as the orchestrator passes rows through to React
+		List<Map<String, Object>> rows = new ObjectMapper(new SmileFactory()).readValue(asSmile, ROWS);
+		assertThat(rows.get(0).get("startTime")).isInstanceOf(String.class).asString().startsWith("2023-11-14T22:13:20");
+		assertThat(rows).isEqualTo(json.readValue(json.writeValueAsBytes(listing(3)), ROWS));
+	}
+
+	private static List<Map<String, Object>> listing(int size) {
+		long start = 1_700_000_000_000L;
+		List<Map<String, Object>> rows = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Date startTime = new Date(start + i * 61_000L);
+			CaseSummary summary = new CaseSummary("c0a8" + Integer.toHexString(0x100000 + i) + "-8f3e-11ef-9c1b-0242ac120002",
+					"998-" + (100_000 + i), "loan-origination", startTime,
+					i % 3 == 0 ? new Date(startTime.getTime() + 3_600_000L) : null,
+					i % 3 == 0 ? "COMPLETED" : "ACTIVE", null, null);
+			Map<String, Object> row = new LinkedHashMap<>();
+			CaseQueryService.FIELDS.forEach((field, value) -> row.put(field, value.apply(summary)));
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private static Jackson2ObjectMapperBuilder builder() {
+		// As Spring Boot configures it: dates as ISO-8601 strings
+		return new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	/** Spring MVC with its default converters, so the default Smile one is registered too. */
+	@Configuration
+	@EnableWebMvc
+	@Import(WireFormatConfiguration.class)
+	static class WebConfig {
+
+		@Bean
+		Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder() {
+			return builder();
+		}
+
+		@Bean
+		CasesController casesController() {
+			return new CasesController();
+		}
+	}
+
+	@RestController
+	public static class CasesController {
+
+		@GetMapping("/cases")
+		public List<Map<String, Object>> cases() {
+			return listing(3);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.ccr.controller;
+
+import com.example.ccr.service.CaseReadModel;
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.history.HistoricProcessInstanceQuery;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.task.TaskQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class WorkflowControllerTests {
+
+	private final List<HistoricProcessInstance> instances = new ArrayList<>();
+	private final List<Task> activeTasks = new ArrayList<>();
+	private final HistoryService historyService = mock(HistoryService.class);
+	private final TaskService taskService = mock(TaskService.class);
+	private final CaseReadModel readModel = new CaseReadModel(historyService, taskService, true, 10,
+			Duration.ZERO, Duration.ofHours(1), Duration.ofMinutes(1));
+	private final MockMvc mockMvc;
+
+	WorkflowControllerTests() {
+		// Engine stand-in: queries by instance id see only those instances and their tasks
+		when(historyService.createHistoricProcessInstanceQuery()).thenAnswer(invocation -> {
+			AtomicReference<Set<String>> ids = new AtomicReference<>();
+			HistoricProcessInstanceQuery query = mock(HistoricProcessInstanceQuery.class, RETURNS_SELF);
+			when(query.processInstanceIds(any())).thenAnswer(call -> {
+				ids.set(call.getArgument(0));
+				return query;
+			});
+			when(query.listPage(anyInt(), anyInt())).thenAnswer(call -> page(instances, call.getArgument(0), call.getArgument(1)));
+			when(query.list()).thenAnswer(call -> instances.stream()
+					.filter(hi -> ids.get() == null || ids.get().contains(hi.getId()))
+					.toList());
+			return query;
+		});
+		when(taskService.createTaskQuery()).thenAnswer(invocation -> {
+			AtomicReference<Set<String>> instanceIds = new AtomicReference<>();
+			TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+			when(query.processInstanceIdIn(any(String[].class))).thenAnswer(call -> {
+				instanceIds.set(Arrays.stream(call.getArguments()).map(String::valueOf).collect(Collectors.toSet()));
+				return query;
+			});
+			when(query.listPage(anyInt(), anyInt())).thenAnswer(call -> page(activeTasks, call.getArgument(0), call.getArgument(1)));
+			when(query.list()).thenAnswer(call -> activeTasks.stream()
+					.filter(task -> instanceIds.get() == null || instanceIds.get().contains(task.getProcessInstanceId()))
+					.toList());
+			return query;
+		});
+
+		WorkflowController controller = new WorkflowController();
+		ReflectionTestUtils.setField(controller, "taskService", taskService);
+		ReflectionTestUtils.setField(controller, "historyService", historyService);
+		ReflectionTestUtils.setField(controller, "caseReadModel", readModel);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@Test
+	void macroViewShowsTheNextTaskRightAfterCompletingOne() throws Exception {
+		instances.add(instance("pi-1", "bk-1", 1_000));
+		activeTasks.add(task("task-1", "pi-1", "Intake Review"));
+		readModel.sync();
+		doAnswer(call -> {
+			activeTasks.clear();
+			activeTasks.add(task("task-2", "pi-1", "Approve Funding"));
+			return null;
+		}).when(taskService).complete(eq("task-1"), anyMap());
+
+		mockMvc.perform(get("/workflow/case/bk-1/macro"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.activeTaskId").value("task-1"));
+
+		mockMvc.perform(post("/workflow/task/task-1/complete").contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andExpect(status().isOk());
+
+		// Well within the poll interval: only the reload after the write can have updated the model
+		mockMvc.perform(get("/workflow/case/bk-1/macro"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.activeTaskId").value("task-2"))
+				.andExpect(jsonPath("$.currentPhase").value("Approve Funding"));
+	}
+
+	private static <T> List<T> page(List<T> source, int first, int max) {
+		return source.subList(Math.min(first, source.size()), Math.min(first + max, source.size()));
+	}
+
+	private static HistoricProcessInstance instance(String id, String businessKey, long startMillis) {
+		HistoricProcessInstance instance = mock(HistoricProcessInstance.class);
+		when(instance.getId()).thenReturn(id);
+		when(instance.getBusinessKey()).thenReturn(businessKey);
+		when(instance.getStartTime()).thenReturn(new Date(startMillis));
+		return instance;
+	}
+
+	private static Task task(String id, String processInstanceId, String name) {
+		Task task = mock(Task.class);
+		when(task.getId()).thenReturn(id);
+		when(task.getProcessInstanceId()).thenReturn(processInstanceId);
+		when(task.getName()).thenReturn(name);
+		return task;
+	}
+}
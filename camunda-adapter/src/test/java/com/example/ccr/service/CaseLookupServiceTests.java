@@ -0,0 +1,127 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.history.HistoricProcessInstanceQuery;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.task.TaskQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CaseLookupServiceTests {
+
+	private final List<HistoricProcessInstance> instances = new ArrayList<>();
+	private final List<Task> activeTasks = new ArrayList<>();
+	private final AtomicInteger engineCalls = new AtomicInteger();
+	private final HistoryService historyService = mock(HistoryService.class);
+	private final TaskService taskService = mock(TaskService.class);
+	private final CaseReadModel readModel = new CaseReadModel(historyService, taskService, false, 100,
+			Duration.ZERO, Duration.ZERO, Duration.ZERO);
+	private final CaseLookupService service = new CaseLookupService(historyService, taskService, readModel, 250);
+
+	CaseLookupServiceTests() {
+		when(historyService.createHistoricProcessInstanceQuery()).thenAnswer(invocation -> {
+			AtomicReference<Predicate<HistoricProcessInstance>> filter = new AtomicReference<>(hi -> true);
+			HistoricProcessInstanceQuery query = mock(HistoricProcessInstanceQuery.class, RETURNS_SELF);
+			when(query.processInstanceBusinessKeyIn(any(String[].class))).thenAnswer(call -> {
+				List<Object> keys = Arrays.asList(call.getArguments());
+				filter.set(hi -> keys.contains(hi.getBusinessKey()));
+				return query;
+			});
+			when(query.processInstanceIds(any())).thenAnswer(call -> {
+				Set<String> ids = call.getArgument(0);
+				filter.set(hi -> ids.contains(hi.getId()));
+				return query;
+			});
+			when(query.list()).thenAnswer(call -> {
+				engineCalls.incrementAndGet();
+				return instances.stream().filter(filter.get()).toList();
+			});
+			return query;
+		});
+		when(taskService.createTaskQuery()).thenAnswer(invocation -> {
+			AtomicReference<List<Object>> instanceIds = new AtomicReference<>(Collections.emptyList());
+			TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+			when(query.processInstanceIdIn(any(String[].class))).thenAnswer(call -> {
+				instanceIds.set(Arrays.asList(call.getArguments()));
+				return query;
+			});
+			when(query.list()).thenAnswer(call -> {
+				engineCalls.incrementAndGet();
+				return activeTasks.stream().filter(task -> instanceIds.get().contains(task.getProcessInstanceId())).toList();
+			});
+			return query;
+		});
+	}
+
+	@Test
+	void resolvesAWholeDashboardWithAConstantNumberOfEngineCalls() {
+		List<String> lookupIds = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			boolean finished = i % 4 == 0;
+			instances.add(instance("pi-" + i, "bk-" + i, finished));
+			if (!finished) {
+				activeTasks.add(task("task-" + i, "pi-" + i, "Intake Review"));
+			}
+			// Half the dashboard asks by business key, half by instance id
+			lookupIds.add(i % 2 == 0 ? "bk-" + i : "pi-" + i);
+		}
+		lookupIds.add("unknown");
+
+		Map<String, CaseSummary> cases = service.resolve(lookupIds);
+
+		assertThat(engineCalls.get()).isEqualTo(3);
+		assertThat(cases).hasSize(200);
+		assertThat(cases.keySet()).first().isEqualTo("bk-0");
+		assertThat(cases.get("bk-0").isFinished()).isTrue();
+		assertThat(cases.get("pi-1").activeTaskId()).isEqualTo("task-1");
+		assertThat(cases.get("bk-2").activeTaskName()).isEqualTo("Intake Review");
+	}
+
+	@Test
+	void rejectsOversizedBatches() {
+		List<String> lookupIds = new ArrayList<>();
+		for (int i = 0; i < 251; i++) {
+			lookupIds.add("bk-" + i);
+		}
+
+		assertThatThrownBy(() -> service.resolve(lookupIds)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(engineCalls.get()).isZero();
+	}
+
+	private static HistoricProcessInstance instance(String id, String businessKey, boolean finished) {
+		HistoricProcessInstance instance = mock(HistoricProcessInstance.class);
+		when(instance.getId()).thenReturn(id);
+		when(instance.getBusinessKey()).thenReturn(businessKey);
+		when(instance.getStartTime()).thenReturn(new Date(1_000));
+		when(instance.getEndTime()).thenReturn(finished ? new Date(2_000) : null);
+		return instance;
+	}
+
+	private static Task task(String id, String processInstanceId, String name) {
+		Task task = mock(Task.class);
+		when(task.getId()).thenReturn(id);
+		when(task.getProcessInstanceId()).thenReturn(processInstanceId);
+		when(task.getName()).thenReturn(name);
+		return task;
+	}
+}
@@ -0,0 +1,111 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.history.HistoricProcessInstanceQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CaseQueryServiceTests {
+
+	private final List<HistoricProcessInstance> instances = new ArrayList<>();
+	private final AtomicInteger queries = new AtomicInteger();
+	private final HistoryService historyService = mock(HistoryService.class);
+	private final CaseQueryService service = new CaseQueryService(historyService,
+			new CaseReadModel(historyService, mock(TaskService.class), false, 100, Duration.ZERO, Duration.ZERO, Duration.ZERO), 3, 5, 4);
+
+	CaseQueryServiceTests() {
+		// Engine stand-in: START_TIME_ <= startedBefore, ordered by start time and id descending
+		when(historyService.createHistoricProcessInstanceQuery()).thenAnswer(invocation -> {
+			queries.incrementAndGet();
+			AtomicReference<Date> startedBefore = new AtomicReference<>();
+			HistoricProcessInstanceQuery query = mock(HistoricProcessInstanceQuery.class, RETURNS_SELF);
+			when(query.startedBefore(any())).thenAnswer(call -> {
+				startedBefore.set(call.getArgument(0));
+				return query;
+			});
+			when(query.listPage(anyInt(), anyInt())).thenAnswer(call -> instances.stream()
+					.filter(hi -> startedBefore.get() == null || !hi.getStartTime().after(startedBefore.get()))
+					.sorted(Comparator.comparing(HistoricProcessInstance::getStartTime).thenComparing(HistoricProcessInstance::getId).reversed())
+					.skip((int) call.getArgument(0))
+					.limit((int) call.getArgument(1))
+					.toList());
+			return query;
+		});
+	}
+
+	@Test
+	void pagesThroughCasesWithSharedStartTimes() {
+		// Five cases started in the same millisecond straddle page boundaries
+		for (int i = 0; i < 5; i++) {
+			instance("tie-" + i, 5_000);
+		}
+		for (int i = 0; i < 4; i++) {
+			instance("case-" + i, 1_000 + i);
+		}
+
+		List<Object> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			CaseQueryService.CasePage page = service.page(null, null, cursor, "caseId");
+			page.items().forEach(item -> seen.add(item.get("caseId")));
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).containsExactly("tie-4", "tie-3", "tie-2", "tie-1", "tie-0", "case-3", "case-2", "case-1", "case-0");
+	}
+
+	@Test
+	void projectsFieldsAndCapsThePageSize() {
+		for (int i = 0; i < 8; i++) {
+			instance("case-" + i, 1_000 + i);
+		}
+
+		CaseQueryService.CasePage page = service.page(null, 50, null, "caseId,status");
+
+		assertThat(page.items()).hasSize(5);
+		assertThat(page.items().get(0)).containsExactly(Map.entry("caseId", "case-7"), Map.entry("status", "RUNNING"));
+		assertThatThrownBy(() -> service.page(null, null, null, "caseId,password")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.page(null, null, "not-a-cursor", null)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void exportsEverythingOnePageAtATime() {
+		for (int i = 0; i < 10; i++) {
+			instance("case-" + i, 1_000 + i);
+		}
+
+		List<Integer> pageSizes = new ArrayList<>();
+		service.forEach(null, null, items -> pageSizes.add(items.size()));
+
+		assertThat(pageSizes).containsExactly(4, 4, 2);
+		assertThat(queries.get()).isEqualTo(3);
+	}
+
+	private void instance(String id, long startMillis) {
+		HistoricProcessInstance instance = mock(HistoricProcessInstance.class);
+		when(instance.getId()).thenReturn(id);
+		when(instance.getStartTime()).thenReturn(new Date(startMillis));
+		instances.add(instance);
+	}
+}
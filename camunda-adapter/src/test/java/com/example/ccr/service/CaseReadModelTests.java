@@ -0,0 +1,154 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.history.HistoricProcessInstanceQuery;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.task.TaskQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CaseReadModelTests {
+
+	private final List<HistoricProcessInstance> instances = new ArrayList<>();
+	private final List<HistoricProcessInstance> changed = new ArrayList<>();
+	private final List<Task> activeTasks = new ArrayList<>();
+	private final AtomicInteger instanceQueries = new AtomicInteger();
+	private final HistoryService historyService = mock(HistoryService.class);
+	private final TaskService taskService = mock(TaskService.class);
+	private final CaseReadModel readModel = new CaseReadModel(historyService, taskService, true, 10,
+			Duration.ZERO, Duration.ofHours(1), Duration.ofMinutes(1));
+
+	CaseReadModelTests() {
+		// Engine stand-in: incremental queries see only the changed instances
+		when(historyService.createHistoricProcessInstanceQuery()).thenAnswer(invocation -> {
+			instanceQueries.incrementAndGet();
+			AtomicBoolean incremental = new AtomicBoolean();
+			AtomicBoolean finishedOnly = new AtomicBoolean();
+			HistoricProcessInstanceQuery query = mock(HistoricProcessInstanceQuery.class, RETURNS_SELF);
+			when(query.executedActivityAfter(any())).thenAnswer(call -> {
+				incremental.set(true);
+				return query;
+			});
+			when(query.finishedAfter(any())).thenAnswer(call -> {
+				finishedOnly.set(true);
+				return query;
+			});
+			when(query.listPage(anyInt(), anyInt())).thenAnswer(call -> {
+				List<HistoricProcessInstance> source = finishedOnly.get()
+						? changed.stream().filter(hi -> hi.getEndTime() != null).toList()
+						: incremental.get() ? changed : instances;
+				return page(source, call.getArgument(0), call.getArgument(1));
+			});
+			return query;
+		});
+		when(taskService.createTaskQuery()).thenAnswer(invocation -> {
+			AtomicReference<Set<String>> instanceIds = new AtomicReference<>();
+			TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+			when(query.processInstanceIdIn(any(String[].class))).thenAnswer(call -> {
+				instanceIds.set(Arrays.stream(call.getArguments()).map(String::valueOf).collect(Collectors.toSet()));
+				return query;
+			});
+			when(query.listPage(anyInt(), anyInt())).thenAnswer(call -> page(activeTasks, call.getArgument(0), call.getArgument(1)));
+			when(query.list()).thenAnswer(call -> activeTasks.stream()
+					.filter(task -> instanceIds.get() == null || instanceIds.get().contains(task.getProcessInstanceId()))
+					.toList());
+			return query;
+		});
+	}
+
+	@Test
+	void servesNothingBeforeTheFirstSync() {
+		instances.add(instance("pi-1", "998", 1_000, null));
+
+		assertThat(readModel.isServing()).isFalse();
+		assertThat(readModel.find("998")).isEmpty();
+		assertThat(readModel.staleness()).isNull();
+	}
+
+	@Test
+	void loadsEveryCaseAndLooksThemUpByBusinessKeyOrId() {
+		for (int i = 0; i < 5; i++) {
+			instances.add(instance("pi-" + i, "bk-" + i, 1_000 + i, null));
+		}
+		activeTasks.add(task("task-3", "pi-3", "Intake Review"));
+
+		readModel.sync();
+
+		assertThat(readModel.isServing()).isTrue();
+		assertThat(readModel.find("bk-3")).hasValueSatisfying(summary -> {
+			assertThat(summary.caseId()).isEqualTo("pi-3");
+			assertThat(summary.activeTaskName()).isEqualTo("Intake Review");
+		});
+		assertThat(readModel.find("pi-1")).hasValueSatisfying(summary -> assertThat(summary.businessKey()).isEqualTo("bk-1"));
+		assertThat(readModel.find("unknown")).isEmpty();
+		assertThat(readModel.page(null, null, 3)).extracting(CaseSummary::caseId).containsExactly("pi-4", "pi-3", "pi-2");
+		assertThat(readModel.page(null, new CaseCursor(1_002, "pi-2"), 10)).extracting(CaseSummary::caseId).containsExactly("pi-1", "pi-0");
+	}
+
+	@Test
+	void appliesOnlyChangesSinceTheHighWaterMark() {
+		instances.add(instance("pi-1", "bk-1", 1_000, null));
+		instances.add(instance("pi-2", "bk-2", 2_000, null));
+		activeTasks.add(task("task-1", "pi-1", "Intake Review"));
+		activeTasks.add(task("task-2", "pi-2", "Sign Documents"));
+		readModel.sync();
+		int afterFullLoad = instanceQueries.get();
+
+		// pi-1 moves on to its next task and pi-2 finishes
+		activeTasks.clear();
+		activeTasks.add(task("task-1b", "pi-1", "Approve Funding"));
+		HistoricProcessInstance finished = instance("pi-2", "bk-2", 2_000, new Date(3_000));
+		changed.add(instance("pi-1", "bk-1", 1_000, null));
+		changed.add(finished);
+		readModel.sync();
+
+		assertThat(instanceQueries.get() - afterFullLoad).isEqualTo(2);
+		assertThat(readModel.find("bk-1")).hasValueSatisfying(summary -> assertThat(summary.activeTaskId()).isEqualTo("task-1b"));
+		assertThat(readModel.find("bk-2")).hasValueSatisfying(summary -> {
+			assertThat(summary.status()).isEqualTo("COMPLETED");
+			assertThat(summary.activeTaskId()).isNull();
+		});
+		assertThat(readModel.page("running", null, 10)).extracting(CaseSummary::caseId).containsExactly("pi-1");
+		assertThat(readModel.status()).containsEntry("cases", 2).containsEntry("serving", true);
+	}
+
+	private static <T> List<T> page(List<T> source, int first, int max) {
+		return source.subList(Math.min(first, source.size()), Math.min(first + max, source.size()));
+	}
+
+	private static HistoricProcessInstance instance(String id, String businessKey, long startMillis, Date endTime) {
+		HistoricProcessInstance instance = mock(HistoricProcessInstance.class);
+		when(instance.getId()).thenReturn(id);
+		when(instance.getBusinessKey()).thenReturn(businessKey);
+		when(instance.getStartTime()).thenReturn(new Date(startMillis));
+		when(instance.getEndTime()).thenReturn(endTime);
+		return instance;
+	}
+
+	private static Task task(String id, String processInstanceId, String name) {
+		Task task = mock(Task.class);
+		when(task.getId()).thenReturn(id);
+		when(task.getProcessInstanceId()).thenReturn(processInstanceId);
+		when(task.getName()).thenReturn(name);
+		return task;
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SignatureCorrelationServiceTests {
+
+	private final RuntimeService runtimeService = mock(RuntimeService.class);
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	private final SignatureCorrelationService service = new SignatureCorrelationService(runtimeService, mock(CaseReadModel.class), 20, 500);
+
+	SignatureCorrelationServiceTests() {
+		// Each correlation is a 20 ms engine-rest round trip; keys starting with "late-" have no waiting case
+		when(runtimeService.createMessageCorrelation(SignatureCorrelationService.MESSAGE)).thenAnswer(invocation -> {
+			AtomicReference<String> businessKey = new AtomicReference<>();
+			MessageCorrelationBuilder builder = mock(MessageCorrelationBuilder.class, RETURNS_SELF);
+			when(builder.processInstanceBusinessKey(anyString())).thenAnswer(call -> {
+				businessKey.set(call.getArgument(0));
+				return builder;
+			});
+			doAnswer(call -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(20);
+				} finally {
+					running.decrementAndGet();
+				}
+				if (businessKey.get().startsWith("late-")) {
+					throw new MismatchingMessageCorrelationException("No process waiting for " + businessKey.get());
+				}
+				return null;
+			}).when(builder).correlate();
+			return builder;
+		});
+	}
+
+	@AfterEach
+	void shutdown() {
+		service.shutdown();
+	}
+
+	@Test
+	void correlatesABatchInParallelAndReportsEveryKey() {
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			keys.add(i % 10 == 0 ? "late-" + i : "case-" + i);
+		}
+		keys.add("case-1");
+
+		long started = System.nanoTime();
+		List<BulkExecutor.Result> results = service.correlate(keys);
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+		// One after another this would take 400 x 20 ms
+		assertThat(elapsedMillis).isLessThan(4_000);
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(20);
+		assertThat(results).hasSize(400);
+		assertThat(results.get(0)).isEqualTo(new BulkExecutor.Result("late-0", SignatureCorrelationService.NOT_WAITING,
+				"No process waiting for late-0"));
+		assertThat(results.get(1)).isEqualTo(new BulkExecutor.Result("case-1", SignatureCorrelationService.CORRELATED, null));
+		assertThat(results).filteredOn(result -> result.status().equals(SignatureCorrelationService.CORRELATED)).hasSize(360);
+	}
+
+	@Test
+	void rejectsBatchesOverTheLimit() {
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < 501; i++) {
+			keys.add("case-" + i);
+		}
+
+		assertThatThrownBy(() -> service.correlate(keys)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
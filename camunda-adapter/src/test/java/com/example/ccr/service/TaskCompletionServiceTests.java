@@ -0,0 +1,155 @@
+package com.example.ccr.service;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class TaskCompletionServiceTests {
+
+	private final TaskService taskService = mock(TaskService.class);
+	private final Map<String, Map<String, Object>> completed = new ConcurrentHashMap<>();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	private final TaskCompletionService service = new TaskCompletionService(taskService, mock(CaseReadModel.class), 10, 50, 1000, Duration.ofHours(1),
+			Duration.ofHours(1));
+
+	TaskCompletionServiceTests() {
+		// Each completion is a 20 ms engine-rest round trip; task ids starting with "gone-" no longer exist,
+		// and "broken-" ones fail with an Error rather than an engine exception
+		doAnswer(call -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(20);
+			} finally {
+				running.decrementAndGet();
+			}
+			String taskId = call.getArgument(0);
+			if (taskId.startsWith("broken-")) {
+				throw new NoClassDefFoundError("org/camunda/bpm/engine/rest/dto/Missing");
+			}
+			if (taskId.startsWith("gone-")) {
+				throw new ProcessEngineException("Cannot find task with id " + taskId);
+			}
+			completed.put(taskId, call.getArgument(1));
+			return null;
+		}).when(taskService).complete(anyString(), any());
+	}
+
+	@AfterEach
+	void shutdown() {
+		service.shutdown();
+	}
+
+	@Test
+	void completesABatchInParallelAndReportsEveryTask() {
+		List<TaskCompletionService.Completion> completions = completions(50);
+
+		assertThat(service.runsAsJob(completions.size())).isFalse();
+		long started = System.nanoTime();
+		List<BulkExecutor.Result> results = service.complete(completions);
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+		// One after another this would take 50 x 20 ms
+		assertThat(elapsedMillis).isLessThan(1_000);
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(10);
+		assertThat(results).hasSize(50);
+		assertThat(results.get(0)).isEqualTo(new BulkExecutor.Result("gone-0", TaskCompletionService.FAILED,
+				"Cannot find task with id gone-0"));
+		assertThat(results.get(1)).isEqualTo(new BulkExecutor.Result("task-1", TaskCompletionService.COMPLETED, null));
+		assertThat(completed).hasSize(45).containsEntry("task-1", Map.of("approved", true, "index", 1));
+	}
+
+	@Test
+	void runsLargeBatchesAsAJobThatCanBePolled() throws InterruptedException {
+		List<TaskCompletionService.Completion> completions = completions(200);
+
+		assertThat(service.runsAsJob(completions.size())).isTrue();
+		TaskCompletionService.Job job = service.start(completions);
+		assertThat(job.status()).containsEntry("state", "RUNNING").containsEntry("total", 200);
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!service.job(job.getId()).isFinished()) {
+			assertThat(System.currentTimeMillis()).as("waiting for the job").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		Map<String, Object> status = service.job(job.getId()).status();
+		assertThat(status).containsEntry("state", "DONE").containsEntry("done", 200)
+				.containsEntry("counts", Map.of(TaskCompletionService.COMPLETED, 180, TaskCompletionService.FAILED, 20));
+		assertThat((List<?>) status.get("results")).hasSize(200);
+
+		// Finished jobs outlive the request until the retention period has passed
+		service.evictFinishedJobs();
+		assertThat(service.job(job.getId())).isNotNull();
+	}
+
+	@Test
+	void reportsAJobThatCannotRunToTheEndAsFailed() throws InterruptedException {
+		List<TaskCompletionService.Completion> completions = new ArrayList<>(completions(199));
+		completions.add(new TaskCompletionService.Completion("broken-199", Map.of()));
+
+		TaskCompletionService.Job job = service.start(completions);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!service.job(job.getId()).isFinished()) {
+			assertThat(System.currentTimeMillis()).as("waiting for the job").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+
+		Map<String, Object> status = service.job(job.getId()).status();
+		assertThat(status).containsEntry("state", TaskCompletionService.FAILED).containsEntry("done", 199)
+				.containsKey("finishedAt").doesNotContainKey("results");
+		assertThat((String) status.get("error")).contains("NoClassDefFoundError");
+	}
+
+	@Test
+	void reportsAJobStillRunningPastItsMaximumAgeAsFailed() throws InterruptedException {
+		TaskCompletionService shortLived = new TaskCompletionService(taskService, mock(CaseReadModel.class), 1, 0, 1000,
+				Duration.ofHours(1), Duration.ofMillis(50));
+		try {
+			TaskCompletionService.Job job = shortLived.start(completions(100));
+			Thread.sleep(100);
+			shortLived.evictFinishedJobs();
+
+			Map<String, Object> status = shortLived.job(job.getId()).status();
+			assertThat(status).containsEntry("state", TaskCompletionService.FAILED).containsKey("finishedAt");
+			assertThat((String) status.get("error")).startsWith("Did not finish within");
+		} finally {
+			shortLived.shutdown();
+		}
+	}
+
+	@Test
+	void rejectsRepeatedOrMissingTaskIds() {
+		List<TaskCompletionService.Completion> repeated = List.of(
+				new TaskCompletionService.Completion("task-1", Map.of()),
+				new TaskCompletionService.Completion("task-1", Map.of("approved", false)));
+		List<TaskCompletionService.Completion> missing = List.of(new TaskCompletionService.Completion(null, Map.of()));
+
+		assertThatThrownBy(() -> service.complete(repeated)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.start(missing)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(completed).isEmpty();
+	}
+
+	private static List<TaskCompletionService.Completion> completions(int count) {
+		List<TaskCompletionService.Completion> completions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			String taskId = i % 10 == 0 ? "gone-" + i : "task-" + i;
+			completions.add(new TaskCompletionService.Completion(taskId, Map.of("approved", true, "index", i)));
+		}
+		return completions;
+	}
+}
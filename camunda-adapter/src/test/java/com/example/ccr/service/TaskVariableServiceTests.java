@@ -0,0 +1,75 @@
+package com.example.ccr.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskVariableServiceTests {
+
+	private final TaskService taskService = mock(TaskService.class);
+	private final TaskVariableService service = new TaskVariableService(taskService, new ObjectMapper(), 64);
+
+	@Test
+	void inlinesSmallValuesAndHandsOutHandlesForLargeOnes() {
+		VariableMap variables = Variables.createVariables()
+				.putValueTyped("amount", Variables.integerValue(2500))
+				.putValueTyped("applicant", Variables.serializedObjectValue("{\"name\":\"Ada\"}")
+						.serializationDataFormat("application/json").objectTypeName("com.example.Applicant").create())
+				.putValueTyped("notes", Variables.stringValue("x".repeat(65)))
+				.putValueTyped("contract", Variables.fileValue("contract.pdf").file(new byte[1024]).mimeType("application/pdf").create())
+				.putValueTyped("legacy", Variables.serializedObjectValue("rO0ABXNy")
+						.serializationDataFormat("application/x-java-serialized-object").objectTypeName("com.example.Legacy").create());
+		when(taskService.getVariablesTyped("task-1", false)).thenReturn(variables);
+
+		TaskVariableService.VariableView view = service.load("task-1", null, false);
+
+		assertThat(view.values().get("amount")).isEqualTo(2500);
+		assertThat(((JsonNode) view.values().get("applicant")).get("name").asText()).isEqualTo("Ada");
+		assertThat(view.lazy()).containsExactlyInAnyOrder("notes", "contract", "legacy");
+		@SuppressWarnings("unchecked")
+		Map<String, Object> contract = (Map<String, Object>) view.values().get("contract");
+		assertThat(contract).containsEntry("lazy", true)
+				.containsEntry("href", "/workflow/task/task-1/variables/contract")
+				.containsEntry("filename", "contract.pdf");
+	}
+
+	@Test
+	void loadsOnlyTheRequestedNames() {
+		when(taskService.getVariablesTyped(eq("task-1"), eq(List.of("amount")), eq(false)))
+				.thenReturn(Variables.createVariables().putValueTyped("amount", Variables.integerValue(2500)));
+
+		assertThat(service.load("task-1", List.of("amount"), false).values()).containsOnlyKeys("amount");
+		verify(taskService).getVariablesTyped("task-1", List.of("amount"), false);
+	}
+
+	@Test
+	void opensFilesAndSerializedObjectsWithTheirContentType() throws Exception {
+		byte[] pdf = "%PDF-1.7".getBytes(StandardCharsets.US_ASCII);
+		when(taskService.getVariableTyped("task-1", "contract", false))
+				.thenReturn(Variables.fileValue("contract.pdf").file(pdf).mimeType("application/pdf").create());
+		when(taskService.getVariableTyped("task-1", "applicant", false))
+				.thenReturn(Variables.serializedObjectValue("{\"name\":\"Ada\"}").serializationDataFormat("application/json").create());
+
+		TaskVariableService.VariableContent contract = service.open("task-1", "contract");
+		TaskVariableService.VariableContent applicant = service.open("task-1", "applicant");
+
+		assertThat(contract.contentType()).isEqualTo("application/pdf");
+		assertThat(contract.filename()).isEqualTo("contract.pdf");
+		assertThat(contract.body().readAllBytes()).isEqualTo(pdf);
+		assertThat(applicant.contentType()).isEqualTo("application/json");
+		assertThat(service.open("task-1", "missing")).isNull();
+	}
+}
@@ -0,0 +1,164 @@
+package com.example.ccr.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentDisbursementRunnerTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+	private final Map<String, String> outcomes = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> lockExtensions = new ConcurrentHashMap<>();
+	private final AtomicInteger locked = new AtomicInteger();
+	private final AtomicInteger maxLocked = new AtomicInteger();
+	private final AtomicInteger maxTasksRequested = new AtomicInteger();
+	private HttpServer engineRest;
+	private ConcurrentDisbursementRunner runner;
+
+	@BeforeEach
+	void startEngineRest() throws IOException {
+		// Stand-in for the engine-rest external task API: fetchAndLock, complete, failure and extendLock
+		engineRest = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		engineRest.setExecutor(Executors.newCachedThreadPool());
+		engineRest.createContext("/engine-rest/external-task/", this::handle);
+		engineRest.start();
+	}
+
+	@AfterEach
+	void stop() {
+		if (runner != null) {
+			runner.stop();
+		}
+		engineRest.stop(0);
+	}
+
+	@Test
+	void runsTasksConcurrentlyWithoutLockingMoreThanItCanRun() throws Exception {
+		for (int i = 0; i < 24; i++) {
+			pending.add("task-" + i);
+		}
+		runner = runner(new FundDisbursementWorker(Duration.ofMillis(200)), 8, Duration.ofSeconds(30));
+
+		long started = System.nanoTime();
+		runner.start();
+		await(() -> outcomes.size() == 24);
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+		// One at a time this would take 24 x 200 ms
+		assertThat(elapsedMillis).isLessThan(2_400);
+		assertThat(outcomes.values()).containsOnly("complete");
+		assertThat(maxTasksRequested.get()).isEqualTo(8);
+		assertThat(maxLocked.get()).isLessThanOrEqualTo(8);
+		await(() -> runner.getInFlightCount() == 0);
+	}
+
+	@Test
+	void extendsTheLockOfTasksThatOutliveIt() throws Exception {
+		pending.add("slow-task");
+		runner = runner(new FundDisbursementWorker(Duration.ofMillis(700)), 2, Duration.ofMillis(200));
+
+		runner.start();
+		await(() -> outcomes.containsKey("slow-task"));
+
+		assertThat(outcomes).containsEntry("slow-task", "complete");
+		assertThat(lockExtensions.get("slow-task")).isNotNull();
+		assertThat(lockExtensions.get("slow-task").get()).isGreaterThanOrEqualTo(2);
+	}
+
+	@Test
+	void reportsAFailureWhenTheDisbursementThrows() throws Exception {
+		pending.add("bad-task");
+		FundDisbursementWorker failing = new FundDisbursementWorker(Duration.ZERO) {
+			@Override
+			public void disburse(String businessKey) {
+				throw new IllegalStateException("Core banking unavailable");
+			}
+		};
+		runner = runner(failing, 2, Duration.ofSeconds(30));
+
+		runner.start();
+		await(() -> outcomes.containsKey("bad-task"));
+
+		assertThat(outcomes).containsEntry("bad-task", "failure");
+	}
+
+	private ConcurrentDisbursementRunner runner(FundDisbursementWorker worker, int concurrency, Duration lockDuration) {
+		String baseUrl = "http://127.0.0.1:" + engineRest.getAddress().getPort() + "/engine-rest";
+		return new ConcurrentDisbursementRunner(worker, objectMapper, baseUrl, concurrency, lockDuration,
+				Duration.ofMillis(100), "test-worker");
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		JsonNode body = objectMapper.readTree(exchange.getRequestBody().readAllBytes());
+		String[] segments = path.split("/");
+		String action = segments[segments.length - 1];
+		byte[] response = new byte[0];
+		int status = 204;
+
+		if ("fetchAndLock".equals(action)) {
+			int maxTasks = body.get("maxTasks").asInt();
+			maxTasksRequested.accumulateAndGet(maxTasks, Math::max);
+			List<Map<String, Object>> tasks = new ArrayList<>();
+			String id;
+			while (tasks.size() < maxTasks && (id = pending.poll()) != null) {
+				tasks.add(Map.of("id", id, "topicName", "fund-loan", "businessKey", "bk-" + id));
+				maxLocked.accumulateAndGet(locked.incrementAndGet(), Math::max);
+			}
+			if (tasks.isEmpty()) {
+				sleep(body.get("asyncResponseTimeout").asLong());
+			}
+			response = objectMapper.writeValueAsBytes(tasks);
+			status = 200;
+		} else if ("extendLock".equals(action)) {
+			lockExtensions.computeIfAbsent(segments[segments.length - 2], key -> new AtomicInteger()).incrementAndGet();
+		} else {
+			outcomes.put(segments[segments.length - 2], action);
+			locked.decrementAndGet();
+		}
+
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, status == 204 ? -1 : response.length);
+		if (status != 204) {
+			exchange.getResponseBody().write(response);
+		}
+		exchange.close();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).as("waiting for the engine-rest stand-in").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.entra.data_backend.analytics;
+
+import com.example.entra.data_backend.service.DataStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Folds the analytics event stream into fixed-size sketches: a {@link HyperLogLog} of users, a
+ * count-min backed {@link TopItems} and a {@link WindowedCounter} for growth.
+ * <p>
+ * Every structure is updated in place with atomic operations on hash-spread cells, so any number
+ * of ingest requests run side by side without a shared lock. The aggregates are read once per
+ * publish interval into the {@link DataStore#ANALYTICS} snapshot; {@code /v1/data/analytics} keeps
+ * serving that pre-serialized snapshot and does no work proportional to the events seen.
+ */
+@Service
+public class AnalyticsAggregator {
+
+    private final DataStore dataStore;
+    private final HyperLogLog users;
+    private final TopItems topItems;
+    private final WindowedCounter growth;
+    private final LongAdder events = new LongAdder();
+
+    public AnalyticsAggregator(DataStore dataStore,
+                               @Value("${app.analytics.users.precision:14}") int precision,
+                               @Value("${app.analytics.top-items.size:10}") int topItemCount,
+                               @Value("${app.analytics.top-items.width:2048}") int topItemWidth,
+                               @Value("${app.analytics.growth.window:1h}") Duration growthWindow,
+                               @Value("${app.analytics.growth.slots:60}") int growthSlots) {
+        this.dataStore = dataStore;
+        this.users = new HyperLogLog(precision);
+        this.topItems = new TopItems(topItemCount, topItemWidth);
+        this.growth = new WindowedCounter(growthWindow.toMillis(), growthSlots);
+    }
+
+    /**
+     * Counts one event.
+     *
+     * @param item may be null for events not tied to an item
+     * @param timestampMillis epoch milliseconds, or 0 for now
+     */
+    public void ingest(String user, String item, long timestampMillis) {
+        users.add(hash(user));
+        if (item != null) {
+            topItems.add(item, hash(item));
+        }
+        growth.increment(timestampMillis > 0 ? timestampMillis : System.currentTimeMillis());
+        events.increment();
+    }
+
+    /**
+     * Current view of the aggregates, in the shape {@code /v1/data/analytics} has always returned
+     * plus the total event count and the top items.
+     */
+    public Map<String, Object> snapshot() {
+        long[] windows = growth.lastTwoWindows(System.currentTimeMillis());
+        Map<String, Object> analytics = new LinkedHashMap<>();
+        analytics.put("source", "Data Backend");
+        analytics.put("type", "Analytics");
+        analytics.put("growth", windows[1] > 0 ? Math.round((windows[0] - windows[1]) * 100.0 / windows[1]) + "%" : "n/a");
+        analytics.put("users", users.estimate());
+        analytics.put("events", events.sum());
+        List<TopItems.Item> leaders = topItems.trim();
+        analytics.put("topItems", leaders.stream()
+                .map(leader -> Map.of("item", leader.item(), "count", leader.count()))
+                .toList());
+        return analytics;
+    }
+
+    /**
+     * Publishes the aggregates once events have arrived; until then the seeded analytics stay.
+     * Unchanged aggregates serialize to the same bytes, so the snapshot keeps its ETag.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.publish-interval:1s}")
+    public void publish() {
+        if (events.sum() > 0) {
+            dataStore.publish(DataStore.ANALYTICS, snapshot());
+        }
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with the murmur3 mixer so every bit of the result is usable
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.entra.data_backend.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Frequency sketch: {@value #DEPTH} rows of counters, an item's estimate being the smallest of its
+ * counters. Estimates never undercount and overcount by at most {@code e * events / width} with
+ * high probability. Counters are bumped with atomic adds, no locks.
+ */
+final class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     */
+    CountMinSketch(int width) {
+        int rounded = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = rounded - 1;
+        this.counters = new AtomicLongArray(DEPTH * rounded);
+    }
+
+    /**
+     * Counts one occurrence and returns the item's estimate including it.
+     */
+    long add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int column = (h1 + row * h2) & mask;
+            estimate = Math.min(estimate, counters.incrementAndGet(row * (mask + 1) + column));
+        }
+        return estimate;
+    }
+
+    long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int column = (h1 + row * h2) & mask;
+            estimate = Math.min(estimate, counters.get(row * (mask + 1) + column));
+        }
+        return estimate;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.entra.data_backend.analytics;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * Decodes event batches as they stream in, handing each event to the aggregator without holding
+ * the batch in memory.
+ * <p>
+ * Two encodings are accepted:
+ * <ul>
+ *   <li>{@value #NDJSON}: one {@code {"user":"...","item":"...","ts":1760000000000}} object per line;
+ *   {@code item} and {@code ts} are optional, {@code ts} defaulting to the time of arrival.</li>
+ *   <li>{@value #BINARY}: a big-endian {@code int} event count, then per event a {@code long} epoch
+ *   millisecond timestamp (0 for now) and the user and item as {@link DataInputStream#readUTF()} strings
+ *   (empty for no item).</li>
+ * </ul>
+ * Timestamps come from client clocks. One more than {@code app.analytics.events.max-clock-skew} in the
+ * future would claim a slot of the growth ring ahead of its time and push out the events counted there,
+ * so it is taken as the time of arrival instead.
+ */
+@Component
+public class EventBatchReader {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String BINARY = "application/vnd.entra.events";
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Event(String user, String item, Long ts) {
+    }
+
+    private final ObjectReader eventReader;
+    private final long maxClockSkewMillis;
+
+    public EventBatchReader(JsonMapper jsonMapper,
+                            @Value("${app.analytics.events.max-clock-skew:5s}") Duration maxClockSkew) {
+        this.eventReader = jsonMapper.readerFor(Event.class);
+        this.maxClockSkewMillis = maxClockSkew.toMillis();
+    }
+
+    /**
+     * @return the number of events read; events before a malformed one have already been counted
+     */
+    public int readNdjson(InputStream body, AnalyticsAggregator sink) {
+        int read = 0;
+        try (MappingIterator<Event> events = eventReader.readValues(body)) {
+            while (events.hasNextValue()) {
+                Event event = events.nextValue();
+                if (event.user() == null || event.user().isEmpty()) {
+                    throw new IllegalArgumentException("Event " + read + " has no user");
+                }
+                sink.ingest(event.user(), event.item(), event.ts() != null ? timestamp(event.ts()) : 0);
+                read++;
+            }
+        }
+        return read;
+    }
+
+    /**
+     * @return the number of events read; events before a malformed one have already been counted
+     */
+    public int readBinary(InputStream body, AnalyticsAggregator sink) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(body));
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative event count " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            long timestamp = in.readLong();
+            String user = in.readUTF();
+            String item = in.readUTF();
+            if (user.isEmpty()) {
+                throw new IllegalArgumentException("Event " + i + " has no user");
+            }
+            sink.ingest(user, item.isEmpty() ? null : item, timestamp(timestamp));
+        }
+        return count;
+    }
+
+    // 0 is the aggregator's "now"
+    private long timestamp(long timestampMillis) {
+        return timestampMillis > System.currentTimeMillis() + maxClockSkewMillis ? 0 : timestampMillis;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.entra.data_backend.analytics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Distinct-count sketch. Each add raises one register with a compare-and-set, so concurrent
+ * ingest threads only ever meet on the same register by hash coincidence and never take a lock.
+ * Standard error is about {@code 1.04 / sqrt(2^precision)}, 0.8% at the default precision of 14.
+ */
+final class HyperLogLog {
+
+    private final int precision;
+    private final int registerCount;
+    private final AtomicIntegerArray registers;
+
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new AtomicIntegerArray(registerCount);
+    }
+
+    void add(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // Leading zeros of the remaining bits plus one; the sentinel bit caps it for all-zero hashes
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        int current = registers.get(index);
+        while (rank > current && !registers.compareAndSet(index, current, rank)) {
+            current = registers.get(index);
+        }
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registerCount; i++) {
+            int value = registers.get(i);
+            sum += 1.0 / (1L << value);
+            if (value == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.entra.data_backend.analytics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heavy-hitter candidates on top of a {@link CountMinSketch}: the sketch counts every item, and an
+ * item is only remembered by name once its estimate beats the weakest candidate. The candidate map
+ * holds at most twice the number of items reported (give or take racing inserts).
+ */
+final class TopItems {
+
+    record Item(String item, long count) {
+    }
+
+    private final int size;
+    private final CountMinSketch sketch;
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+    private volatile long floor;
+
+    TopItems(int size, int width) {
+        this.size = size;
+        this.sketch = new CountMinSketch(width);
+    }
+
+    void add(String item, long hash) {
+        long estimate = sketch.add(hash);
+        if (candidates.containsKey(item)) {
+            candidates.put(item, estimate);
+        } else if (estimate > floor && (candidates.size() < 2 * size || evictWeakerThan(estimate))) {
+            candidates.put(item, estimate);
+        }
+    }
+
+    // Makes room for a stronger newcomer; otherwise raises the floor so weaker items stop scanning
+    private boolean evictWeakerThan(long estimate) {
+        Map.Entry<String, Long> weakest = null;
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            if (weakest == null || entry.getValue() < weakest.getValue()) {
+                weakest = entry;
+            }
+        }
+        if (weakest == null) {
+            return true;
+        }
+        if (weakest.getValue() >= estimate) {
+            floor = Math.max(floor, weakest.getValue());
+            return false;
+        }
+        candidates.remove(weakest.getKey(), weakest.getValue());
+        return true;
+    }
+
+    /**
+     * The current leaders, highest first; drops candidates that fell out of them.
+     */
+    List<Item> trim() {
+        List<Item> ranked = candidates.entrySet().stream()
+                .map(entry -> new Item(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(Item::count).reversed())
+                .toList();
+        if (ranked.size() > size) {
+            ranked.subList(size, ranked.size()).forEach(item -> candidates.remove(item.item()));
+            ranked = ranked.subList(0, size);
+            floor = ranked.get(size - 1).count();
+        }
+        return ranked;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.entra.data_backend.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event counts over the last two windows, kept in a ring of fixed-width slots.
+ * <p>
+ * Each slot is a {@link LongAdder}, whose cells spread concurrent increments across cores. A slot
+ * is recycled by whichever thread first moves its stamp to the new slot number; an increment racing
+ * with that reset can be lost, which is within the tolerance of a growth percentage.
+ */
+final class WindowedCounter {
+
+    private final long slotMillis;
+    private final int slotsPerWindow;
+    private final int ringSize;
+    private final AtomicLongArray stamps;
+    private final LongAdder[] counts;
+
+    WindowedCounter(long windowMillis, int slotsPerWindow) {
+        this.slotMillis = Math.max(1, windowMillis / slotsPerWindow);
+        this.slotsPerWindow = slotsPerWindow;
+        // Two full windows plus the slot currently filling
+        this.ringSize = 2 * slotsPerWindow + 1;
+        this.stamps = new AtomicLongArray(ringSize);
+        this.counts = new LongAdder[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            stamps.set(i, -1);
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void increment(long timestampMillis) {
+        long number = Math.floorDiv(timestampMillis, slotMillis);
+        int index = (int) Math.floorMod(number, ringSize);
+        long stamp = stamps.get(index);
+        while (stamp != number) {
+            if (stamp > number) {
+                // Older than the ring reaches
+                return;
+            }
+            if (stamps.compareAndSet(index, stamp, number)) {
+                counts[index].reset();
+                break;
+            }
+            stamp = stamps.get(index);
+        }
+        counts[index].increment();
+    }
+
+    /**
+     * Events in the window ending with the last complete slot before {@code nowMillis} ({@code [0]})
+     * and in the window before it ({@code [1]}).
+     */
+    long[] lastTwoWindows(long nowMillis) {
+        long current = Math.floorDiv(nowMillis, slotMillis);
+        long[] totals = new long[2];
+        for (int i = 0; i < ringSize; i++) {
+            long age = current - stamps.get(i);
+            if (age >= 1 && age <= slotsPerWindow) {
+                totals[0] += counts[i].sum();
+            } else if (age > slotsPerWindow && age <= 2L * slotsPerWindow) {
+                totals[1] += counts[i].sum();
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.entra.data_backend.config;
+
+import com.example.entra.data_backend.security.CachingJwkSource;
+import com.example.entra.data_backend.security.CachingJwtDecoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.util.StringUtils;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * JWT decoding for the resource server without issuer discovery at startup.
+ * <p>
+ * Keys come from {@link CachingJwkSource} (seed file plus refresh-ahead) and verified tokens are
+ * remembered by {@link CachingJwtDecoder} until they expire. The issuer is still validated, just
+ * from configuration instead of the discovery document.
+ */
+@Configuration
+@Profile("!no-security")
+public class JwtDecoderConfig {
+
+    @Bean
+    public CachingJwkSource jwkSource(
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${app.jwt.jwks.seed-file:}") String seedFile,
+            @Value("${app.jwt.jwks.timeout:5s}") Duration timeout,
+            @Value("${app.jwt.jwks.min-refetch-interval:30s}") Duration minRefetchInterval) throws MalformedURLException {
+        return new CachingJwkSource(URI.create(jwkSetUri).toURL(),
+                StringUtils.hasText(seedFile) ? Path.of(seedFile) : null, timeout, minRefetchInterval);
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(CachingJwkSource jwkSource,
+                                 @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+                                 @Value("${app.jwt.cache.max-entries:10000}") int maxEntries) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSource(jwkSource).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return new CachingJwtDecoder(decoder, maxEntries);
+    }
+}
@@ -47,7 +47,8 @@ public class NoSecurityConfig {
             var authorities = List.of(
                 new SimpleGrantedAuthority("role.alpha"), // For Metrics
                 new SimpleGrantedAuthority("role.beta"),  // For Analytics
-                new SimpleGrantedAuthority("SCOPE_Data.Read") // Scope authority
+                new SimpleGrantedAuthority("SCOPE_Data.Read"), // Scope authority
+                new SimpleGrantedAuthority("SCOPE_Data.Write") // For analytics event ingestion
             );
 
             var auth = new UsernamePasswordAuthenticationToken("Mock Developer", null, authorities);
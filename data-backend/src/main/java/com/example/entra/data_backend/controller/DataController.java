@@ -1,37 +1,156 @@
 package com.example.entra.data_backend.controller;
 
+import com.example.entra.data_backend.analytics.AnalyticsAggregator;
+import com.example.entra.data_backend.analytics.EventBatchReader;
+import com.example.entra.data_backend.metrics.JvmMetricsSampler;
+import com.example.entra.data_backend.metrics.SeriesRange;
+import com.example.entra.data_backend.metrics.TimeSeriesStore;
+import com.example.entra.data_backend.service.DataStore;
+import com.example.entra.data_backend.service.DataStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.core.JacksonException;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/v1/data")
+@RequiredArgsConstructor
 public class DataController {
 
+    private final DataStore dataStore;
+
+    private final TimeSeriesStore timeSeriesStore;
+
+    private final AnalyticsAggregator analyticsAggregator;
+
+    private final EventBatchReader eventBatchReader;
+
+    private final DataStreamService dataStreamService;
+
     @GetMapping("/metrics")
     @PreAuthorize("hasAuthority('role.alpha')")
     public ResponseEntity<?> getMetrics() {
-        Map<String, Object> data = new HashMap<>();
-        data.put("source", "Data Backend");
-        data.put("type", "Metrics");
-        data.put("value", 1250);
-        data.put("status", "Healthy");
-        return ResponseEntity.ok(data);
+        return conditional(dataStore.get(DataStore.METRICS));
+    }
+
+    /**
+     * Range query over a metric series, e.g. {@code ?series=jvm.heap.used&from=2026-10-18T10:00:00Z&to=...&step=1m}.
+     * {@code from} and {@code to} take ISO-8601 instants or epoch milliseconds ({@code to} defaults to now);
+     * {@code step} takes a duration such as {@code 1s}, {@code 5m} or {@code PT1H} and defaults to
+     * whatever keeps the answer within the point limit.
+     */
+    @GetMapping(value = "/metrics", params = "from")
+    @PreAuthorize("hasAuthority('role.alpha')")
+    public ResponseEntity<?> getMetricsRange(@RequestParam(defaultValue = JvmMetricsSampler.HEAP_USED) String series,
+                                             @RequestParam String from,
+                                             @RequestParam(required = false) String to,
+                                             @RequestParam(required = false) String step) {
+        try {
+            long fromMillis = parseTime(from);
+            long toMillis = to != null ? parseTime(to) : System.currentTimeMillis();
+            Duration stepDuration = step != null
+                    ? DurationStyle.detectAndParse(step, ChronoUnit.SECONDS)
+                    : Duration.ofSeconds(Math.max(1, (toMillis - fromMillis) / 1000 / timeSeriesStore.getMaxPoints() + 1));
+            SeriesRange range = timeSeriesStore.query(series, fromMillis, toMillis, stepDuration);
+            if (range == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown series '" + series + "'; known: " + timeSeriesStore.names());
+            }
+            return ResponseEntity.ok(range);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/metrics/series")
+    @PreAuthorize("hasAuthority('role.alpha')")
+    public ResponseEntity<?> getMetricSeries() {
+        return ResponseEntity.ok(timeSeriesStore.names());
+    }
+
+    /**
+     * Server-Sent Events stream of the metrics resource: the current version on connect (unless
+     * {@code Last-Event-ID} already names it), then every new version, each event id being its ETag.
+     */
+    @GetMapping(value = "/metrics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('role.alpha')")
+    public ResponseEntity<SseEmitter> streamMetrics(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return stream(DataStore.METRICS, lastEventId);
+    }
+
+    @GetMapping(value = "/analytics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('role.beta')")
+    public ResponseEntity<SseEmitter> streamAnalytics(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return stream(DataStore.ANALYTICS, lastEventId);
     }
 
     @GetMapping("/analytics")
     @PreAuthorize("hasAuthority('role.beta')")
     public ResponseEntity<?> getAnalytics() {
-        Map<String, Object> data = new HashMap<>();
-        data.put("source", "Data Backend");
-        data.put("type", "Analytics");
-        data.put("growth", "15%");
-        data.put("users", 5400);
-        return ResponseEntity.ok(data);
+        return conditional(dataStore.get(DataStore.ANALYTICS));
+    }
+
+    /**
+     * Ingests a batch of analytics events, streamed as NDJSON or in the binary form described on
+     * {@link EventBatchReader}. The aggregates show up in {@code /analytics} within one publish interval.
+     */
+    @PostMapping(value = "/analytics/events", consumes = {EventBatchReader.NDJSON, EventBatchReader.BINARY})
+    @PreAuthorize("hasAuthority('SCOPE_Data.Write')")
+    public ResponseEntity<?> ingestAnalyticsEvents(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                   InputStream body) {
+        try {
+            int accepted = MediaType.valueOf(EventBatchReader.BINARY).isCompatibleWith(contentType)
+                    ? eventBatchReader.readBinary(body, analyticsAggregator)
+                    : eventBatchReader.readNdjson(body, analyticsAggregator);
+            return ResponseEntity.ok(Map.of("accepted", accepted));
+        } catch (IOException | JacksonException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Malformed event batch: " + e.getMessage());
+        }
+    }
+
+    private ResponseEntity<SseEmitter> stream(String resource, String lastEventId) {
+        SseEmitter emitter = dataStreamService.subscribe(resource, lastEventId);
+        if (emitter == null) {
+            // Subscriber limit reached
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(emitter);
+    }
+
+    private static long parseTime(String value) {
+        return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+    }
+
+    // Spring MVC compares ETag/Last-Modified with If-None-Match/If-Modified-Since and answers 304
+    // without writing the body when they match. Last-Modified is left out when it would equal the
+    // previous version's (HTTP dates have second precision), so If-Modified-Since cannot match it
+    private static ResponseEntity<byte[]> conditional(DataStore.Snapshot snapshot) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(snapshot.eTag());
+        if (!snapshot.sameSecondAsPrevious()) {
+            response.lastModified(snapshot.lastModified());
+        }
+        return response
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
     }
 }
@@ -0,0 +1,48 @@
+package com.example.entra.data_backend.metrics;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Feeds this service's own JVM figures into {@link TimeSeriesStore} once per second, so the
+ * metrics endpoints serve real series without an external collector.
+ */
+@Component
+public class JvmMetricsSampler {
+
+    public static final String HEAP_USED = "jvm.heap.used";
+    public static final String THREADS_LIVE = "jvm.threads.live";
+    public static final String SYSTEM_LOAD = "system.load.average";
+    public static final String PROCESS_CPU = "process.cpu.usage";
+
+    private final TimeSeriesStore store;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+    public JvmMetricsSampler(TimeSeriesStore store) {
+        this.store = store;
+    }
+
+    @Scheduled(fixedRateString = "${app.metrics.sample-interval:1s}")
+    public void sample() {
+        long now = System.currentTimeMillis();
+        store.record(HEAP_USED, now, memory.getHeapMemoryUsage().getUsed());
+        store.record(THREADS_LIVE, now, threads.getThreadCount());
+        double load = os.getSystemLoadAverage();
+        if (load >= 0) {
+            store.record(SYSTEM_LOAD, now, load);
+        }
+        if (os instanceof com.sun.management.OperatingSystemMXBean processOs) {
+            double cpu = processOs.getProcessCpuLoad();
+            if (cpu >= 0) {
+                store.record(PROCESS_CPU, now, cpu);
+            }
+        }
+    }
+}
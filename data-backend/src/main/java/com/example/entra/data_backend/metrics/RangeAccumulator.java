@@ -0,0 +1,66 @@
+package com.example.entra.data_backend.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Output buckets of one range query, filled from a tier's coarser or equal buckets.
+ */
+final class RangeAccumulator {
+
+    private final long fromMillis;
+    private final long stepMillis;
+    private final long[] count;
+    private final double[] sum;
+    private final double[] min;
+    private final double[] max;
+
+    RangeAccumulator(long fromMillis, long stepMillis, int buckets) {
+        this.fromMillis = fromMillis;
+        this.stepMillis = stepMillis;
+        this.count = new long[buckets];
+        this.sum = new double[buckets];
+        this.min = new double[buckets];
+        this.max = new double[buckets];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    void add(long timestampMillis, long samples, double total, double low, double high) {
+        int index = (int) ((timestampMillis - fromMillis) / stepMillis);
+        if (index < 0 || index >= count.length) {
+            return;
+        }
+        count[index] += samples;
+        sum[index] += total;
+        min[index] = Math.min(min[index], low);
+        max[index] = Math.max(max[index], high);
+    }
+
+    /** Keeps only buckets that received samples, so gaps show up as missing timestamps. */
+    SeriesRange toRange(String series, long tierResolutionMillis) {
+        int points = 0;
+        for (long c : count) {
+            if (c > 0) {
+                points++;
+            }
+        }
+        long[] timestamps = new long[points];
+        double[] avg = new double[points];
+        double[] low = new double[points];
+        double[] high = new double[points];
+        long[] samples = new long[points];
+        int point = 0;
+        for (int i = 0; i < count.length; i++) {
+            if (count[i] == 0) {
+                continue;
+            }
+            timestamps[point] = fromMillis + i * stepMillis;
+            avg[point] = sum[i] / count[i];
+            low[point] = min[i];
+            high[point] = max[i];
+            samples[point] = count[i];
+            point++;
+        }
+        return new SeriesRange(series, stepMillis, tierResolutionMillis, timestamps, avg, low, high, samples);
+    }
+}
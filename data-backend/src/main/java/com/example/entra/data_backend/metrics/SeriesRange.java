@@ -0,0 +1,12 @@
+package com.example.entra.data_backend.metrics;
+
+/**
+ * Result of a range query as parallel arrays, one entry per step that has data.
+ *
+ * @param stepMillis           width of each returned point
+ * @param tierResolutionMillis resolution of the tier the points were computed from
+ * @param timestamps           start of each point, epoch millis
+ */
+public record SeriesRange(String series, long stepMillis, long tierResolutionMillis, long[] timestamps,
+                          double[] avg, double[] min, double[] max, long[] count) {
+}
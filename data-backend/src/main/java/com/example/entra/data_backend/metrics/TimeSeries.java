@@ -0,0 +1,74 @@
+package com.example.entra.data_backend.metrics;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One named series, recorded into every tier at once so each tier is a ready-made downsample.
+ */
+final class TimeSeries {
+
+    private final String name;
+    private final TimeSeriesTier[] tiers;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param tiers resolution and retention per tier, finest first
+     */
+    TimeSeries(String name, long baseMillis, List<TimeSeriesStore.TierSpec> tiers) {
+        this.name = name;
+        this.tiers = new TimeSeriesTier[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            TimeSeriesStore.TierSpec spec = tiers.get(i);
+            long resolution = spec.resolution().toMillis();
+            this.tiers[i] = new TimeSeriesTier(baseMillis, resolution, (int) (spec.retention().toMillis() / resolution));
+        }
+    }
+
+    void record(long timestampMillis, double value) {
+        lock.lock();
+        try {
+            for (TimeSeriesTier tier : tiers) {
+                tier.add(timestampMillis, value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads {@code [fromMillis, toMillis)} from the coarsest tier that still resolves {@code stepMillis},
+     * moving to a coarser tier when the finer one no longer reaches back to {@code fromMillis}.
+     */
+    SeriesRange query(long fromMillis, long toMillis, long stepMillis, int maxPoints) {
+        lock.lock();
+        try {
+            int chosen = 0;
+            for (int i = 0; i < tiers.length; i++) {
+                if (tiers[i].resolutionMillis() <= stepMillis) {
+                    chosen = i;
+                }
+            }
+            while (chosen < tiers.length - 1 && tiers[chosen].retainedFromMillis() > fromMillis
+                    && tiers[chosen + 1].retainedFromMillis() < tiers[chosen].retainedFromMillis()) {
+                chosen++;
+            }
+            TimeSeriesTier tier = tiers[chosen];
+
+            long resolution = tier.resolutionMillis();
+            long step = Math.max(1, (stepMillis + resolution - 1) / resolution) * resolution;
+            // Aligned to the step so repeated polls return the same bucket boundaries
+            long alignedFrom = Math.floorDiv(fromMillis, step) * step;
+            long buckets = (toMillis - alignedFrom + step - 1) / step;
+            if (buckets > maxPoints) {
+                throw new IllegalArgumentException("Range of " + buckets + " points exceeds the limit of " + maxPoints + "; use a larger step");
+            }
+
+            RangeAccumulator out = new RangeAccumulator(alignedFrom, step, (int) Math.max(0, buckets));
+            tier.aggregateInto(alignedFrom, toMillis, out);
+            return out.toRange(name, resolution);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.entra.data_backend.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory metric series with 1s, 1m and 1h tiers.
+ * <p>
+ * Each series holds fixed rings of aggregated buckets (count, sum, min, max) in primitive arrays,
+ * so its memory is set when it is created and stays flat as data ages: per-second buckets cover
+ * the last few hours, per-minute buckets the last days and per-hour buckets the last months.
+ * Range queries read the cheapest tier that still resolves the requested step.
+ */
+@Component
+public class TimeSeriesStore {
+
+    /** Bucket width of a tier and how far back it reaches. */
+    public record TierSpec(Duration resolution, Duration retention) {
+    }
+
+    private final List<TierSpec> tiers;
+    private final int maxSeries;
+    private final int maxPoints;
+    private final long baseMillis;
+    private final Map<String, TimeSeries> series = new ConcurrentHashMap<>();
+
+    public TimeSeriesStore(@Value("${app.metrics.retention.second:3h}") Duration secondRetention,
+                           @Value("${app.metrics.retention.minute:7d}") Duration minuteRetention,
+                           @Value("${app.metrics.retention.hour:90d}") Duration hourRetention,
+                           @Value("${app.metrics.max-series:32}") int maxSeries,
+                           @Value("${app.metrics.max-points:5000}") int maxPoints) {
+        this.tiers = List.of(
+                new TierSpec(Duration.ofSeconds(1), secondRetention),
+                new TierSpec(Duration.ofMinutes(1), minuteRetention),
+                new TierSpec(Duration.ofHours(1), hourRetention));
+        this.maxSeries = maxSeries;
+        this.maxPoints = maxPoints;
+        // Bucket numbers are ints relative to this base; hour-aligned so every tier's buckets line up
+        this.baseMillis = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(hourRetention).toEpochMilli();
+    }
+
+    /**
+     * Records one sample. A new series is created on first use, up to {@code app.metrics.max-series}.
+     */
+    public void record(String name, long timestampMillis, double value) {
+        TimeSeries target = series.get(name);
+        if (target == null) {
+            if (series.size() >= maxSeries) {
+                throw new IllegalStateException("Series limit of " + maxSeries + " reached; not creating '" + name + "'");
+            }
+            target = series.computeIfAbsent(name, key -> new TimeSeries(key, baseMillis, tiers));
+        }
+        target.record(timestampMillis, value);
+    }
+
+    /**
+     * Returns the points of a series in {@code [from, to)} at roughly {@code step} resolution,
+     * or {@code null} for an unknown series.
+     *
+     * @throws IllegalArgumentException for an empty range or one with too many points
+     */
+    public SeriesRange query(String name, long fromMillis, long toMillis, Duration step) {
+        if (toMillis <= fromMillis) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        if (step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("'step' must be positive");
+        }
+        TimeSeries target = series.get(name);
+        return target != null ? target.query(fromMillis, toMillis, step.toMillis(), maxPoints) : null;
+    }
+
+    public Set<String> names() {
+        return new TreeSet<>(series.keySet());
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    /** Memory held by one series, the same for every series and for its whole lifetime. */
+    public long footprintBytesPerSeries() {
+        long bytes = 0;
+        for (TierSpec tier : tiers) {
+            bytes += TimeSeriesTier.footprintBytes((int) (tier.retention().toMillis() / tier.resolution().toMillis()));
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.entra.data_backend.metrics;
+
+import java.util.Arrays;
+
+/**
+ * One resolution of a series: a fixed ring of aggregated buckets in parallel primitive arrays.
+ * <p>
+ * A bucket's timestamp is stored as an {@code int} bucket number relative to the series base time
+ * instead of an epoch {@code long}; it doubles as the marker telling whether a ring slot still
+ * holds an old lap. The ring never grows, so memory is fixed at creation however long the series runs.
+ * Not thread-safe; {@link TimeSeries} guards access.
+ */
+final class TimeSeriesTier {
+
+    private static final int EMPTY = -1;
+
+    private final long baseMillis;
+    private final long resolutionMillis;
+    private final int capacity;
+
+    private final int[] bucket;
+    private final int[] count;
+    private final double[] sum;
+    private final double[] min;
+    private final double[] max;
+
+    private int newestBucket = EMPTY;
+
+    TimeSeriesTier(long baseMillis, long resolutionMillis, int capacity) {
+        this.baseMillis = baseMillis;
+        this.resolutionMillis = resolutionMillis;
+        this.capacity = capacity;
+        this.bucket = new int[capacity];
+        this.count = new int[capacity];
+        this.sum = new double[capacity];
+        this.min = new double[capacity];
+        this.max = new double[capacity];
+        Arrays.fill(bucket, EMPTY);
+    }
+
+    long resolutionMillis() {
+        return resolutionMillis;
+    }
+
+    /** Bytes held by a ring of this many buckets, which is all a tier ever allocates. */
+    static long footprintBytes(int capacity) {
+        return (long) capacity * (Integer.BYTES * 2 + Double.BYTES * 3);
+    }
+
+    void add(long timestampMillis, double value) {
+        long number = (timestampMillis - baseMillis) / resolutionMillis;
+        if (number < 0 || number > Integer.MAX_VALUE) {
+            return;
+        }
+        if (newestBucket != EMPTY && number <= (long) newestBucket - capacity) {
+            // Older than anything this ring still holds
+            return;
+        }
+        int slot = (int) (number % capacity);
+        if (bucket[slot] != number) {
+            bucket[slot] = (int) number;
+            count[slot] = 0;
+            sum[slot] = 0;
+            min[slot] = Double.POSITIVE_INFINITY;
+            max[slot] = Double.NEGATIVE_INFINITY;
+        }
+        count[slot]++;
+        sum[slot] += value;
+        min[slot] = Math.min(min[slot], value);
+        max[slot] = Math.max(max[slot], value);
+        newestBucket = Math.max(newestBucket, (int) number);
+    }
+
+    /**
+     * Start of the oldest bucket still retained, or {@link Long#MAX_VALUE} while empty.
+     */
+    long retainedFromMillis() {
+        if (newestBucket == EMPTY) {
+            return Long.MAX_VALUE;
+        }
+        return baseMillis + Math.max(0L, (long) newestBucket - capacity + 1) * resolutionMillis;
+    }
+
+    /**
+     * Merges the buckets in {@code [fromMillis, toMillis)} into {@code out}, whose buckets are
+     * {@code out.stepMillis} wide and start at {@code out.fromMillis}.
+     */
+    void aggregateInto(long fromMillis, long toMillis, RangeAccumulator out) {
+        if (newestBucket == EMPTY) {
+            return;
+        }
+        long first = Math.max(Math.floorDiv(fromMillis - baseMillis, resolutionMillis), (long) newestBucket - capacity + 1);
+        long last = Math.min(Math.floorDiv(toMillis - 1 - baseMillis, resolutionMillis), newestBucket);
+        for (long number = Math.max(0, first); number <= last; number++) {
+            int slot = (int) (number % capacity);
+            if (bucket[slot] == number && count[slot] > 0) {
+                out.add(baseMillis + number * resolutionMillis, count[slot], sum[slot], min[slot], max[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.entra.data_backend.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps Entra {@code scp} scopes to {@code SCOPE_*} authorities and {@code roles} to authorities of
+ * the same name (e.g. {@code role.alpha}).
+ * <p>
+ * Only a handful of distinct (scp, roles) combinations exist across all users, so the computed,
+ * immutable authority list is cached per combination. The lookup uses the raw claim objects as
+ * keys of a two-level map, so a cache hit does not allocate. Authorities themselves are interned
+ * and shared between all cached lists.
+ */
+public class CachingAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingAuthoritiesConverter.class);
+
+    private static final String SCOPE_PREFIX = "SCOPE_";
+
+    // ConcurrentHashMap rejects null keys; tokens without the claim share this key instead
+    private static final Object ABSENT = new Object();
+
+    private final int maxCombinations;
+    private final AtomicInteger combinations = new AtomicInteger();
+    private final Map<Object, Map<Object, List<GrantedAuthority>>> cache = new ConcurrentHashMap<>();
+    private final Map<String, GrantedAuthority> interned = new ConcurrentHashMap<>();
+
+    public CachingAuthoritiesConverter(int maxCombinations) {
+        this.maxCombinations = maxCombinations;
+    }
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        Map<String, Object> claims = jwt.getClaims();
+        Object scopes = claims.get("scp");
+        if (scopes == null) {
+            scopes = claims.get("scope");
+        }
+        Object scopesKey = scopes != null ? scopes : ABSENT;
+        Object rolesKey = claims.getOrDefault("roles", ABSENT);
+
+        Map<Object, List<GrantedAuthority>> byRoles = cache.get(scopesKey);
+        if (byRoles != null) {
+            List<GrantedAuthority> cached = byRoles.get(rolesKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<GrantedAuthority> authorities = compute(scopes, rolesKey == ABSENT ? null : rolesKey);
+        if (combinations.get() < maxCombinations) {
+            // Claim values come from a parsed token nobody else holds, so they are safe to keep as keys
+            List<GrantedAuthority> previous = cache.computeIfAbsent(scopesKey, key -> new ConcurrentHashMap<>())
+                    .putIfAbsent(rolesKey, authorities);
+            if (previous == null) {
+                combinations.incrementAndGet();
+            }
+        }
+        logger.debug("Computed authorities {} for scp={} roles={}", authorities, scopes, rolesKey == ABSENT ? null : rolesKey);
+        return authorities;
+    }
+
+    public int size() {
+        return combinations.get();
+    }
+
+    private List<GrantedAuthority> compute(Object scopes, Object roles) {
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        if (scopes instanceof String scopeString) {
+            for (String scope : scopeString.split(" ")) {
+                if (!scope.isEmpty()) {
+                    authorities.add(intern(SCOPE_PREFIX + scope));
+                }
+            }
+        } else if (scopes instanceof Collection<?> scopeList) {
+            scopeList.forEach(scope -> authorities.add(intern(SCOPE_PREFIX + scope)));
+        }
+        if (roles instanceof Collection<?> roleList) {
+            roleList.forEach(role -> authorities.add(intern(String.valueOf(role))));
+        } else if (roles instanceof String role) {
+            authorities.add(intern(role));
+        }
+        return List.copyOf(authorities);
+    }
+
+    private GrantedAuthority intern(String authority) {
+        return interned.computeIfAbsent(authority, SimpleGrantedAuthority::new);
+    }
+}
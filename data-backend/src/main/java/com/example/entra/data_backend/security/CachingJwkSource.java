@@ -0,0 +1,134 @@
+package com.example.entra.data_backend.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JWKS cache that never blocks startup on the identity provider.
+ * <p>
+ * Keys are seeded from a local file when one is configured, refreshed ahead of time on a fixed
+ * schedule, and refetched on demand (rate limited) when a token names a key id we have not seen,
+ * which is how key rotation shows up. Every successful fetch is written back to the seed file, so
+ * the next boot can verify tokens without network access.
+ */
+public class CachingJwkSource implements JWKSource<SecurityContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingJwkSource.class);
+
+    private static final int SIZE_LIMIT_BYTES = 512 * 1024;
+
+    private final URL jwkSetUrl;
+    private final Path seedFile;
+    private final Duration timeout;
+    private final Duration minRefetchInterval;
+
+    private final AtomicReference<JWKSet> current = new AtomicReference<>(new JWKSet());
+    private final AtomicLong lastFetchAttempt = new AtomicLong();
+    private final ReentrantLock fetchLock = new ReentrantLock();
+
+    public CachingJwkSource(URL jwkSetUrl, Path seedFile, Duration timeout, Duration minRefetchInterval) {
+        this.jwkSetUrl = jwkSetUrl;
+        this.seedFile = seedFile;
+        this.timeout = timeout;
+        this.minRefetchInterval = minRefetchInterval;
+        loadSeedFile();
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        List<JWK> matches = jwkSelector.select(current.get());
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+        // Unknown key id: the provider may have rotated keys since our last fetch
+        if (refetch(false)) {
+            return jwkSelector.select(current.get());
+        }
+        return matches;
+    }
+
+    /**
+     * Refresh-ahead: keeps the key set current so request threads rarely see an unknown key id.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.jwt.jwks.refresh-interval:1h}")
+    public void refreshAhead() {
+        refetch(true);
+    }
+
+    public JWKSet getCurrentKeys() {
+        return current.get();
+    }
+
+    private boolean refetch(boolean scheduled) {
+        long now = System.currentTimeMillis();
+        if (!scheduled && now - lastFetchAttempt.get() < minRefetchInterval.toMillis()) {
+            return false;
+        }
+        fetchLock.lock();
+        try {
+            // Another thread may have fetched while we waited for the lock
+            if (!scheduled && lastFetchAttempt.get() >= now) {
+                return true;
+            }
+            lastFetchAttempt.set(System.currentTimeMillis());
+            int timeoutMillis = (int) timeout.toMillis();
+            JWKSet fetched = JWKSet.load(jwkSetUrl, timeoutMillis, timeoutMillis, SIZE_LIMIT_BYTES);
+            current.set(fetched);
+            writeSeedFile(fetched);
+            logger.debug("Loaded {} signing keys from {}", fetched.getKeys().size(), jwkSetUrl);
+            return true;
+        } catch (Exception e) {
+            // Keep serving the keys we already have
+            logger.warn("Could not fetch JWKS from {}: {}", jwkSetUrl, e.getMessage());
+            return false;
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private void loadSeedFile() {
+        if (seedFile == null || !Files.isRegularFile(seedFile)) {
+            return;
+        }
+        try {
+            current.set(JWKSet.parse(Files.readString(seedFile, StandardCharsets.UTF_8)));
+            logger.info("Seeded {} signing keys from {}", current.get().getKeys().size(), seedFile);
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable JWKS seed file {}: {}", seedFile, e.getMessage());
+        }
+    }
+
+    private void writeSeedFile(JWKSet keys) {
+        if (seedFile == null) {
+            return;
+        }
+        try {
+            Path parent = seedFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "jwks", ".tmp");
+            Files.writeString(temp, keys.toString(true), StandardCharsets.UTF_8);
+            Files.move(temp, seedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not persist JWKS to {}: {}", seedFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.entra.data_backend.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers tokens that already passed signature and claim validation.
+ * <p>
+ * The browser sends the same bearer token through the BFF many times a minute, so repeat requests
+ * are answered from a bounded map keyed by the token's SHA-256 digest instead of redoing the RSA
+ * verification. An entry is only valid until the token's {@code exp}; a token without {@code exp}
+ * is never cached. Failed decodes are never cached either.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final int maxEntries;
+    private final Map<TokenDigest, Jwt> verified = new ConcurrentHashMap<>();
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        TokenDigest digest = TokenDigest.of(token);
+        Instant now = Instant.now();
+
+        Jwt cached = verified.get(digest);
+        if (cached != null) {
+            if (now.isBefore(cached.getExpiresAt()) && cached.getTokenValue().equals(token)) {
+                return cached;
+            }
+            verified.remove(digest, cached);
+        }
+
+        Jwt jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null && now.isBefore(jwt.getExpiresAt())) {
+            if (verified.size() >= maxEntries) {
+                evict(now);
+            }
+            verified.put(digest, jwt);
+        }
+        return jwt;
+    }
+
+    public int size() {
+        return verified.size();
+    }
+
+    private void evict(Instant now) {
+        verified.values().removeIf(jwt -> !now.isBefore(jwt.getExpiresAt()));
+        // Still full of live tokens: drop an arbitrary slice rather than tracking recency on every hit
+        Iterator<TokenDigest> keys = verified.keySet().iterator();
+        int excess = verified.size() - maxEntries + Math.max(1, maxEntries / 10);
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record TokenDigest(long a, long b, long c, long d) {
+
+        static TokenDigest of(String token) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+                ByteBuffer buffer = ByteBuffer.wrap(hash);
+                return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.entra.data_backend.service;
+
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Current data of each resource served by {@code DataController}, kept as ready-to-send JSON.
+ * <p>
+ * A resource is serialized once per change, not per request. Each version carries a strong ETag
+ * derived from its bytes and the time it was published, so pollers can revalidate with
+ * {@code If-None-Match} / {@code If-Modified-Since} and get a bodiless 304 while nothing changed.
+ * A version published within the same second as the one before it is revalidated by ETag only.
+ */
+@Service
+public class DataStore {
+
+    public static final String METRICS = "metrics";
+    public static final String ANALYTICS = "analytics";
+
+    private final JsonMapper jsonMapper;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, Snapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    public DataStore(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("source", "Data Backend");
+        metrics.put("type", "Metrics");
+        metrics.put("value", 1250);
+        metrics.put("status", "Healthy");
+        publish(METRICS, metrics);
+
+        Map<String, Object> analytics = new LinkedHashMap<>();
+        analytics.put("source", "Data Backend");
+        analytics.put("type", "Analytics");
+        analytics.put("growth", "15%");
+        analytics.put("users", 5400);
+        publish(ANALYTICS, analytics);
+    }
+
+    public Snapshot get(String resource) {
+        return snapshots.get(resource);
+    }
+
+    /**
+     * Registers a callback for every new version of any resource, called on the publishing thread.
+     */
+    public void addListener(BiConsumer<String, Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Replaces the data of a resource. Publishing data that serializes to the same bytes keeps the
+     * current version, so clients holding its ETag keep getting 304.
+     */
+    public Snapshot publish(String resource, Map<String, Object> data) {
+        byte[] json = jsonMapper.writeValueAsBytes(data);
+        Snapshot previous = snapshots.get(resource);
+        Snapshot published = snapshots.compute(resource, (key, current) -> {
+            if (current != null && Arrays.equals(current.json(), json)) {
+                return current;
+            }
+            // HTTP dates have second precision; truncating keeps If-Modified-Since comparisons exact.
+            // A version in the same second as the one before has no usable date (If-Modified-Since would
+            // answer 304 for data the client has not seen, and a later date would be in the future), so it
+            // goes without Last-Modified and is revalidated by ETag alone
+            Instant lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            boolean sameSecond = current != null && !lastModified.isAfter(current.lastModified());
+            return new Snapshot(json, eTag(json), lastModified, current == null ? 0 : current.version() + 1, sameSecond);
+        });
+        if (published != previous) {
+            listeners.forEach(listener -> listener.accept(resource, published));
+        }
+        return published;
+    }
+
+    /**
+     * @param version counts the resource's versions from 0, so readers can tell which of two is newer
+     * @param sameSecondAsPrevious published within the same second as the version before it, so
+     *                             {@code lastModified} does not tell them apart and must not be sent
+     */
+    public record Snapshot(byte[] json, String eTag, Instant lastModified, long version, boolean sameSecondAsPrevious) {
+    }
+
+    private static String eTag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
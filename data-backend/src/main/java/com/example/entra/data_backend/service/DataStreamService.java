@@ -0,0 +1,183 @@
+package com.example.entra.data_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes every new version of a {@link DataStore} resource to its Server-Sent Events subscribers.
+ * <p>
+ * Events carry the whole resource, so a subscriber only ever needs the latest one: each holds a
+ * single pending slot that newer versions overwrite and older ones never do. A slow subscriber therefore skips versions
+ * instead of buffering them, and never holds up the publisher or other subscribers; sends run on
+ * a small pool. A comment line goes out every heartbeat interval so that idle connections stay
+ * open through proxies and dead ones are noticed.
+ */
+@Service
+public class DataStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataStreamService.class);
+
+    private final DataStore dataStore;
+    private final Duration timeout;
+    private final int maxSubscribers;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sendExecutor;
+
+    public DataStreamService(DataStore dataStore,
+                             @Value("${app.stream.timeout:30m}") Duration timeout,
+                             @Value("${app.stream.max-subscribers:1000}") int maxSubscribers,
+                             @Value("${app.stream.threads:4}") int threads) {
+        this.dataStore = dataStore;
+        this.timeout = timeout;
+        this.maxSubscribers = maxSubscribers;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "data-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dataStore.addListener(this::onPublished);
+    }
+
+    /**
+     * Opens a stream of {@code resource}, starting with its current version unless the client
+     * already holds it ({@code lastEventId} equal to its ETag).
+     *
+     * @return null when the subscriber limit is reached
+     */
+    public SseEmitter subscribe(String resource, String lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(resource, emitter);
+        subscribers.computeIfAbsent(resource, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        DataStore.Snapshot current = dataStore.get(resource);
+        if (current != null && !current.eTag().equals(lastEventId)) {
+            subscriber.offer(current);
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Scheduled(fixedRateString = "${app.stream.heartbeat:5s}")
+    public void heartbeat() {
+        subscribers.values().forEach(group -> group.forEach(Subscriber::heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.emitter.complete()));
+        sendExecutor.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        List<Subscriber> group = subscribers.get(subscriber.resource);
+        if (group != null && group.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private void onPublished(String resource, DataStore.Snapshot snapshot) {
+        List<Subscriber> group = subscribers.get(resource);
+        if (group != null) {
+            group.forEach(subscriber -> subscriber.offer(snapshot));
+        }
+    }
+
+    private static DataStore.Snapshot newer(DataStore.Snapshot current, DataStore.Snapshot offered) {
+        return current == null || offered.version() > current.version() ? offered : current;
+    }
+
+    private final class Subscriber {
+
+        private final String resource;
+        private final SseEmitter emitter;
+        private final AtomicReference<DataStore.Snapshot> newest = new AtomicReference<>();
+        private final AtomicBoolean changed = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Only touched by the one drain running at a time
+        private long sentVersion = -1;
+
+        Subscriber(String resource, SseEmitter emitter) {
+            this.resource = resource;
+            this.emitter = emitter;
+        }
+
+        void offer(DataStore.Snapshot snapshot) {
+            // subscribe's replay of the current version can arrive after a newer publish; it is ignored then
+            if (newest.accumulateAndGet(snapshot, DataStreamService::newer) == snapshot) {
+                changed.set(true);
+                schedule();
+            }
+        }
+
+        void heartbeat() {
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    DataStore.Snapshot snapshot = changed.getAndSet(false) ? newest.get() : null;
+                    boolean beat = heartbeatDue.getAndSet(false);
+                    if (snapshot != null && snapshot.version() > sentVersion) {
+                        sentVersion = snapshot.version();
+                        emitter.send(SseEmitter.event()
+                                .id(snapshot.eTag())
+                                .name(resource)
+                                .data(new String(snapshot.json(), StandardCharsets.UTF_8), MediaType.APPLICATION_JSON));
+                    } else if (beat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        draining.set(false);
+                        // An offer may have landed after the last check but before the flag was cleared
+                        if ((!changed.get() && !heartbeatDue.get()) || !draining.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("DataStreamService: Dropping {} subscriber: {}", resource, e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
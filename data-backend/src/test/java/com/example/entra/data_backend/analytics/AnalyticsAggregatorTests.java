@@ -0,0 +1,145 @@
+package com.example.entra.data_backend.analytics;
+
+import com.example.entra.data_backend.service.DataStore;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnalyticsAggregatorTests {
+
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+	private final DataStore dataStore = new DataStore(jsonMapper);
+
+	private final AnalyticsAggregator aggregator = new AnalyticsAggregator(dataStore, 14, 3, 2048, Duration.ofMinutes(10), 10);
+
+	private final EventBatchReader reader = new EventBatchReader(jsonMapper, Duration.ofSeconds(5));
+
+	@Test
+	void countsDistinctUsersAcrossConcurrentIngestThreads() throws Exception {
+		int threads = 8;
+		int usersPerThread = 25_000;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> done = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int offset = t * usersPerThread;
+				done.add(pool.submit(() -> {
+					for (int i = 0; i < usersPerThread; i++) {
+						// Every user twice, so repeats do not inflate the count
+						aggregator.ingest("user-" + (offset + i), null, 0);
+						aggregator.ingest("user-" + (offset + i), null, 0);
+					}
+				}));
+			}
+			for (Future<?> future : done) {
+				future.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		Map<String, Object> snapshot = aggregator.snapshot();
+		assertThat((long) snapshot.get("events")).isEqualTo(2L * threads * usersPerThread);
+		assertThat((long) snapshot.get("users")).isBetween(196_000L, 204_000L);
+	}
+
+	@Test
+	void ranksTopItemsAndPublishesThem() {
+		for (int i = 0; i < 5000; i++) {
+			aggregator.ingest("u" + i, "item-" + (i % 100), 0);
+		}
+		for (int i = 0; i < 300; i++) {
+			aggregator.ingest("u" + i, "hot", 0);
+		}
+		for (int i = 0; i < 200; i++) {
+			aggregator.ingest("u" + i, "warm", 0);
+		}
+
+		aggregator.publish();
+
+		String json = new String(dataStore.get(DataStore.ANALYTICS).json(), StandardCharsets.UTF_8);
+		assertThat(json).contains("\"events\":5500", "\"item\":\"hot\"");
+		assertThat((long) aggregator.snapshot().get("users")).isBetween(4900L, 5100L);
+		List<?> top = (List<?>) aggregator.snapshot().get("topItems");
+		assertThat(top).hasSize(3);
+		assertThat(top.get(0)).isEqualTo(Map.of("item", "hot", "count", 300L));
+		assertThat(top.get(1)).isEqualTo(Map.of("item", "warm", "count", 200L));
+	}
+
+	@Test
+	void comparesTheLastTwoWindowsForGrowth() {
+		long now = System.currentTimeMillis();
+		long minute = 60_000;
+		for (int i = 0; i < 100; i++) {
+			aggregator.ingest("u" + i, null, now - 15 * minute);
+		}
+		for (int i = 0; i < 150; i++) {
+			aggregator.ingest("u" + i, null, now - 5 * minute);
+		}
+		// Too old for either window
+		aggregator.ingest("u0", null, now - 60 * minute);
+
+		assertThat(aggregator.snapshot().get("growth")).isEqualTo("50%");
+	}
+
+	@Test
+	void takesFutureTimestampsAsTheTimeOfArrival() {
+		long now = System.currentTimeMillis();
+		long minute = 60_000;
+		for (int i = 0; i < 100; i++) {
+			aggregator.ingest("u" + i, null, now - 15 * minute);
+		}
+		// A day and a half ahead lands in the same ring slot as the events from five minutes ago
+		String ahead = "{\"user\":\"u0\",\"ts\":%d}".formatted(now - 5 * minute + 2100 * minute);
+		assertThat(reader.readNdjson(new ByteArrayInputStream(ahead.getBytes(StandardCharsets.UTF_8)), aggregator)).isEqualTo(1);
+		for (int i = 0; i < 150; i++) {
+			aggregator.ingest("u" + i, null, now - 5 * minute);
+		}
+
+		assertThat(aggregator.snapshot().get("growth")).isEqualTo("50%");
+	}
+
+	@Test
+	void readsNdjsonAndBinaryBatches() throws IOException {
+		String ndjson = """
+				{"user":"alice","item":"a"}
+				{"user":"bob","ts":%d,"extra":true}
+				""".formatted(System.currentTimeMillis());
+		assertThat(reader.readNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), aggregator)).isEqualTo(2);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(2);
+		out.writeLong(0);
+		out.writeUTF("alice");
+		out.writeUTF("a");
+		out.writeLong(System.currentTimeMillis());
+		out.writeUTF("carol");
+		out.writeUTF("");
+		assertThat(reader.readBinary(new ByteArrayInputStream(bytes.toByteArray()), aggregator)).isEqualTo(2);
+
+		Map<String, Object> snapshot = aggregator.snapshot();
+		assertThat(snapshot.get("users")).isEqualTo(3L);
+		assertThat(snapshot.get("events")).isEqualTo(4L);
+		assertThat(snapshot.get("topItems")).isEqualTo(List.of(Map.of("item", "a", "count", 2L)));
+
+		assertThatThrownBy(() -> reader.readNdjson(new ByteArrayInputStream("{\"item\":\"a\"}".getBytes(StandardCharsets.UTF_8)), aggregator))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
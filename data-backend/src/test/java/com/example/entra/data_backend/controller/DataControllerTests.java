@@ -0,0 +1,218 @@
+package com.example.entra.data_backend.controller;
+
+import com.example.entra.data_backend.analytics.AnalyticsAggregator;
+import com.example.entra.data_backend.analytics.EventBatchReader;
+import com.example.entra.data_backend.metrics.TimeSeriesStore;
+import com.example.entra.data_backend.service.DataStore;
+import com.example.entra.data_backend.service.DataStreamService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DataControllerTests {
+
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+	private final DataStore dataStore = new DataStore(jsonMapper);
+
+	private final TimeSeriesStore timeSeriesStore = new TimeSeriesStore(Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7), 4, 1000);
+
+	private final AnalyticsAggregator analyticsAggregator = new AnalyticsAggregator(dataStore, 14, 10, 2048, Duration.ofHours(1), 60);
+
+	private final DataStreamService dataStreamService = new DataStreamService(dataStore, Duration.ofMinutes(1), 2, 1);
+
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(
+			new DataController(dataStore, timeSeriesStore, analyticsAggregator, new EventBatchReader(jsonMapper, Duration.ofSeconds(5)), dataStreamService)).build();
+
+	@Test
+	void answersMatchingIfNoneMatchWithNotModified() throws Exception {
+		MvcResult first = mockMvc.perform(get("/v1/data/metrics"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.value").value(1250))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andReturn();
+		String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(eTag).startsWith("\"").doesNotStartWith("W/");
+
+		mockMvc.perform(get("/v1/data/metrics").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, eTag))
+				.andExpect(content().bytes(new byte[0]));
+
+		mockMvc.perform(get("/v1/data/analytics").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.users").value(5400));
+	}
+
+	@Test
+	void answersIfModifiedSinceWithNotModified() throws Exception {
+		String lastModified = mockMvc.perform(get("/v1/data/analytics"))
+				.andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+		mockMvc.perform(get("/v1/data/analytics").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void newVersionInTheSameSecondIsNotModifiedSinceTheOldOne() throws Exception {
+		String lastModified = mockMvc.perform(get("/v1/data/metrics"))
+				.andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+		dataStore.publish(DataStore.METRICS, Map.of("value", 1300));
+		DataStore.Snapshot second = dataStore.publish(DataStore.METRICS, Map.of("value", 1400));
+
+		assertThat(second.lastModified()).isBeforeOrEqualTo(Instant.now());
+		mockMvc.perform(get("/v1/data/metrics").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.value").value(1400));
+		if (second.sameSecondAsPrevious()) {
+			mockMvc.perform(get("/v1/data/metrics"))
+					.andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+		}
+	}
+
+	@Test
+	void newVersionChangesTheETag() throws Exception {
+		String before = mockMvc.perform(get("/v1/data/metrics")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		DataStore.Snapshot unchanged = dataStore.publish(DataStore.METRICS, Map.of("value", 1300));
+		assertThat(dataStore.publish(DataStore.METRICS, Map.of("value", 1300))).isSameAs(unchanged);
+		DataStore.Snapshot changed = dataStore.get(DataStore.METRICS);
+
+		assertThat(changed.eTag()).isNotEqualTo(before);
+		mockMvc.perform(get("/v1/data/metrics").header(HttpHeaders.IF_NONE_MATCH, before))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, changed.eTag()))
+				.andExpect(jsonPath("$.value").value(1300));
+	}
+
+	@Test
+	void answersRangeQueries() throws Exception {
+		long from = System.currentTimeMillis() / 60_000 * 60_000 - 120_000;
+		for (int second = 0; second < 120; second++) {
+			timeSeriesStore.record("requests", from + second * 1000L, second < 60 ? 1 : 3);
+		}
+
+		mockMvc.perform(get("/v1/data/metrics").param("series", "requests")
+						.param("from", String.valueOf(from)).param("to", String.valueOf(from + 120_000)).param("step", "1m"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.timestamps.length()").value(2))
+				.andExpect(jsonPath("$.avg[0]").value(1.0))
+				.andExpect(jsonPath("$.avg[1]").value(3.0))
+				.andExpect(jsonPath("$.count[1]").value(60))
+				.andExpect(jsonPath("$.tierResolutionMillis").value(60_000));
+
+		mockMvc.perform(get("/v1/data/metrics").param("series", "missing").param("from", String.valueOf(from)))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/v1/data/metrics").param("series", "requests").param("from", String.valueOf(from)).param("step", "1ms"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/v1/data/metrics").param("series", "requests").param("from", "yesterday"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void ingestsEventBatchesIntoAnalytics() throws Exception {
+		String batch = """
+				{"user":"alice","item":"report"}
+				{"user":"bob","item":"report"}
+				{"user":"alice","item":"export"}
+				""";
+
+		mockMvc.perform(post("/v1/data/analytics/events").contentType(EventBatchReader.NDJSON).content(batch))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.accepted").value(3));
+		analyticsAggregator.publish();
+
+		mockMvc.perform(get("/v1/data/analytics"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.users").value(2))
+				.andExpect(jsonPath("$.events").value(3))
+				.andExpect(jsonPath("$.topItems[0].item").value("report"));
+
+		mockMvc.perform(post("/v1/data/analytics/events").contentType(EventBatchReader.BINARY).content(new byte[] {0, 0}))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/v1/data/analytics/events").contentType(EventBatchReader.NDJSON).content("{\"user\":"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void streamsNewVersionsToSubscribers() throws Exception {
+		MvcResult stream = mockMvc.perform(get("/v1/data/metrics/stream"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String eTag = dataStore.get(DataStore.METRICS).eTag();
+		awaitContent(stream.getResponse(), "id:" + eTag);
+		assertThat(stream.getResponse().getContentAsString()).contains("event:metrics", "\"value\":1250");
+
+		dataStore.publish(DataStore.METRICS, Map.of("value", 1300));
+		awaitContent(stream.getResponse(), "\"value\":1300");
+
+		// Already up to date: nothing is replayed on reconnect
+		String current = dataStore.get(DataStore.METRICS).eTag();
+		MvcResult resumed = mockMvc.perform(get("/v1/data/metrics/stream").header("Last-Event-ID", current))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		dataStreamService.heartbeat();
+		awaitContent(resumed.getResponse(), ":heartbeat");
+		assertThat(resumed.getResponse().getContentAsString()).doesNotContain("event:");
+
+		mockMvc.perform(get("/v1/data/analytics/stream"))
+				.andExpect(status().isServiceUnavailable());
+		assertThat(dataStreamService.getSubscriberCount()).isEqualTo(2);
+	}
+
+	@Test
+	void replayOfTheCurrentVersionNeverOvertakesANewerPublish() throws Exception {
+		AtomicBoolean racing = new AtomicBoolean(true);
+		DataStore racingStore = new DataStore(jsonMapper) {
+			@Override
+			public Snapshot get(String resource) {
+				Snapshot current = super.get(resource);
+				if (racing.compareAndSet(true, false)) {
+					// Lands after the subscriber registered, before subscribe offers what it read
+					publish(METRICS, Map.of("value", 1300));
+				}
+				return current;
+			}
+		};
+		DataStreamService streams = new DataStreamService(racingStore, Duration.ofMinutes(1), 2, 1);
+		MockMvc racingMvc = MockMvcBuilders.standaloneSetup(
+				new DataController(racingStore, timeSeriesStore, analyticsAggregator, new EventBatchReader(jsonMapper, Duration.ofSeconds(5)), streams)).build();
+
+		MvcResult stream = racingMvc.perform(get("/v1/data/metrics/stream"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		awaitContent(stream.getResponse(), "\"value\":1300");
+		streams.heartbeat();
+		awaitContent(stream.getResponse(), ":heartbeat");
+
+		assertThat(stream.getResponse().getContentAsString()).doesNotContain("\"value\":1250");
+	}
+
+	private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!response.getContentAsString().contains(expected)) {
+			assertThat(System.currentTimeMillis()).as("waiting for %s", expected).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.entra.data_backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeSeriesStoreTests {
+
+	private static final long HOUR = 3_600_000;
+
+	private final long start = System.currentTimeMillis() / HOUR * HOUR;
+
+	@Test
+	void picksTheCheapestTierForTheStep() {
+		TimeSeriesStore store = new TimeSeriesStore(Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7), 4, 5000);
+		for (int second = 0; second < 600; second++) {
+			store.record("load", start + second * 1000L, second);
+		}
+
+		SeriesRange perSecond = store.query("load", start, start + 10_000, Duration.ofSeconds(1));
+		assertThat(perSecond.tierResolutionMillis()).isEqualTo(1000);
+		assertThat(perSecond.avg()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+		SeriesRange perMinute = store.query("load", start, start + 600_000, Duration.ofMinutes(1));
+		assertThat(perMinute.tierResolutionMillis()).isEqualTo(60_000);
+		assertThat(perMinute.timestamps()).hasSize(10);
+		assertThat(perMinute.avg()[0]).isEqualTo(29.5);
+		assertThat(perMinute.min()[1]).isEqualTo(60);
+		assertThat(perMinute.max()[1]).isEqualTo(119);
+		assertThat(perMinute.count()[1]).isEqualTo(60);
+
+		// 5m from the minute tier rather than summing 300 one-second buckets per point
+		SeriesRange fiveMinutes = store.query("load", start, start + 600_000, Duration.ofMinutes(5));
+		assertThat(fiveMinutes.tierResolutionMillis()).isEqualTo(60_000);
+		assertThat(fiveMinutes.count()).containsExactly(300, 300);
+
+		SeriesRange hourly = store.query("load", start, start + HOUR, Duration.ofHours(1));
+		assertThat(hourly.tierResolutionMillis()).isEqualTo(HOUR);
+		assertThat(hourly.count()).containsExactly(600);
+	}
+
+	@Test
+	void fallsBackToACoarserTierOnceFineDataAgedOut() {
+		TimeSeriesStore store = new TimeSeriesStore(Duration.ofMinutes(10), Duration.ofDays(1), Duration.ofDays(7), 4, 100_000);
+		for (int second = 0; second < 3 * 3600; second += 10) {
+			store.record("load", start + second * 1000L, 1);
+		}
+
+		SeriesRange old = store.query("load", start, start + 600_000, Duration.ofSeconds(1));
+
+		assertThat(old.tierResolutionMillis()).isEqualTo(60_000);
+		assertThat(old.timestamps()).hasSize(10);
+	}
+
+	@Test
+	void ringKeepsMemoryFlatAndDropsOnlyTheOldestBuckets() {
+		TimeSeriesStore store = new TimeSeriesStore(Duration.ofMinutes(1), Duration.ofHours(1), Duration.ofDays(1), 4, 100_000);
+		assertThat(store.footprintBytesPerSeries()).isEqualTo((60 + 60 + 24) * 32L);
+
+		for (int second = 0; second < 300; second++) {
+			store.record("load", start + second * 1000L, second);
+		}
+
+		SeriesRange raw = store.query("load", start, start + 300_000, Duration.ofSeconds(1));
+		assertThat(raw.tierResolutionMillis()).isEqualTo(60_000);
+		SeriesRange lastMinute = store.query("load", start + 240_000, start + 300_000, Duration.ofSeconds(1));
+		assertThat(lastMinute.tierResolutionMillis()).isEqualTo(1000);
+		assertThat(lastMinute.timestamps()).hasSize(60);
+		assertThat(lastMinute.avg()[0]).isEqualTo(240);
+		// A late sample older than the ring is ignored instead of overwriting current data
+		store.record("load", start, -1);
+		assertThat(store.query("load", start + 240_000, start + 300_000, Duration.ofSeconds(1)).min()).doesNotContain(-1.0);
+	}
+
+	@Test
+	void rejectsRangesBeyondThePointLimit() {
+		TimeSeriesStore store = new TimeSeriesStore(Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7), 1, 100);
+		store.record("load", start, 1);
+
+		assertThatThrownBy(() -> store.query("load", start, start + HOUR, Duration.ofSeconds(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(store.query("unknown", start, start + 1000, Duration.ofSeconds(1))).isNull();
+		assertThatThrownBy(() -> store.record("other", start, 1)).isInstanceOf(IllegalStateException.class);
+	}
+}
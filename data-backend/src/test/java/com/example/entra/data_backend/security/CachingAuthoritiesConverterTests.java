@@ -0,0 +1,66 @@
+package com.example.entra.data_backend.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingAuthoritiesConverterTests {
+
+	@Test
+	void mapsScopesAndRoles() {
+		CachingAuthoritiesConverter converter = new CachingAuthoritiesConverter(16);
+
+		Collection<GrantedAuthority> authorities = converter.convert(jwt("Data.Read User.Read", List.of("role.alpha", "role.beta")));
+
+		assertThat(authorities).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("SCOPE_Data.Read", "SCOPE_User.Read", "role.alpha", "role.beta");
+		assertThat(converter.convert(jwt("Data.Read", null))).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("SCOPE_Data.Read");
+	}
+
+	@Test
+	void sharesResultForEqualClaimsFromDifferentTokens() {
+		CachingAuthoritiesConverter converter = new CachingAuthoritiesConverter(16);
+
+		Collection<GrantedAuthority> first = converter.convert(jwt("Data.Read", new ArrayList<>(List.of("role.alpha"))));
+		Collection<GrantedAuthority> second = converter.convert(jwt("Data.Read", new ArrayList<>(List.of("role.alpha"))));
+		Collection<GrantedAuthority> other = converter.convert(jwt("Data.Read", List.of("role.beta")));
+
+		assertThat(second).isSameAs(first);
+		assertThat(other).isNotEqualTo(first);
+		// SCOPE_Data.Read is interned and shared between the two lists
+		assertThat(other.iterator().next()).isSameAs(first.iterator().next());
+		assertThat(converter.size()).isEqualTo(2);
+	}
+
+	@Test
+	void stopsCachingBeyondTheLimit() {
+		CachingAuthoritiesConverter converter = new CachingAuthoritiesConverter(1);
+
+		converter.convert(jwt("Data.Read", List.of("role.alpha")));
+		Collection<GrantedAuthority> uncached = converter.convert(jwt("Data.Read", List.of("role.beta")));
+
+		assertThat(uncached).extracting(GrantedAuthority::getAuthority).containsExactly("SCOPE_Data.Read", "role.beta");
+		assertThat(converter.size()).isEqualTo(1);
+	}
+
+	private static Jwt jwt(String scp, List<String> roles) {
+		Jwt.Builder builder = Jwt.withTokenValue("token")
+				.header("alg", "RS256")
+				.subject("user-1")
+				.issuedAt(Instant.now())
+				.expiresAt(Instant.now().plusSeconds(600))
+				.claim("scp", scp);
+		if (roles != null) {
+			builder.claim("roles", roles);
+		}
+		return builder.build();
+	}
+}
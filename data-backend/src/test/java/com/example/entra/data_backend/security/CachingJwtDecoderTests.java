@@ -0,0 +1,86 @@
+package com.example.entra.data_backend.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingJwtDecoderTests {
+
+	private static final String ISSUER = "https://sts.windows.net/test-tenant/";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void verifiesOfflineFromSeedFileAndSkipsRepeatVerification() throws Exception {
+		RSAKey signingKey = new RSAKeyGenerator(2048).keyID("k1").generate();
+		Path seedFile = tempDir.resolve("jwks.json");
+		Files.writeString(seedFile, new JWKSet(signingKey).toString(true));
+
+		// Nothing listens on port 1, so every network fetch fails
+		CachingJwkSource jwkSource = new CachingJwkSource(URI.create("http://127.0.0.1:1/keys").toURL(),
+				seedFile, Duration.ofMillis(200), Duration.ofSeconds(30));
+		NimbusJwtDecoder nimbus = NimbusJwtDecoder.withJwkSource(jwkSource).build();
+		nimbus.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+
+		AtomicInteger verifications = new AtomicInteger();
+		JwtDecoder counting = token -> {
+			verifications.incrementAndGet();
+			return nimbus.decode(token);
+		};
+		CachingJwtDecoder decoder = new CachingJwtDecoder(counting, 100);
+
+		String token = sign(signingKey, Instant.now().plusSeconds(600));
+		assertThat(decoder.decode(token).getClaimAsString("scp")).isEqualTo("Data.Read");
+		assertThat(decoder.decode(token).getClaimAsString("scp")).isEqualTo("Data.Read");
+
+		assertThat(verifications.get()).isEqualTo(1);
+		assertThat(decoder.size()).isEqualTo(1);
+	}
+
+	@Test
+	void evictsWhenFull() throws Exception {
+		RSAKey signingKey = new RSAKeyGenerator(2048).keyID("k1").generate();
+		NimbusJwtDecoder nimbus = NimbusJwtDecoder.withJwkSource((selector, context) -> selector.select(new JWKSet(signingKey))).build();
+		CachingJwtDecoder decoder = new CachingJwtDecoder(nimbus, 10);
+
+		for (int i = 0; i < 25; i++) {
+			decoder.decode(sign(signingKey, Instant.now().plusSeconds(600 + i)));
+		}
+
+		assertThat(decoder.size()).isLessThanOrEqualTo(10);
+	}
+
+	private static String sign(RSAKey key, Instant expiresAt) throws Exception {
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.issuer(ISSUER)
+				.subject("user-1")
+				.claim("scp", "Data.Read")
+				.issueTime(new Date())
+				.expirationTime(Date.from(expiresAt))
+				.build();
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+		jwt.sign(new RSASSASigner(key));
+		return jwt.serialize();
+	}
+}
@@ -0,0 +1,19 @@
+package com.example.entra.load_test;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * One jar, three roles chosen by profile: {@code oidc} (Entra stand-in), {@code engine} (engine-rest stub)
+ * and {@code runner} (scenario runner). Each role is started as its own process.
+ */
+@SpringBootApplication
+@EnableScheduling
+public class LoadTestApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(LoadTestApplication.class, args);
+	}
+
+}
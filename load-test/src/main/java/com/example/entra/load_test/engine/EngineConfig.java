@@ -0,0 +1,58 @@
+package com.example.entra.load_test.engine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * engine-rest stub; active with the {@code engine} profile. Every call under {@code /engine-rest} is held
+ * for {@code app.engine.latency} (plus jitter) before it is handled.
+ */
+@Configuration
+@Profile("engine")
+@EnableConfigurationProperties(EngineProperties.class)
+public class EngineConfig implements WebMvcConfigurer {
+
+    private final EngineProperties properties;
+
+    public EngineConfig(EngineProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public EngineDataset engineDataset() {
+        return new EngineDataset(properties);
+    }
+
+    @Bean
+    public ExternalTaskQueue externalTaskQueue(EngineDataset engineDataset) {
+        return new ExternalTaskQueue(engineDataset, properties.getExternalTaskTopic(), properties.getExternalTasks());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        long latencyNanos = properties.getLatency().toNanos();
+        long jitterNanos = properties.getLatencyJitter().toNanos();
+        if (latencyNanos <= 0 && jitterNanos <= 0) {
+            return;
+        }
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                    throws InterruptedException {
+                long delay = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+                TimeUnit.NANOSECONDS.sleep(delay);
+                return true;
+            }
+        }).addPathPatterns("/engine-rest/**");
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.entra.load_test.engine;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Process instances and their active tasks, generated at startup and answered in engine-rest's JSON shapes.
+ * <p>
+ * Instance ids, start times and task creation times all ascend together, so every supported sort order is
+ * the generation order or its reverse. Queries take the engine-rest query as a map, the same for a POST body
+ * and GET parameters; filters the adapter does not use are ignored.
+ */
+public class EngineDataset {
+
+    /** engine-rest's default date format, e.g. {@code 2026-10-18T08:00:00.000+0000}. */
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    private static final DateTimeFormatter DATE_OUTPUT = DATE_FORMAT.withZone(ZoneOffset.UTC);
+
+    private final EngineProperties properties;
+    private final String processDefinitionId;
+    private final String largeVariable;
+    private final List<Case> cases;
+    private final Map<String, Case> byId = new HashMap<>();
+    private final Map<String, Case> byBusinessKey = new HashMap<>();
+    private final Map<String, Case> byTaskId = new ConcurrentHashMap<>();
+
+    public EngineDataset(EngineProperties properties) {
+        this.properties = properties;
+        this.processDefinitionId = properties.getProcessDefinitionKey() + ":1:1";
+        this.largeVariable = "x".repeat((int) properties.getVariableSize().toBytes());
+
+        int count = properties.getCases();
+        long now = System.currentTimeMillis();
+        long span = properties.getHistory().toMillis();
+        long step = Math.max(1, span / Math.max(1, count));
+        // Every n-th case is finished, giving the configured ratio spread over the whole history
+        int finishedEvery = properties.getFinishedRatio() <= 0 ? 0 : (int) Math.max(1, Math.round(1 / properties.getFinishedRatio()));
+        List<Case> generated = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long startTime = now - span + i * step;
+            Case c = new Case(i, String.format("00000000-0000-4000-8000-%012d", i), "CASE-" + (100_000 + i), startTime,
+                    String.format("10000000-0000-4000-8000-%012d", i));
+            if (finishedEvery > 0 && i % finishedEvery == 0) {
+                c.endTime = Math.min(now, startTime + step / 2);
+                c.lastActivity = c.endTime;
+            } else {
+                byTaskId.put(c.taskId, c);
+            }
+            generated.add(c);
+            byId.put(c.id, c);
+            byBusinessKey.put(c.businessKey, c);
+        }
+        this.cases = Collections.unmodifiableList(generated);
+    }
+
+    public List<Map<String, Object>> historicProcessInstances(Map<String, Object> query, Integer firstResult, Integer maxResults) {
+        return page(cases, historicFilter(query), descending(query), firstResult, maxResults).stream()
+                .map(this::historicProcessInstance)
+                .toList();
+    }
+
+    public long countHistoricProcessInstances(Map<String, Object> query) {
+        return cases.stream().filter(historicFilter(query)).count();
+    }
+
+    /** Null if there is no such instance. */
+    public Map<String, Object> historicProcessInstance(String id) {
+        Case c = byId.get(id);
+        return c == null ? null : historicProcessInstance(c);
+    }
+
+    public List<Map<String, Object>> tasks(Map<String, Object> query, Integer firstResult, Integer maxResults) {
+        return page(cases, taskFilter(query), descending(query), firstResult, maxResults).stream()
+                .map(this::task)
+                .toList();
+    }
+
+    public long countTasks(Map<String, Object> query) {
+        return cases.stream().filter(taskFilter(query)).count();
+    }
+
+    /** Null if there is no such active task. */
+    public Map<String, Object> task(String taskId) {
+        Case c = byTaskId.get(taskId);
+        return c == null ? null : task(c);
+    }
+
+    /**
+     * Variables of an active task as engine-rest {@code VariableValueDto}s, null if there is no such task.
+     *
+     * @param names only these variables, all if null
+     */
+    public Map<String, Map<String, Object>> variables(String taskId, Collection<String> names) {
+        Case c = byTaskId.get(taskId);
+        if (c == null) {
+            return null;
+        }
+        Map<String, Map<String, Object>> variables = new LinkedHashMap<>();
+        variables.put("applicantName", variable("String", "Applicant " + c.businessKey));
+        variables.put("loanAmount", variable("Double", 10_000.0 + (c.index % 90) * 1_000));
+        variables.put("creditScore", variable("Integer", 550 + c.index % 300));
+        variables.put("approved", variable("Boolean", false));
+        variables.put("supportingNotes", variable("String", largeVariable));
+        if (names != null) {
+            variables.keySet().retainAll(names);
+        }
+        return variables;
+    }
+
+    /** Completes the task and with it the instance, as the one user task of the stubbed process. */
+    public boolean completeTask(String taskId) {
+        Case c = byTaskId.remove(taskId);
+        if (c == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        c.endTime = now;
+        c.lastActivity = now;
+        return true;
+    }
+
+    /**
+     * A message is accepted by any running instance with the business key; it does not move the instance on.
+     *
+     * @return the instance it was correlated to, null if none matches
+     */
+    public String correlate(String businessKey) {
+        Case c = businessKey == null ? null : byBusinessKey.get(businessKey);
+        if (c == null || c.endTime != null) {
+            return null;
+        }
+        c.lastActivity = System.currentTimeMillis();
+        return c.id;
+    }
+
+    /** The n-th running instance, cycling; null if none is running. */
+    Case runningCase(long n) {
+        int size = cases.size();
+        for (int i = 0; i < size; i++) {
+            Case c = cases.get((int) ((n + i) % size));
+            if (c.endTime == null) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    String processDefinitionId() {
+        return processDefinitionId;
+    }
+
+    String processDefinitionKey() {
+        return properties.getProcessDefinitionKey();
+    }
+
+    static String format(long epochMillis) {
+        return DATE_OUTPUT.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    private Predicate<Case> historicFilter(Map<String, Object> query) {
+        Predicate<Case> filter = c -> true;
+        String id = string(query, "processInstanceId");
+        if (id != null) filter = filter.and(c -> c.id.equals(id));
+        Set<String> ids = set(query, "processInstanceIds");
+        if (ids != null) filter = filter.and(c -> ids.contains(c.id));
+        String businessKey = string(query, "processInstanceBusinessKey");
+        if (businessKey != null) filter = filter.and(c -> c.businessKey.equals(businessKey));
+        Set<String> businessKeys = set(query, "processInstanceBusinessKeyIn");
+        if (businessKeys != null) filter = filter.and(c -> businessKeys.contains(c.businessKey));
+        String definitionKey = string(query, "processDefinitionKey");
+        if (definitionKey != null) filter = filter.and(c -> definitionKey.equals(properties.getProcessDefinitionKey()));
+        if (bool(query, "finished")) filter = filter.and(c -> c.endTime != null);
+        if (bool(query, "unfinished")) filter = filter.and(c -> c.endTime == null);
+        Long startedBefore = date(query, "startedBefore");
+        if (startedBefore != null) filter = filter.and(c -> c.startTime <= startedBefore);
+        Long startedAfter = date(query, "startedAfter");
+        if (startedAfter != null) filter = filter.and(c -> c.startTime >= startedAfter);
+        Long finishedAfter = date(query, "finishedAfter");
+        if (finishedAfter != null) filter = filter.and(c -> c.endTime != null && c.endTime >= finishedAfter);
+        Long finishedBefore = date(query, "finishedBefore");
+        if (finishedBefore != null) filter = filter.and(c -> c.endTime != null && c.endTime <= finishedBefore);
+        Long executedActivityAfter = date(query, "executedActivityAfter");
+        if (executedActivityAfter != null) filter = filter.and(c -> c.lastActivity >= executedActivityAfter);
+        return filter;
+    }
+
+    private Predicate<Case> taskFilter(Map<String, Object> query) {
+        Predicate<Case> filter = c -> c.endTime == null;
+        String taskId = string(query, "taskId");
+        if (taskId != null) filter = filter.and(c -> c.taskId.equals(taskId));
+        String instanceId = string(query, "processInstanceId");
+        if (instanceId != null) filter = filter.and(c -> c.id.equals(instanceId));
+        Set<String> instanceIds = set(query, "processInstanceIdIn");
+        if (instanceIds != null) filter = filter.and(c -> instanceIds.contains(c.id));
+        String businessKey = string(query, "processInstanceBusinessKey");
+        if (businessKey != null) filter = filter.and(c -> c.businessKey.equals(businessKey));
+        if (bool(query, "suspended")) filter = filter.and(c -> false);
+        return filter;
+    }
+
+    private static List<Case> page(List<Case> cases, Predicate<Case> filter, boolean descending,
+                                   Integer firstResult, Integer maxResults) {
+        int skip = firstResult == null ? 0 : Math.max(0, firstResult);
+        int limit = maxResults == null ? Integer.MAX_VALUE : Math.max(0, maxResults);
+        List<Case> result = new ArrayList<>(Math.min(limit, 1024));
+        int n = cases.size();
+        for (int i = 0; i < n && result.size() < limit; i++) {
+            Case c = cases.get(descending ? n - 1 - i : i);
+            if (filter.test(c) && skip-- <= 0) {
+                result.add(c);
+            }
+        }
+        return result;
+    }
+
+    /** Direction of the first sort criterion, from a {@code sorting} list or {@code sortOrder}. */
+    private static boolean descending(Map<String, Object> query) {
+        Object sorting = query.get("sorting");
+        if (sorting instanceof List<?> criteria && !criteria.isEmpty() && criteria.get(0) instanceof Map<?, ?> first) {
+            return "desc".equalsIgnoreCase(String.valueOf(first.get("sortOrder")));
+        }
+        return "desc".equalsIgnoreCase(string(query, "sortOrder"));
+    }
+
+    private Map<String, Object> historicProcessInstance(Case c) {
+        Long endTime = c.endTime;
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("id", c.id);
+        dto.put("rootProcessInstanceId", c.id);
+        dto.put("superProcessInstanceId", null);
+        dto.put("superCaseInstanceId", null);
+        dto.put("caseInstanceId", null);
+        dto.put("processDefinitionName", "Credit Case");
+        dto.put("processDefinitionKey", properties.getProcessDefinitionKey());
+        dto.put("processDefinitionVersion", 1);
+        dto.put("processDefinitionId", processDefinitionId);
+        dto.put("businessKey", c.businessKey);
+        dto.put("startTime", format(c.startTime));
+        dto.put("endTime", endTime == null ? null : format(endTime));
+        dto.put("removalTime", null);
+        dto.put("durationInMillis", endTime == null ? null : endTime - c.startTime);
+        dto.put("startUserId", null);
+        dto.put("startActivityId", "StartEvent_1");
+        dto.put("deleteReason", null);
+        dto.put("tenantId", null);
+        dto.put("state", endTime == null ? "ACTIVE" : "COMPLETED");
+        return dto;
+    }
+
+    private Map<String, Object> task(Case c) {
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("id", c.taskId);
+        dto.put("name", properties.getTaskName());
+        dto.put("assignee", null);
+        dto.put("owner", null);
+        dto.put("created", format(c.startTime + 1));
+        dto.put("lastUpdated", null);
+        dto.put("due", null);
+        dto.put("followUp", null);
+        dto.put("delegationState", null);
+        dto.put("description", null);
+        dto.put("executionId", c.id);
+        dto.put("parentTaskId", null);
+        dto.put("priority", 50);
+        dto.put("processDefinitionId", processDefinitionId);
+        dto.put("processInstanceId", c.id);
+        dto.put("caseExecutionId", null);
+        dto.put("caseDefinitionId", null);
+        dto.put("caseInstanceId", null);
+        dto.put("taskDefinitionKey", "ReviewApplication");
+        dto.put("suspended", false);
+        dto.put("formKey", "embedded:app:forms/review-application.html");
+        dto.put("camundaFormRef", null);
+        dto.put("tenantId", null);
+        return dto;
+    }
+
+    private static Map<String, Object> variable(String type, Object value) {
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("type", type);
+        dto.put("value", value);
+        dto.put("valueInfo", Map.of());
+        return dto;
+    }
+
+    private static String string(Map<String, Object> query, String name) {
+        Object value = query.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static boolean bool(Map<String, Object> query, String name) {
+        Object value = query.get(name);
+        return value instanceof Boolean b ? b : value != null && Boolean.parseBoolean(value.toString());
+    }
+
+    /** A JSON array, or a comma-separated GET parameter. */
+    private static Set<String> set(Map<String, Object> query, String name) {
+        Object value = query.get(name);
+        if (value == null) return null;
+        if (value instanceof Collection<?> values) return values.stream().map(String::valueOf).collect(Collectors.toSet());
+        return new HashSet<>(Arrays.asList(value.toString().split(",")));
+    }
+
+    private static Long date(Map<String, Object> query, String name) {
+        Object value = query.get(name);
+        if (value == null) return null;
+        if (value instanceof Number millis) return millis.longValue();
+        try {
+            return OffsetDateTime.parse(value.toString(), DATE_FORMAT).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return OffsetDateTime.parse(value.toString()).toInstant().toEpochMilli();
+        }
+    }
+
+    static final class Case {
+
+        final int index;
+        final String id;
+        final String businessKey;
+        final long startTime;
+        final String taskId;
+        volatile Long endTime;
+        volatile long lastActivity;
+
+        Case(int index, String id, String businessKey, long startTime, String taskId) {
+            this.index = index;
+            this.id = id;
+            this.businessKey = businessKey;
+            this.startTime = startTime;
+            this.taskId = taskId;
+            this.lastActivity = startTime;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.entra.load_test.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Size and speed of the engine-rest stub.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.engine")
+public class EngineProperties {
+
+    /** Process instances generated at startup, start times spread evenly over {@link #history}. */
+    private int cases = 10_000;
+
+    /** Share of the generated instances that are already completed; the rest each have one active task. */
+    private double finishedRatio = 0.25;
+
+    private Duration history = Duration.ofDays(30);
+
+    /** Added to every engine-rest call before it is answered, standing in for the engine's database work. */
+    private Duration latency = Duration.ofMillis(5);
+
+    /** Up to this much more, chosen uniformly per call. */
+    private Duration latencyJitter = Duration.ZERO;
+
+    /** Size of the large text variable on every task, to exercise the adapter's lazy variable handles. */
+    private DataSize variableSize = DataSize.ofKilobytes(20);
+
+    /** External tasks available for fetch-and-lock at any time; each completion makes a new one available. */
+    private int externalTasks = 100;
+
+    private String externalTaskTopic = "fund-loan";
+
+    private String processDefinitionKey = "credit-case";
+
+    private String taskName = "Review application";
+}
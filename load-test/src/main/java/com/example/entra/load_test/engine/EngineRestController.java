@@ -0,0 +1,213 @@
+package com.example.entra.load_test.engine;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The engine-rest calls camunda-adapter makes: historic process instances, tasks and their variables,
+ * task completion, message correlation and external task fetch-and-lock. Errors use engine-rest's
+ * {@code {"type", "message"}} body.
+ */
+@RestController
+@Profile("engine")
+@RequestMapping("/engine-rest")
+public class EngineRestController {
+
+    private final EngineDataset dataset;
+    private final ExternalTaskQueue externalTasks;
+
+    public EngineRestController(EngineDataset dataset, ExternalTaskQueue externalTasks) {
+        this.dataset = dataset;
+        this.externalTasks = externalTasks;
+    }
+
+    @GetMapping("/engine")
+    public List<Map<String, Object>> engines() {
+        return List.of(Map.of("name", "default"));
+    }
+
+    @RequestMapping(value = "/history/process-instance", method = {RequestMethod.GET, RequestMethod.POST})
+    public List<Map<String, Object>> historicProcessInstances(@RequestParam Map<String, String> params,
+                                                              @RequestBody(required = false) Map<String, Object> body,
+                                                              @RequestParam(required = false) Integer firstResult,
+                                                              @RequestParam(required = false) Integer maxResults) {
+        return dataset.historicProcessInstances(query(params, body), firstResult, maxResults);
+    }
+
+    @RequestMapping(value = "/history/process-instance/count", method = {RequestMethod.GET, RequestMethod.POST})
+    public Map<String, Object> countHistoricProcessInstances(@RequestParam Map<String, String> params,
+                                                             @RequestBody(required = false) Map<String, Object> body) {
+        return Map.of("count", dataset.countHistoricProcessInstances(query(params, body)));
+    }
+
+    @GetMapping("/history/process-instance/{id}")
+    public ResponseEntity<Map<String, Object>> historicProcessInstance(@PathVariable String id) {
+        Map<String, Object> instance = dataset.historicProcessInstance(id);
+        return instance != null ? ResponseEntity.ok(instance)
+                : error(HttpStatus.NOT_FOUND, "InvalidRequestException", "Historic process instance with id " + id + " does not exist");
+    }
+
+    @RequestMapping(value = "/task", method = {RequestMethod.GET, RequestMethod.POST})
+    public List<Map<String, Object>> tasks(@RequestParam Map<String, String> params,
+                                           @RequestBody(required = false) Map<String, Object> body,
+                                           @RequestParam(required = false) Integer firstResult,
+                                           @RequestParam(required = false) Integer maxResults) {
+        return dataset.tasks(query(params, body), firstResult, maxResults);
+    }
+
+    @RequestMapping(value = "/task/count", method = {RequestMethod.GET, RequestMethod.POST})
+    public Map<String, Object> countTasks(@RequestParam Map<String, String> params,
+                                          @RequestBody(required = false) Map<String, Object> body) {
+        return Map.of("count", dataset.countTasks(query(params, body)));
+    }
+
+    @GetMapping("/task/{id}")
+    public ResponseEntity<Map<String, Object>> task(@PathVariable String id) {
+        Map<String, Object> task = dataset.task(id);
+        return task != null ? ResponseEntity.ok(task) : taskNotFound(id);
+    }
+
+    @GetMapping("/task/{id}/variables")
+    public ResponseEntity<?> variables(@PathVariable String id,
+                                       @RequestParam(required = false) String variableNames) {
+        Map<String, Map<String, Object>> variables = dataset.variables(id,
+                variableNames == null ? null : Arrays.asList(variableNames.split(",")));
+        return variables != null ? ResponseEntity.ok(variables) : taskNotFound(id);
+    }
+
+    @GetMapping("/task/{id}/variables/{name}")
+    public ResponseEntity<?> variable(@PathVariable String id, @PathVariable String name) {
+        Map<String, Map<String, Object>> variables = dataset.variables(id, List.of(name));
+        if (variables == null) {
+            return taskNotFound(id);
+        }
+        Map<String, Object> variable = variables.get(name);
+        return variable != null ? ResponseEntity.ok(variable)
+                : error(HttpStatus.NOT_FOUND, "InvalidRequestException", "task variable with name " + name + " does not exist");
+    }
+
+    @GetMapping("/task/{id}/variables/{name}/data")
+    public ResponseEntity<?> variableData(@PathVariable String id, @PathVariable String name) {
+        ResponseEntity<?> variable = variable(id, name);
+        if (!(variable.getBody() instanceof Map<?, ?> dto) || !variable.getStatusCode().is2xxSuccessful()) {
+            return variable;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(String.valueOf(dto.get("value")).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @PostMapping("/task/{id}/complete")
+    public ResponseEntity<?> completeTask(@PathVariable String id) {
+        if (!dataset.completeTask(id)) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "RestException", "Cannot complete task " + id + ": Cannot find task with id " + id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/message")
+    public ResponseEntity<?> correlate(@RequestBody Map<String, Object> body) {
+        String businessKey = (String) body.get("businessKey");
+        String processInstanceId = dataset.correlate(businessKey);
+        if (processInstanceId == null) {
+            return error(HttpStatus.BAD_REQUEST, "RestException", "Cannot correlate message '" + body.get("messageName")
+                    + "': No process definition or execution matches the parameters");
+        }
+        if (!Boolean.TRUE.equals(body.get("resultEnabled"))) {
+            return ResponseEntity.noContent().build();
+        }
+        Map<String, Object> execution = new LinkedHashMap<>();
+        execution.put("id", processInstanceId);
+        execution.put("processInstanceId", processInstanceId);
+        execution.put("ended", false);
+        execution.put("tenantId", null);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resultType", "Execution");
+        result.put("execution", execution);
+        result.put("processInstance", null);
+        return ResponseEntity.ok(List.of(result));
+    }
+
+    @PostMapping("/external-task/fetchAndLock")
+    public List<Map<String, Object>> fetchAndLock(@RequestBody Map<String, Object> body) throws InterruptedException {
+        List<?> topics = body.get("topics") instanceof List<?> list ? list : List.of();
+        List<String> topicNames = topics.stream()
+                .filter(Map.class::isInstance)
+                .map(topic -> String.valueOf(((Map<?, ?>) topic).get("topicName")))
+                .toList();
+        long lockDuration = topics.stream()
+                .filter(Map.class::isInstance)
+                .map(topic -> ((Map<?, ?>) topic).get("lockDuration"))
+                .filter(Number.class::isInstance)
+                .mapToLong(duration -> ((Number) duration).longValue())
+                .findFirst().orElse(20_000);
+        return externalTasks.fetchAndLock(String.valueOf(body.get("workerId")), number(body.get("maxTasks"), 1),
+                topicNames, lockDuration, number(body.get("asyncResponseTimeout"), 0));
+    }
+
+    @PostMapping("/external-task/{id}/complete")
+    public ResponseEntity<?> completeExternalTask(@PathVariable String id, @RequestBody(required = false) Map<String, Object> body) {
+        return externalTasks.complete(id, workerId(body)) ? ResponseEntity.noContent().build() : externalTaskNotFound(id);
+    }
+
+    @PostMapping("/external-task/{id}/failure")
+    public ResponseEntity<?> externalTaskFailure(@PathVariable String id, @RequestBody(required = false) Map<String, Object> body) {
+        return externalTasks.failure(id, workerId(body)) ? ResponseEntity.noContent().build() : externalTaskNotFound(id);
+    }
+
+    @PostMapping("/external-task/{id}/extendLock")
+    public ResponseEntity<?> extendLock(@PathVariable String id, @RequestBody Map<String, Object> body) {
+        return externalTasks.extendLock(id, workerId(body), number(body.get("newDuration"), 0))
+                ? ResponseEntity.noContent().build() : externalTaskNotFound(id);
+    }
+
+    /** GET parameters and a POST body as one query; the paging parameters are not part of it. */
+    private static Map<String, Object> query(Map<String, String> params, Map<String, Object> body) {
+        Map<String, Object> query = new LinkedHashMap<>(params);
+        query.remove("firstResult");
+        query.remove("maxResults");
+        if (body != null) {
+            query.putAll(body);
+        }
+        return query;
+    }
+
+    private static String workerId(Map<String, Object> body) {
+        return body == null || body.get("workerId") == null ? null : body.get("workerId").toString();
+    }
+
+    private static int number(Object value, int defaultValue) {
+        return value instanceof Number n ? n.intValue() : defaultValue;
+    }
+
+    private static ResponseEntity<Map<String, Object>> taskNotFound(String id) {
+        return error(HttpStatus.NOT_FOUND, "InvalidRequestException", "No matching task with id " + id);
+    }
+
+    private static ResponseEntity<Map<String, Object>> externalTaskNotFound(String id) {
+        return error(HttpStatus.NOT_FOUND, "NotFoundException", "External task with id " + id + " does not exist or is not locked by this worker");
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String type, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", type);
+        body.put("message", message);
+        body.put("code", null);
+        return ResponseEntity.status(status).body(body);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.entra.load_test.engine;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * External tasks of one topic for fetch-and-lock.
+ * <p>
+ * A fixed number of tasks is outstanding at any time: completing one makes a new one available, so a worker
+ * polling as fast as it can always finds work. A failed task, or one whose lock expires, becomes available
+ * again. Each task belongs to a running instance of the {@link EngineDataset}.
+ */
+public class ExternalTaskQueue {
+
+    /** Longest a fetch-and-lock waits for a task, whatever {@code asyncResponseTimeout} the worker asks for. */
+    private static final long MAX_WAIT_MILLIS = 30_000;
+
+    private final EngineDataset dataset;
+    private final String topic;
+    private final BlockingQueue<ExternalTask> available = new LinkedBlockingQueue<>();
+    private final Map<String, ExternalTask> locked = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ExternalTaskQueue(EngineDataset dataset, String topic, int outstanding) {
+        this.dataset = dataset;
+        this.topic = topic;
+        for (int i = 0; i < outstanding; i++) {
+            available.add(newTask());
+        }
+    }
+
+    /**
+     * Locks up to {@code maxTasks} tasks, waiting up to {@code asyncResponseTimeoutMillis} for the first one.
+     *
+     * @return engine-rest {@code LockedExternalTaskDto}s, empty if none of the topics is served here or no task
+     *         became available in time
+     */
+    public List<Map<String, Object>> fetchAndLock(String workerId, int maxTasks, Collection<String> topics,
+                                                  long lockDurationMillis, long asyncResponseTimeoutMillis)
+            throws InterruptedException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (maxTasks <= 0 || !topics.contains(topic)) {
+            return result;
+        }
+        ExternalTask first = asyncResponseTimeoutMillis > 0
+                ? available.poll(Math.min(asyncResponseTimeoutMillis, MAX_WAIT_MILLIS), TimeUnit.MILLISECONDS)
+                : available.poll();
+        if (first == null) {
+            return result;
+        }
+        List<ExternalTask> tasks = new ArrayList<>(maxTasks);
+        tasks.add(first);
+        available.drainTo(tasks, maxTasks - 1);
+        long lockExpiration = System.currentTimeMillis() + lockDurationMillis;
+        for (ExternalTask task : tasks) {
+            task.workerId = workerId;
+            task.lockExpiration = lockExpiration;
+            locked.put(task.id, task);
+            result.add(dto(task));
+        }
+        return result;
+    }
+
+    /** @return false if the task is not locked by this worker */
+    public boolean complete(String id, String workerId) {
+        ExternalTask task = locked.get(id);
+        if (task == null || (workerId != null && !workerId.equals(task.workerId)) || !locked.remove(id, task)) {
+            return false;
+        }
+        available.add(newTask());
+        return true;
+    }
+
+    /** The task becomes available again at once; retries and retry timeouts are not modelled. */
+    public boolean failure(String id, String workerId) {
+        ExternalTask task = locked.get(id);
+        if (task == null || (workerId != null && !workerId.equals(task.workerId)) || !locked.remove(id, task)) {
+            return false;
+        }
+        available.add(task);
+        return true;
+    }
+
+    public boolean extendLock(String id, String workerId, long newDurationMillis) {
+        ExternalTask task = locked.get(id);
+        if (task == null || (workerId != null && !workerId.equals(task.workerId))) {
+            return false;
+        }
+        task.lockExpiration = System.currentTimeMillis() + newDurationMillis;
+        return true;
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void releaseExpiredLocks() {
+        long now = System.currentTimeMillis();
+        for (ExternalTask task : locked.values()) {
+            if (task.lockExpiration < now && locked.remove(task.id, task)) {
+                available.add(task);
+            }
+        }
+    }
+
+    int available() {
+        return available.size();
+    }
+
+    private ExternalTask newTask() {
+        long n = sequence.getAndIncrement();
+        EngineDataset.Case owner = dataset.runningCase(n);
+        return new ExternalTask(String.format("20000000-0000-4000-8000-%012d", n),
+                owner == null ? null : owner.id, owner == null ? null : owner.businessKey);
+    }
+
+    private Map<String, Object> dto(ExternalTask task) {
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("activityId", "ServiceTask_FundLoan");
+        dto.put("activityInstanceId", "ServiceTask_FundLoan:" + task.id);
+        dto.put("errorMessage", null);
+        dto.put("errorDetails", null);
+        dto.put("executionId", task.processInstanceId);
+        dto.put("id", task.id);
+        dto.put("lockExpirationTime", EngineDataset.format(task.lockExpiration));
+        dto.put("processDefinitionId", dataset.processDefinitionId());
+        dto.put("processDefinitionKey", dataset.processDefinitionKey());
+        dto.put("processDefinitionVersionTag", null);
+        dto.put("processInstanceId", task.processInstanceId);
+        dto.put("retries", null);
+        dto.put("suspended", false);
+        dto.put("workerId", task.workerId);
+        dto.put("topicName", topic);
+        dto.put("tenantId", null);
+        dto.put("variables", Map.of());
+        dto.put("priority", 0);
+        dto.put("businessKey", task.businessKey);
+        dto.put("extensionProperties", Map.of());
+        return dto;
+    }
+
+    private static final class ExternalTask {
+
+        final String id;
+        final String processInstanceId;
+        final String businessKey;
+        volatile String workerId;
+        volatile long lockExpiration;
+
+        ExternalTask(String id, String processInstanceId, String businessKey) {
+            this.id = id;
+            this.processInstanceId = processInstanceId;
+            this.businessKey = businessKey;
+        }
+    }
+}
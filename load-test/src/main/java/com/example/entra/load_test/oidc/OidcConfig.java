@@ -0,0 +1,20 @@
+package com.example.entra.load_test.oidc;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Entra stand-in; active with the {@code oidc} profile.
+ */
+@Configuration
+@Profile("oidc")
+@EnableConfigurationProperties(OidcProperties.class)
+public class OidcConfig {
+
+    @Bean
+    public TokenIssuer tokenIssuer(OidcProperties properties) {
+        return new TokenIssuer(properties);
+    }
+}
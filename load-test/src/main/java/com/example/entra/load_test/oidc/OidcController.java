@@ -0,0 +1,141 @@
+package com.example.entra.load_test.oidc;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of {@code login.microsoftonline.com/{tenant}} the BFF and data-backend talk to: discovery, JWKS,
+ * authorize (signs in whoever {@code login_hint} names, without a prompt), token and logout.
+ */
+@RestController
+@Profile("oidc")
+@RequestMapping("/{tenant}")
+public class OidcController {
+
+    private static final String DEFAULT_USER = "load-test-user";
+
+    private final OidcProperties properties;
+    private final TokenIssuer tokenIssuer;
+
+    public OidcController(OidcProperties properties, TokenIssuer tokenIssuer) {
+        this.properties = properties;
+        this.tokenIssuer = tokenIssuer;
+    }
+
+    @GetMapping("/v2.0/.well-known/openid-configuration")
+    public Map<String, Object> discovery(@PathVariable String tenant) {
+        checkTenant(tenant);
+        String base = properties.getBaseUrl() + "/" + tenant;
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("issuer", properties.issuer());
+        metadata.put("authorization_endpoint", base + "/oauth2/v2.0/authorize");
+        metadata.put("token_endpoint", base + "/oauth2/v2.0/token");
+        metadata.put("end_session_endpoint", base + "/oauth2/v2.0/logout");
+        metadata.put("jwks_uri", base + "/discovery/v2.0/keys");
+        metadata.put("response_types_supported", List.of("code"));
+        metadata.put("response_modes_supported", List.of("query"));
+        metadata.put("grant_types_supported", List.of("authorization_code", "refresh_token"));
+        metadata.put("subject_types_supported", List.of("pairwise"));
+        metadata.put("id_token_signing_alg_values_supported", List.of("RS256"));
+        metadata.put("token_endpoint_auth_methods_supported", List.of("client_secret_post"));
+        metadata.put("code_challenge_methods_supported", List.of("S256"));
+        metadata.put("scopes_supported", List.of("openid", "profile", "email", "offline_access"));
+        return metadata;
+    }
+
+    @GetMapping({"/discovery/v2.0/keys", "/discovery/keys"})
+    public Map<String, Object> keys(@PathVariable String tenant) {
+        checkTenant(tenant);
+        return tokenIssuer.jwks();
+    }
+
+    @GetMapping("/oauth2/v2.0/authorize")
+    public ResponseEntity<Void> authorize(@PathVariable String tenant,
+                                          @RequestParam("client_id") String clientId,
+                                          @RequestParam("redirect_uri") String redirectUri,
+                                          @RequestParam(value = "scope", required = false) String scope,
+                                          @RequestParam(value = "state", required = false) String state,
+                                          @RequestParam(value = "login_hint", required = false) String loginHint,
+                                          @RequestParam(value = "code_challenge", required = false) String codeChallenge,
+                                          @RequestParam(value = "code_challenge_method", required = false) String codeChallengeMethod) {
+        checkTenant(tenant);
+        String user = loginHint == null || loginHint.isBlank() ? DEFAULT_USER : loginHint;
+        String code;
+        try {
+            code = tokenIssuer.authorize(clientId, redirectUri, user, scope, codeChallenge, codeChallengeMethod);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        StringBuilder location = new StringBuilder(redirectUri)
+                .append(redirectUri.contains("?") ? '&' : '?')
+                .append("code=").append(code);
+        if (state != null) {
+            location.append("&state=").append(URLEncoder.encode(state, StandardCharsets.UTF_8));
+        }
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(location.toString())).build();
+    }
+
+    @PostMapping(value = "/oauth2/v2.0/token", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<Map<String, Object>> token(@PathVariable String tenant,
+                                                     @RequestParam("grant_type") String grantType,
+                                                     @RequestParam(value = "client_id", required = false) String clientId,
+                                                     @RequestParam(value = "client_secret", required = false) String clientSecret,
+                                                     @RequestParam(value = "code", required = false) String code,
+                                                     @RequestParam(value = "redirect_uri", required = false) String redirectUri,
+                                                     @RequestParam(value = "code_verifier", required = false) String codeVerifier,
+                                                     @RequestParam(value = "refresh_token", required = false) String refreshToken,
+                                                     @RequestParam(value = "scope", required = false) String scope) {
+        checkTenant(tenant);
+        if (!properties.getClientId().equals(clientId)
+                || (!properties.getClientSecret().isEmpty() && !properties.getClientSecret().equals(clientSecret))) {
+            return error(HttpStatus.UNAUTHORIZED, "invalid_client", "Client authentication failed");
+        }
+        return switch (grantType) {
+            case "authorization_code" -> ResponseEntity.ok(tokenIssuer.redeem(code, redirectUri, codeVerifier));
+            case "refresh_token" -> ResponseEntity.ok(tokenIssuer.refresh(refreshToken, scope));
+            default -> error(HttpStatus.BAD_REQUEST, "unsupported_grant_type", "Unsupported grant_type '" + grantType + "'");
+        };
+    }
+
+    @GetMapping("/oauth2/v2.0/logout")
+    public ResponseEntity<Void> logout(@PathVariable String tenant,
+                                       @RequestParam(value = "post_logout_redirect_uri", required = false) String postLogoutRedirectUri) {
+        checkTenant(tenant);
+        if (postLogoutRedirectUri == null) {
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(postLogoutRedirectUri)).build();
+    }
+
+    @ExceptionHandler(TokenIssuer.InvalidGrantException.class)
+    public ResponseEntity<Map<String, Object>> invalidGrant(TokenIssuer.InvalidGrantException e) {
+        return error(HttpStatus.BAD_REQUEST, "invalid_grant", e.getMessage());
+    }
+
+    private void checkTenant(String tenant) {
+        if (!properties.getTenant().equals(tenant)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown tenant '" + tenant + "'");
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String error, String description) {
+        return ResponseEntity.status(status).body(Map.of("error", error, "error_description", description));
+    }
+}
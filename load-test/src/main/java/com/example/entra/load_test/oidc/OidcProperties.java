@@ -0,0 +1,49 @@
+package com.example.entra.load_test.oidc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tenant, client and claims the Entra stand-in issues tokens for.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.oidc")
+public class OidcProperties {
+
+    /** Externally visible origin of the stand-in; the issuer and discovery URLs are built from it. */
+    private String baseUrl = "http://localhost:9000";
+
+    /** Tenant id in every path, as in {@code login.microsoftonline.com/{tenant}/v2.0}. */
+    private String tenant = "load-test";
+
+    private String clientId = "load-test-client";
+
+    /** Checked on the token endpoint when set. */
+    private String clientSecret = "load-test-secret";
+
+    /** {@code iss} of access tokens; empty for Entra's v1 form {@code https://sts.windows.net/{tenant}/}. */
+    private String accessTokenIssuer = "";
+
+    /** {@code scp} claim of every access token, space separated. */
+    private String scopes = "Data.Read Data.Write";
+
+    /** {@code roles} claim of every access and ID token. */
+    private List<String> roles = new ArrayList<>(List.of("role.alpha", "role.beta"));
+
+    private Duration accessTokenLifetime = Duration.ofHours(1);
+
+    /** An authorization code not redeemed within this long is rejected. */
+    private Duration codeLifetime = Duration.ofMinutes(5);
+
+    public String issuer() {
+        return baseUrl + "/" + tenant + "/v2.0";
+    }
+
+    public String accessTokenIssuer() {
+        return accessTokenIssuer.isEmpty() ? "https://sts.windows.net/" + tenant + "/" : accessTokenIssuer;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.entra.load_test.oidc;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authorization codes and RS256-signed tokens shaped like Entra's.
+ * <p>
+ * Access tokens carry {@code scp} and {@code roles} under the v1 issuer that data-backend validates; ID tokens
+ * carry the user's name and roles under the v2.0 issuer the BFF discovers. Refresh tokens are signed JWTs too,
+ * so nothing but pending authorization codes is held in memory however many logins a run performs.
+ * The key pair is generated at startup.
+ */
+public class TokenIssuer {
+
+    private static final Duration REFRESH_TOKEN_LIFETIME = Duration.ofDays(1);
+    private static final JOSEObjectType REFRESH_TOKEN_TYPE = new JOSEObjectType("refresh+jwt");
+
+    private final OidcProperties properties;
+    private final RSAKey key;
+    private final RSASSASigner signer;
+    private final RSASSAVerifier verifier;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, PendingCode> codes = new ConcurrentHashMap<>();
+
+    public TokenIssuer(OidcProperties properties) {
+        this.properties = properties;
+        try {
+            key = new RSAKeyGenerator(2048)
+                    .keyID(UUID.randomUUID().toString())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.RS256)
+                    .generate();
+            signer = new RSASSASigner(key);
+            verifier = new RSASSAVerifier(key.toRSAPublicKey());
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not generate the signing key", e);
+        }
+    }
+
+    /** Public half of the signing key, as served on the JWKS endpoints. */
+    public Map<String, Object> jwks() {
+        return new JWKSet(key.toPublicJWK()).toJSONObject();
+    }
+
+    /**
+     * Signs the user in without a prompt and returns the code to redirect back with.
+     *
+     * @param user          login hint; the same hint always yields the same subject
+     * @param codeChallenge PKCE challenge, null if the client does not use PKCE
+     * @throws IllegalArgumentException for an unknown client or an unsupported challenge method
+     */
+    public String authorize(String clientId, String redirectUri, String user, String scope,
+                            String codeChallenge, String codeChallengeMethod) {
+        if (!properties.getClientId().equals(clientId)) {
+            throw new IllegalArgumentException("Unknown client_id '" + clientId + "'");
+        }
+        if (codeChallenge != null && codeChallengeMethod != null && !"S256".equals(codeChallengeMethod)) {
+            throw new IllegalArgumentException("Unsupported code_challenge_method '" + codeChallengeMethod + "'");
+        }
+        String code = randomToken();
+        codes.put(code, new PendingCode(user, redirectUri, scope, codeChallenge,
+                Instant.now().plus(properties.getCodeLifetime())));
+        return code;
+    }
+
+    /**
+     * Redeems an authorization code once.
+     *
+     * @throws InvalidGrantException if the code is unknown, expired or already used, or the redirect URI or
+     *                               PKCE verifier does not match the authorization request
+     */
+    public Map<String, Object> redeem(String code, String redirectUri, String codeVerifier) {
+        PendingCode pending = code == null ? null : codes.remove(code);
+        if (pending == null || pending.expiresAt().isBefore(Instant.now())) {
+            throw new InvalidGrantException("The authorization code is invalid or has expired");
+        }
+        if (pending.redirectUri() != null && !pending.redirectUri().equals(redirectUri)) {
+            throw new InvalidGrantException("redirect_uri does not match the authorization request");
+        }
+        if (pending.codeChallenge() != null && (codeVerifier == null || !pending.codeChallenge().equals(challenge(codeVerifier)))) {
+            throw new InvalidGrantException("The code_verifier does not match the code_challenge");
+        }
+        return tokens(pending.user(), pending.scope());
+    }
+
+    /**
+     * @throws InvalidGrantException if the refresh token was not issued by this stand-in or has expired
+     */
+    public Map<String, Object> refresh(String refreshToken, String scope) {
+        JWTClaimsSet claims;
+        try {
+            SignedJWT jwt = SignedJWT.parse(refreshToken);
+            if (!REFRESH_TOKEN_TYPE.equals(jwt.getHeader().getType()) || !jwt.verify(verifier)) {
+                throw new InvalidGrantException("The refresh token is invalid");
+            }
+            claims = jwt.getJWTClaimsSet();
+        } catch (ParseException | JOSEException e) {
+            throw new InvalidGrantException("The refresh token is invalid");
+        }
+        if (claims.getExpirationTime().before(new Date())) {
+            throw new InvalidGrantException("The refresh token has expired");
+        }
+        return tokens((String) claims.getClaim("login_hint"), scope);
+    }
+
+    @Scheduled(fixedDelayString = "${app.oidc.code-lifetime:5m}")
+    public void evictExpiredCodes() {
+        Instant now = Instant.now();
+        codes.values().removeIf(pending -> pending.expiresAt().isBefore(now));
+    }
+
+    private Map<String, Object> tokens(String user, String scope) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(properties.getAccessTokenLifetime());
+        String subject = UUID.nameUUIDFromBytes(user.getBytes(StandardCharsets.UTF_8)).toString();
+
+        JWTClaimsSet access = new JWTClaimsSet.Builder()
+                .issuer(properties.accessTokenIssuer())
+                .audience("api://" + properties.getClientId())
+                .subject(subject)
+                .issueTime(Date.from(now))
+                .notBeforeTime(Date.from(now))
+                .expirationTime(Date.from(expiresAt))
+                .claim("oid", subject)
+                .claim("tid", properties.getTenant())
+                .claim("appid", properties.getClientId())
+                .claim("name", user)
+                .claim("upn", user)
+                .claim("scp", properties.getScopes())
+                .claim("roles", properties.getRoles())
+                .claim("ver", "1.0")
+                .build();
+        JWTClaimsSet id = new JWTClaimsSet.Builder()
+                .issuer(properties.issuer())
+                .audience(properties.getClientId())
+                .subject(subject)
+                .issueTime(Date.from(now))
+                .notBeforeTime(Date.from(now))
+                .expirationTime(Date.from(expiresAt))
+                .claim("oid", subject)
+                .claim("tid", properties.getTenant())
+                .claim("name", user)
+                .claim("preferred_username", user)
+                .claim("roles", properties.getRoles())
+                .claim("ver", "2.0")
+                .build();
+        JWTClaimsSet refresh = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .jwtID(randomToken())
+                .expirationTime(Date.from(now.plus(REFRESH_TOKEN_LIFETIME)))
+                .claim("login_hint", user)
+                .build();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("token_type", "Bearer");
+        response.put("scope", scope != null ? scope : properties.getScopes());
+        response.put("expires_in", properties.getAccessTokenLifetime().toSeconds());
+        response.put("ext_expires_in", properties.getAccessTokenLifetime().toSeconds());
+        response.put("access_token", sign(access, JOSEObjectType.JWT));
+        response.put("id_token", sign(id, JOSEObjectType.JWT));
+        response.put("refresh_token", sign(refresh, REFRESH_TOKEN_TYPE));
+        return response;
+    }
+
+    private String sign(JWTClaimsSet claims, JOSEObjectType type) {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).type(type).build();
+        SignedJWT jwt = new SignedJWT(header, claims);
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not sign a token", e);
+        }
+        return jwt.serialize();
+    }
+
+    private String randomToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static String challenge(String codeVerifier) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(codeVerifier.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record PendingCode(String user, String redirectUri, String scope, String codeChallenge, Instant expiresAt) {
+    }
+
+    /** Rejected grant; the token endpoint answers it with {@code 400 invalid_grant}, as Entra does. */
+    public static class InvalidGrantException extends RuntimeException {
+
+        public InvalidGrantException(String message) {
+            super(message);
+        }
+    }
+}
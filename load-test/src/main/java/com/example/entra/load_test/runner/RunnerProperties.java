@@ -0,0 +1,46 @@
+package com.example.entra.load_test.runner;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the scenario runner drives and for how long.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.runner")
+public class RunnerProperties {
+
+    private String bffUrl = "http://localhost:3001";
+
+    private String orchestratorUrl = "http://localhost:8081";
+
+    /** Concurrent simulated users, each with its own BFF session, looping over the flow. */
+    private int users = 50;
+
+    /** Requests made before this has elapsed are not recorded. */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    /** Measured time after the warmup. */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /** Pause between two iterations of one user. */
+    private Duration thinkTime = Duration.ZERO;
+
+    /** A user logs in again after this many iterations; 0 logs in only once. */
+    private int loginEvery = 0;
+
+    /** BFF proxy paths requested in every iteration. */
+    private List<String> proxyPaths = new ArrayList<>(List.of("/v1/proxy/data/metrics", "/v1/proxy/data/analytics"));
+
+    /** Request the dashboard and open one of its cases through the orchestrator in every iteration. */
+    private boolean workflow = true;
+
+    /** Dashboard page size; one case of the page is opened. */
+    private int casePageSize = 20;
+
+    private Duration requestTimeout = Duration.ofSeconds(30);
+}
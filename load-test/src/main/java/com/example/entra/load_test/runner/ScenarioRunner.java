@@ -0,0 +1,290 @@
+package com.example.entra.load_test.runner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the chain the way the React apps do and reports throughput and latency percentiles per step.
+ * <p>
+ * Each simulated user logs in through the BFF (code URL, the identity provider's authorize redirect, the
+ * callback that redeems the code), then loops: {@code /v1/auth/me}, the configured proxy paths, and through
+ * the orchestrator the dashboard plus the detail of one of its cases. Requests during the warmup are made but
+ * not recorded; a failed request counts as an error of its step and is not part of the percentiles.
+ */
+@Component
+@Profile("runner")
+@EnableConfigurationProperties(RunnerProperties.class)
+public class ScenarioRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioRunner.class);
+
+    static final String LOGIN = "login";
+    static final String ME = "me";
+    static final String CASES = "cases";
+    static final String CASE_DETAIL = "case detail";
+
+    private final RunnerProperties properties;
+    private final JsonMapper jsonMapper;
+    private final PrintStream out;
+    private final HttpClient httpClient;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private final AtomicLong iterations = new AtomicLong();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    @Autowired
+    public ScenarioRunner(RunnerProperties properties, JsonMapper jsonMapper) {
+        this(properties, jsonMapper, System.out);
+    }
+
+    ScenarioRunner(RunnerProperties properties, JsonMapper jsonMapper, PrintStream out) {
+        this.properties = properties;
+        this.jsonMapper = jsonMapper;
+        this.out = out;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        steps.put(LOGIN, new Step());
+        steps.put(ME, new Step());
+        for (String path : properties.getProxyPaths()) {
+            steps.put(path, new Step());
+        }
+        if (properties.isWorkflow()) {
+            steps.put(CASES, new Step());
+            steps.put(CASE_DETAIL, new Step());
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        int users = properties.getUsers();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(users, runnable -> {
+            Thread thread = new Thread(runnable, "user-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Starting {} users against {} and {}; warmup {}, measuring {}", users, properties.getBffUrl(),
+                properties.getOrchestratorUrl(), properties.getWarmup(), properties.getDuration());
+        for (int i = 1; i <= users; i++) {
+            String user = "user-" + i;
+            pool.execute(() -> runUser(user));
+        }
+
+        TimeUnit.MILLISECONDS.sleep(properties.getWarmup().toMillis());
+        long start = System.nanoTime();
+        measuring = true;
+        TimeUnit.MILLISECONDS.sleep(properties.getDuration().toMillis());
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        running = false;
+
+        pool.shutdown();
+        if (!pool.awaitTermination(properties.getRequestTimeout().toMillis() + 5_000, TimeUnit.MILLISECONDS)) {
+            pool.shutdownNow();
+        }
+        report(elapsed);
+    }
+
+    private void runUser(String name) {
+        SimulatedUser user = new SimulatedUser(name);
+        int iteration = 0;
+        while (running) {
+            if (!user.loggedIn || (properties.getLoginEvery() > 0 && iteration > 0 && iteration % properties.getLoginEvery() == 0)) {
+                user.loggedIn = step(LOGIN, () -> login(user)) != null;
+                if (!user.loggedIn) {
+                    // Do not hammer a chain that is down; the failure is already counted
+                    pause(Duration.ofMillis(100));
+                    continue;
+                }
+            }
+            step(ME, () -> get(user, properties.getBffUrl() + "/v1/auth/me", 200));
+            for (String path : properties.getProxyPaths()) {
+                step(path, () -> get(user, properties.getBffUrl() + path, 200));
+            }
+            if (properties.isWorkflow()) {
+                List<?> cases = step(CASES, () -> jsonMapper.readValue(get(user, properties.getOrchestratorUrl()
+                        + "/workflow/cases?status=running&limit=" + properties.getCasePageSize(), 200), List.class));
+                if (cases != null && !cases.isEmpty()
+                        && cases.get(ThreadLocalRandom.current().nextInt(cases.size())) instanceof Map<?, ?> row) {
+                    Object lookupId = row.get("businessKey") != null ? row.get("businessKey") : row.get("caseId");
+                    step(CASE_DETAIL, () -> get(user, properties.getOrchestratorUrl() + "/workflow/case/"
+                            + URLEncoder.encode(String.valueOf(lookupId), StandardCharsets.UTF_8) + "/detail", 200));
+                }
+            }
+            if (measuring) {
+                iterations.incrementAndGet();
+            }
+            iteration++;
+            pause(properties.getThinkTime());
+        }
+    }
+
+    /** The BFF login: its code URL, the provider's authorize redirect, then the BFF callback with the code. */
+    private Boolean login(SimulatedUser user) throws IOException, InterruptedException {
+        user.cookies.clear();
+        Map<?, ?> codeUrl = jsonMapper.readValue(get(user, properties.getBffUrl() + "/v1/auth/session/codeUrl", 200), Map.class);
+        String authorize = codeUrl.get("url") + "&login_hint=" + URLEncoder.encode(user.name, StandardCharsets.UTF_8);
+        String callback = redirect(send(user, authorize), 302);
+        redirect(send(user, callback), 302);
+        return Boolean.TRUE;
+    }
+
+    private String get(SimulatedUser user, String url, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(user, url);
+        if (response.statusCode() != expectedStatus) {
+            throw new UnexpectedStatusException(response.statusCode());
+        }
+        return response.body();
+    }
+
+    private HttpResponse<String> send(SimulatedUser user, String url) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(properties.getRequestTimeout()).GET();
+        if (!user.cookies.isEmpty()) {
+            StringBuilder cookie = new StringBuilder();
+            user.cookies.forEach((name, value) -> cookie.append(cookie.length() == 0 ? "" : "; ").append(name).append('=').append(value));
+            request.header("Cookie", cookie.toString());
+        }
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        for (String setCookie : response.headers().allValues("set-cookie")) {
+            int equals = setCookie.indexOf('=');
+            int end = setCookie.indexOf(';');
+            if (equals > 0) {
+                user.cookies.put(setCookie.substring(0, equals), setCookie.substring(equals + 1, end < 0 ? setCookie.length() : end));
+            }
+        }
+        return response;
+    }
+
+    private static String redirect(HttpResponse<String> response, int expectedStatus) {
+        if (response.statusCode() != expectedStatus) {
+            throw new UnexpectedStatusException(response.statusCode());
+        }
+        return response.headers().firstValue("Location").orElseThrow(() -> new UnexpectedStatusException(response.statusCode()));
+    }
+
+    /** Runs and times one step; null if it failed. */
+    private <T> T step(String name, StepAction<T> action) {
+        Step step = steps.get(name);
+        long start = System.nanoTime();
+        try {
+            T result = action.run();
+            if (measuring) {
+                step.latencies.recordNanos(System.nanoTime() - start);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return null;
+        } catch (Exception e) {
+            if (measuring) {
+                step.errors.computeIfAbsent(cause(e), cause -> new AtomicLong()).incrementAndGet();
+            }
+            return null;
+        }
+    }
+
+    private static String cause(Exception e) {
+        return e instanceof UnexpectedStatusException ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private void pause(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%n%d users, %.1f s measured after %.1f s warmup%n%n", properties.getUsers(), seconds,
+                properties.getWarmup().toMillis() / 1e3);
+        out.printf("%-32s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "step", "ok", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        List<String> errorLines = new ArrayList<>();
+        steps.forEach((name, step) -> {
+            LatencyHistogram latencies = step.latencies;
+            long errors = step.errors.values().stream().mapToLong(AtomicLong::get).sum();
+            out.printf("%-32s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, latencies.count(), errors,
+                    (latencies.count() + errors) / seconds,
+                    millis(latencies.percentileMicros(50)), millis(latencies.percentileMicros(90)),
+                    millis(latencies.percentileMicros(99)), millis(latencies.percentileMicros(99.9)),
+                    millis(latencies.maxMicros()));
+            step.errors.forEach((cause, count) -> errorLines.add(name + ": " + cause + " x" + count.get()));
+        });
+        out.printf("%n%d iterations, %.1f/s%n", iterations.get(), iterations.get() / seconds);
+        if (!errorLines.isEmpty()) {
+            out.printf("%nErrors%n");
+            errorLines.forEach(line -> out.println("  " + line));
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+
+    private static final class Step {
+
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    }
+
+    private static final class SimulatedUser {
+
+        final String name;
+        final Map<String, String> cookies = new LinkedHashMap<>();
+        boolean loggedIn;
+
+        SimulatedUser(String name) {
+            this.name = name;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StepAction<T> {
+        T run() throws Exception;
+    }
+
+    private static final class UnexpectedStatusException extends RuntimeException {
+
+        UnexpectedStatusException(int status) {
+            super("HTTP " + status);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.entra.load_test.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EngineDatasetTests {
+
+	private final EngineDataset dataset = new EngineDataset(properties());
+
+	@Test
+	void pagesInstancesNewestFirstWithTheAdaptersFilters() {
+		assertThat(dataset.countHistoricProcessInstances(Map.of())).isEqualTo(100);
+		assertThat(dataset.countHistoricProcessInstances(Map.of("unfinished", true))).isEqualTo(75);
+		assertThat(dataset.countHistoricProcessInstances(Map.of("finished", "true"))).isEqualTo(25);
+
+		Map<String, Object> newestFirst = Map.of("unfinished", true,
+				"sorting", List.of(Map.of("sortBy", "startTime", "sortOrder", "desc")));
+		List<Map<String, Object>> first = dataset.historicProcessInstances(newestFirst, 0, 3);
+		assertThat(first).extracting(row -> row.get("businessKey")).containsExactly("CASE-100099", "CASE-100098", "CASE-100097");
+		assertThat(first.get(0)).containsEntry("state", "ACTIVE").containsEntry("endTime", null);
+
+		// Keyset continuation as CaseQueryService does it: inclusive startedBefore, the boundary row comes back again
+		Map<String, Object> next = Map.of("unfinished", true, "startedBefore", first.get(2).get("startTime"),
+				"sorting", List.of(Map.of("sortBy", "startTime", "sortOrder", "desc")));
+		assertThat(dataset.historicProcessInstances(next, 0, 2)).extracting(row -> row.get("businessKey"))
+				.containsExactly("CASE-100097", "CASE-100095");
+
+		assertThat(dataset.historicProcessInstances(Map.of("processInstanceBusinessKeyIn", List.of("CASE-100001", "CASE-100004")), null, null))
+				.extracting(row -> row.get("state")).containsExactly("ACTIVE", "COMPLETED");
+	}
+
+	@Test
+	void completingTheTaskFinishesTheInstance() {
+		Map<String, Object> task = dataset.tasks(Map.of("processInstanceBusinessKey", "CASE-100001"), null, null).get(0);
+		String taskId = (String) task.get("id");
+		assertThat(dataset.variables(taskId, List.of("applicantName", "supportingNotes")))
+				.containsOnlyKeys("applicantName", "supportingNotes");
+
+		assertThat(dataset.completeTask(taskId)).isTrue();
+
+		assertThat(dataset.completeTask(taskId)).isFalse();
+		assertThat(dataset.task(taskId)).isNull();
+		assertThat(dataset.historicProcessInstance((String) task.get("processInstanceId"))).containsEntry("state", "COMPLETED");
+		assertThat(dataset.countTasks(Map.of())).isEqualTo(74);
+	}
+
+	@Test
+	void externalTasksAreReplacedWhenCompletedAndReleasedWhenFailed() throws InterruptedException {
+		ExternalTaskQueue queue = new ExternalTaskQueue(dataset, "fund-loan", 3);
+
+		List<Map<String, Object>> locked = queue.fetchAndLock("worker-1", 2, List.of("fund-loan"), 60_000, 0);
+		assertThat(locked).hasSize(2).allSatisfy(task -> assertThat(task.get("businessKey")).isNotNull());
+		assertThat(queue.fetchAndLock("worker-1", 5, List.of("other-topic"), 60_000, 0)).isEmpty();
+
+		assertThat(queue.complete((String) locked.get(0).get("id"), "worker-2")).isFalse();
+		assertThat(queue.complete((String) locked.get(0).get("id"), "worker-1")).isTrue();
+		assertThat(queue.failure((String) locked.get(1).get("id"), "worker-1")).isTrue();
+		assertThat(queue.available()).isEqualTo(3);
+
+		long start = System.nanoTime();
+		assertThat(queue.fetchAndLock("worker-1", 5, List.of("fund-loan"), 0, 0)).hasSize(3);
+		assertThat(queue.fetchAndLock("worker-1", 5, List.of("fund-loan"), 0, 200)).isEmpty();
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+		// Locks of zero duration have expired by now
+		queue.releaseExpiredLocks();
+		assertThat(queue.available()).isEqualTo(3);
+	}
+
+	private static EngineProperties properties() {
+		EngineProperties properties = new EngineProperties();
+		properties.setCases(100);
+		properties.setFinishedRatio(0.25);
+		return properties;
+	}
+}
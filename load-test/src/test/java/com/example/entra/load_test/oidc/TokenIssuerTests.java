@@ -0,0 +1,75 @@
+package com.example.entra.load_test.oidc;
+
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenIssuerTests {
+
+	private static final String REDIRECT_URI = "http://localhost:3001/v1/auth/session/accessToken";
+	private static final String VERIFIER = "dBjftJeZ4CVP-mB92K27uhbUJU1p1r_wW1gFWFOEjXk";
+
+	private final OidcProperties properties = new OidcProperties();
+	private final TokenIssuer issuer = new TokenIssuer(properties);
+
+	@Test
+	void redeemsCodeForTokensVerifiableWithTheJwks() throws Exception {
+		String code = issuer.authorize("load-test-client", REDIRECT_URI, "user-7", "openid Data.Read",
+				TokenIssuer.challenge(VERIFIER), "S256");
+
+		Map<String, Object> tokens = issuer.redeem(code, REDIRECT_URI, VERIFIER);
+
+		RSAKey key = JWKSet.parse(issuer.jwks()).getKeys().get(0).toRSAKey();
+		SignedJWT access = SignedJWT.parse((String) tokens.get("access_token"));
+		assertThat(access.verify(new RSASSAVerifier(key))).isTrue();
+		JWTClaimsSet claims = access.getJWTClaimsSet();
+		assertThat(claims.getIssuer()).isEqualTo("https://sts.windows.net/load-test/");
+		assertThat(claims.getStringClaim("scp")).isEqualTo("Data.Read Data.Write");
+		assertThat(claims.getStringListClaim("roles")).containsExactly("role.alpha", "role.beta");
+
+		JWTClaimsSet id = SignedJWT.parse((String) tokens.get("id_token")).getJWTClaimsSet();
+		assertThat(id.getIssuer()).isEqualTo("http://localhost:9000/load-test/v2.0");
+		assertThat(id.getStringClaim("name")).isEqualTo("user-7");
+		assertThat(id.getSubject()).isEqualTo(claims.getSubject());
+		assertThat(tokens).containsEntry("expires_in", 3600L).containsEntry("scope", "openid Data.Read");
+	}
+
+	@Test
+	void rejectsWrongVerifierAndReusedCode() {
+		String code = issuer.authorize("load-test-client", REDIRECT_URI, "user-1", null, TokenIssuer.challenge(VERIFIER), "S256");
+		assertThatThrownBy(() -> issuer.redeem(code, REDIRECT_URI, "another-verifier"))
+				.isInstanceOf(TokenIssuer.InvalidGrantException.class);
+		// The failed attempt used the code up
+		assertThatThrownBy(() -> issuer.redeem(code, REDIRECT_URI, VERIFIER))
+				.isInstanceOf(TokenIssuer.InvalidGrantException.class);
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> issuer.authorize("other-client", REDIRECT_URI, "user-1", null, null, null));
+	}
+
+	@Test
+	void refreshesOnlyItsOwnRefreshTokens() throws Exception {
+		String code = issuer.authorize("load-test-client", REDIRECT_URI, "user-3", null, null, null);
+		String refreshToken = (String) issuer.redeem(code, REDIRECT_URI, null).get("refresh_token");
+
+		Map<String, Object> refreshed = issuer.refresh(refreshToken, null);
+
+		assertThat(SignedJWT.parse((String) refreshed.get("id_token")).getJWTClaimsSet().getStringClaim("name")).isEqualTo("user-3");
+		TokenIssuer other = new TokenIssuer(properties);
+		String foreign = (String) other.redeem(other.authorize("load-test-client", REDIRECT_URI, "user-3", null, null, null),
+				REDIRECT_URI, null).get("refresh_token");
+		assertThatThrownBy(() -> issuer.refresh(foreign, null)).isInstanceOf(TokenIssuer.InvalidGrantException.class);
+		// An access token is not a refresh token, even though this issuer signed it
+		assertThatThrownBy(() -> issuer.refresh((String) refreshed.get("access_token"), null))
+				.isInstanceOf(TokenIssuer.InvalidGrantException.class);
+	}
+}
@@ -0,0 +1,36 @@
+package com.example.entra.load_test.runner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTests {
+
+	@Test
+	void percentilesStayWithinTheBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		// 1 ms to 10 s, one value per millisecond
+		for (long millis = 1; millis <= 10_000; millis++) {
+			histogram.recordNanos(millis * 1_000_000);
+		}
+
+		assertThat(histogram.count()).isEqualTo(10_000);
+		assertThat(histogram.maxMicros()).isEqualTo(10_000_000);
+		assertThat((double) histogram.percentileMicros(50)).isCloseTo(5_000_000, within(5_000_000 / 64.0));
+		assertThat((double) histogram.percentileMicros(99)).isCloseTo(9_900_000, within(9_900_000 / 64.0));
+		assertThat(histogram.percentileMicros(100)).isEqualTo(10_000_000);
+	}
+
+	@Test
+	void bucketsCoverEveryValueContiguously() {
+		for (long micros = 0; micros < 1 << 20; micros++) {
+			int index = LatencyHistogram.index(micros);
+			if (LatencyHistogram.upperBound(index) < micros || (index > 0 && LatencyHistogram.upperBound(index - 1) >= micros)) {
+				fail("Value " + micros + " is not in bucket " + index);
+			}
+		}
+		assertThat(new LatencyHistogram().percentileMicros(99)).isZero();
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.entra.load_test.runner;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScenarioRunnerTests {
+
+	private HttpServer server;
+	private String origin;
+	private final AtomicInteger logins = new AtomicInteger();
+	private final AtomicInteger unauthenticated = new AtomicInteger();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		origin = "http://127.0.0.1:" + server.getAddress().getPort();
+		// BFF: the session cookie is set with the code URL and must come back on the callback and afterwards
+		server.createContext("/v1/auth/session/codeUrl", exchange -> {
+			exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID=s" + logins.incrementAndGet() + "; Path=/; HttpOnly");
+			respond(exchange, 200, "{\"url\":\"" + origin + "/authorize?client_id=load-test-client\"}");
+		});
+		server.createContext("/authorize", exchange -> {
+			String query = exchange.getRequestURI().getQuery();
+			exchange.getResponseHeaders().add("Location", origin + "/v1/auth/session/accessToken?code=" + query.substring(query.indexOf("login_hint=") + 11));
+			respond(exchange, 302, "");
+		});
+		server.createContext("/v1/auth/session/accessToken", exchange -> {
+			exchange.getResponseHeaders().add("Location", "http://localhost:5173");
+			respond(exchange, hasSession(exchange) ? 302 : 400, "");
+		});
+		server.createContext("/v1/auth/me", exchange -> respond(exchange, hasSession(exchange) ? 200 : 401, "{}"));
+		server.createContext("/v1/proxy/data/metrics", exchange -> respond(exchange, hasSession(exchange) ? 200 : 401, "{}"));
+		server.createContext("/v1/proxy/data/analytics", exchange -> respond(exchange, 403, ""));
+		// Orchestrator
+		server.createContext("/workflow/cases", exchange -> respond(exchange, 200, "[{\"caseId\":\"1\",\"businessKey\":\"CASE-1\"}]"));
+		server.createContext("/workflow/case/CASE-1/detail", exchange -> respond(exchange, 200, "{\"partial\":false}"));
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void logsInOncePerUserAndReportsEveryStep() throws InterruptedException {
+		RunnerProperties properties = new RunnerProperties();
+		properties.setBffUrl(origin);
+		properties.setOrchestratorUrl(origin);
+		properties.setUsers(3);
+		properties.setWarmup(Duration.ZERO);
+		properties.setDuration(Duration.ofMillis(500));
+		ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+		new ScenarioRunner(properties, JsonMapper.builder().build(), new PrintStream(report, true, StandardCharsets.UTF_8)).run(null);
+
+		String text = report.toString(StandardCharsets.UTF_8);
+		assertThat(logins).hasValue(3);
+		assertThat(unauthenticated).hasValue(0);
+		List<String> lines = text.lines().toList();
+		assertThat(lines).anySatisfy(line -> assertThat(line).matches("login\\s+3\\s+0\\s.*"));
+		assertThat(lines).anySatisfy(line -> assertThat(line).matches("/v1/proxy/data/metrics\\s+[1-9]\\d*\\s+0\\s.*"));
+		assertThat(lines).anySatisfy(line -> assertThat(line).matches("case detail\\s+[1-9]\\d*\\s+0\\s.*"));
+		assertThat(lines).anySatisfy(line -> assertThat(line).matches("\\s+/v1/proxy/data/analytics: HTTP 403 x[1-9]\\d*"));
+	}
+
+	private boolean hasSession(HttpExchange exchange) {
+		String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+		boolean present = cookie != null && cookie.matches("JSESSIONID=s\\d+");
+		if (!present) {
+			unauthenticated.incrementAndGet();
+		}
+		return present;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -1,24 +1,65 @@
 package com.example.orchestrator.client;
 
+import feign.Request;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
 
-@FeignClient(name = "camunda-adapter", url = "http://localhost:8082/workflow")
+@FeignClient(name = "camunda-adapter", url = "http://localhost:8082/workflow", configuration = CamundaClientConfiguration.class)
 public interface CamundaClient {
 
     @GetMapping("/cases")
-    List<Map<String, Object>> getCases(@RequestParam(value = "status", required = false) String status);
+    ResponseEntity<List<Map<String, Object>>> getCases(@RequestParam(value = "status", required = false) String status,
+                                                       @RequestParam(value = "limit", required = false) Integer limit,
+                                                       @RequestParam(value = "cursor", required = false) String cursor,
+                                                       @RequestParam(value = "fields", required = false) String fields);
+
+    // Raw response so the NDJSON export can be streamed through without buffering it
+    @GetMapping(value = "/cases", produces = "application/x-ndjson")
+    Response exportCases(@RequestParam(value = "status", required = false) String status,
+                         @RequestParam(value = "fields", required = false) String fields);
 
     @GetMapping("/case/{id}/macro")
     Map<String, Object> getMacro(@PathVariable("id") String id);
 
+    @GetMapping("/case/{id}/macro")
+    Map<String, Object> getMacro(@PathVariable("id") String id, Request.Options options);
+
+    @PostMapping("/cases/macro")
+    Map<String, Map<String, Object>> getMacros(@RequestBody List<String> lookupIds);
+
+    @GetMapping("/task/{taskId}/micro")
+    Map<String, Object> getMicro(@PathVariable("taskId") String taskId,
+                                 @RequestParam(value = "variables", required = false) List<String> variables,
+                                 @RequestParam(value = "deserializeValues", required = false) Boolean deserializeValues);
+
+    // Same call with its own connect/read timeouts, for callers that would rather go without than wait
     @GetMapping("/task/{taskId}/micro")
-    Map<String, Object> getMicro(@PathVariable("taskId") String taskId);
+    Map<String, Object> getMicro(@PathVariable("taskId") String taskId,
+                                 @RequestParam(value = "variables", required = false) List<String> variables,
+                                 @RequestParam(value = "deserializeValues", required = false) Boolean deserializeValues,
+                                 Request.Options options);
+
+    // Raw response so large variables behind the micro view's lazy handles are streamed, not buffered
+    @GetMapping("/task/{taskId}/variables/{name}")
+    Response getTaskVariable(@PathVariable("taskId") String taskId, @PathVariable("name") String name);
 
     @PostMapping("/task/{taskId}/complete")
     String completeTask(@PathVariable("taskId") String taskId, @RequestBody Map<String, Object> vars);
+
+    // 200 with every task's result, or 202 with a job whose Location is polled via getCompletionJob
+    @PostMapping("/tasks/complete")
+    ResponseEntity<Map<String, Object>> completeTasks(@RequestBody List<Map<String, Object>> completions,
+                                                      @RequestParam(value = "async", required = false) Boolean async);
+
+    @GetMapping("/tasks/complete/{jobId}")
+    Map<String, Object> getCompletionJob(@PathVariable("jobId") String jobId);
     
     @PostMapping("/case/{businessKey}/sign")
     String signDocuments(@PathVariable("businessKey") String businessKey);
+
+    @PostMapping("/cases/sign")
+    Map<String, Object> signDocumentsBulk(@RequestBody List<String> businessKeys);
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.orchestrator.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.MethodMetadata;
+import feign.RequestInterceptor;
+import feign.Response;
+import feign.codec.ErrorDecoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire format of the {@link CamundaClient} link: Smile bodies, gzip-compressed, with JSON as the fallback.
+ * <p>
+ * Deliberately not a {@code @Configuration}: its beans only apply to that client, so the orchestrator's
+ * own endpoints keep answering React in JSON.
+ */
+public class CamundaClientConfiguration {
+
+    static final String SMILE = "application/x-jackson-smile";
+
+    /** Lets the client read Smile responses; JSON stays first, so request bodies are still sent as JSON. */
+    @Bean
+    public HttpMessageConverterCustomizer smileConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return converters -> converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper(objectMapperBuilder)));
+    }
+
+    /**
+     * Turns Smile error bodies back into JSON, so {@code FeignException#contentUTF8()} stays readable
+     * wherever the orchestrator passes an adapter error on.
+     */
+    @Bean
+    public ErrorDecoder errorDecoder(Jackson2ObjectMapperBuilder objectMapperBuilder, ObjectMapper objectMapper) {
+        ObjectMapper smileMapper = smileMapper(objectMapperBuilder);
+        ErrorDecoder errors = new ErrorDecoder.Default();
+        return (methodKey, response) -> {
+            MediaType contentType = response.headers().getOrDefault(HttpHeaders.CONTENT_TYPE, List.of()).stream()
+                    .findFirst().map(MediaType::parseMediaType).orElse(null);
+            if (response.body() == null || contentType == null || !contentType.isCompatibleWith(MediaType.parseMediaType(SMILE))) {
+                return errors.decode(methodKey, response);
+            }
+            byte[] body;
+            try (InputStream in = response.body().asInputStream()) {
+                body = objectMapper.writeValueAsBytes(smileMapper.readTree(in));
+            } catch (IOException e) {
+                body = null;
+            }
+            Map<String, Collection<String>> headers = new LinkedHashMap<>(response.headers());
+            headers.keySet().removeIf(HttpHeaders.CONTENT_TYPE::equalsIgnoreCase);
+            headers.put(HttpHeaders.CONTENT_TYPE, List.of(MediaType.APPLICATION_JSON_VALUE));
+            return errors.decode(methodKey, response.toBuilder().headers(headers).body(body).build());
+        };
+    }
+
+    @Bean
+    public RequestInterceptor wireFormat(@Value("${app.adapter.smile.enabled:true}") boolean smile,
+                                         @Value("${app.adapter.compression.enabled:true}") boolean compression) {
+        return template -> {
+            // Feign's default client inflates gzip and deflate responses itself
+            if (compression && !template.headers().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+                template.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+            }
+            if (smile && !template.headers().containsKey(HttpHeaders.ACCEPT) && decodesBody(template.methodMetadata())) {
+                template.header(HttpHeaders.ACCEPT, SMILE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9");
+            }
+        };
+    }
+
+    private static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return objectMapperBuilder.createXmlMapper(false).factory(new SmileFactory()).build();
+    }
+
+    // Plain-text answers and raw streams are passed on untouched, so only ask for Smile where a body is decoded
+    private static boolean decodesBody(MethodMetadata metadata) {
+        return metadata != null && metadata.returnType() != String.class && metadata.returnType() != Response.class;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.orchestrator.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares one adapter call between concurrent identical reads.
+ * <p>
+ * When a shift starts and hundreds of users open the dashboard at once, the first request for a given
+ * method and arguments calls the adapter and everyone asking for the same thing meanwhile waits for,
+ * and gets, that result. With {@code app.reads.cache-window} above zero the result is also reused for
+ * that long after it arrived. Callers share the returned object, so they must not modify it.
+ * <p>
+ * Writes call {@link #invalidate()}: reads already in flight are no longer joined, nothing cached is
+ * reused, and the next read goes to the adapter, so nobody sees a page older than their own write.
+ */
+@Component
+public class ReadCoalescer {
+
+    private final long cacheWindowNanos;
+    private final Map<List<Object>, Flight> flights = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    public ReadCoalescer(@Value("${app.reads.cache-window:0s}") Duration cacheWindow) {
+        this.cacheWindowNanos = cacheWindow.toNanos();
+    }
+
+    /**
+     * @param key      the method and its arguments, compared by value
+     * @param upstream the adapter call, made on the calling thread if no identical one is in flight
+     * @throws RuntimeException whatever the shared call threw, so callers can keep mapping Feign errors
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(List<Object> key, Supplier<T> upstream) {
+        sweep();
+        Flight flight = new Flight();
+        Flight current = flights.compute(key, (k, existing) -> existing != null && existing.isUsable(cacheWindowNanos) ? existing : flight);
+        if (current != flight) {
+            return (T) join(current.result);
+        }
+        try {
+            T value = upstream.get();
+            flight.complete(value);
+            if (cacheWindowNanos == 0) {
+                flights.remove(key, flight);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            // Failures are handed to whoever joined, but never reused
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public static List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    /** Called after every write so later reads go back to the adapter. */
+    public void invalidate() {
+        flights.clear();
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        if (cacheWindowNanos > 0 && now - lastSweep > cacheWindowNanos) {
+            lastSweep = now;
+            flights.values().removeIf(flight -> !flight.isUsable(cacheWindowNanos));
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        void complete(Object value) {
+            completedAt = System.nanoTime();
+            result.complete(value);
+        }
+
+        /** In flight, or finished less than the cache window ago. */
+        boolean isUsable(long cacheWindowNanos) {
+            return !result.isDone() || (!result.isCompletedExceptionally() && System.nanoTime() - completedAt < cacheWindowNanos);
+        }
+    }
+}
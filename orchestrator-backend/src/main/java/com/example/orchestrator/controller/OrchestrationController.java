@@ -1,7 +1,15 @@
 package com.example.orchestrator.controller;
 
 import com.example.orchestrator.client.CamundaClient;
+import com.example.orchestrator.client.ReadCoalescer;
+import com.example.orchestrator.service.CaseDetailService;
+import feign.FeignException;
+import feign.Response;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -9,31 +17,208 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/workflow")
 public class OrchestrationController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_FINISHED_JOBS = 1024;
+
     @Autowired
     private CamundaClient camundaClient;
+    @Autowired
+    private ReadCoalescer reads;
+    @Autowired
+    private CaseDetailService caseDetailService;
 
-    // React calls this via: fetch('/workflow/cases?status=running')
+    // Completion jobs already seen finished, oldest dropped first; polling one of them again changes nothing
+    private final Set<String> finishedJobs = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_FINISHED_JOBS;
+        }
+    }));
+
+    // React calls this via: fetch('/workflow/cases?status=running'); further pages pass back X-Next-Cursor as ?cursor=
     @GetMapping("/cases")
-    public List<Map<String, Object>> getDashboard(@RequestParam(required = false) String status) {
-        return camundaClient.getCases(status);
+    public ResponseEntity<List<Map<String, Object>>> getDashboard(@RequestParam(required = false) String status,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) String fields) {
+        ResponseEntity<List<Map<String, Object>>> page;
+        try {
+            page = reads.read(ReadCoalescer.key("getCases", status, limit, cursor, fields),
+                    () -> camundaClient.getCases(status, limit, cursor, fields));
+        } catch (FeignException.BadRequest e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.contentUTF8());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String nextCursor = page.getHeaders().getFirst(NEXT_CURSOR_HEADER);
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(page.getBody());
+    }
+
+    // Full listing for downloads, streamed through from the adapter as it arrives
+    @GetMapping(value = "/cases", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportCases(@RequestParam(required = false) String status,
+                                                             @RequestParam(required = false) String fields) throws IOException {
+        Response upstream = camundaClient.exportCases(status, fields);
+        if (upstream.status() != HttpStatus.OK.value()) {
+            throw failed(upstream);
+        }
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(streamed(upstream));
     }
 
     // React calls this to get the Roadmap/Chevron data
     @GetMapping("/case/{id}/macro")
     public Map<String, Object> getRoadmap(@PathVariable String id) {
-        return camundaClient.getMacro(id);
+        return reads.read(ReadCoalescer.key("getMacro", id), () -> camundaClient.getMacro(id));
+    }
+
+    // React calls this when a case is opened: roadmap, active task and form variables in one round trip.
+    // Passing the taskId from the dashboard row lets both be fetched at once; "partial" is true if the task was too slow
+    @GetMapping("/case/{id}/detail")
+    public Map<String, Object> getCaseDetail(@PathVariable String id,
+                                             @RequestParam(required = false) String taskId,
+                                             @RequestParam(required = false) List<String> variables) {
+        return caseDetailService.detail(id, taskId, variables);
+    }
+
+    // Task details and form variables; large ones come back as handles listed in lazyVariables
+    @GetMapping("/task/{taskId}/micro")
+    public Map<String, Object> getTaskView(@PathVariable String taskId,
+                                           @RequestParam(required = false) List<String> variables,
+                                           @RequestParam(required = false) Boolean deserializeValues) {
+        return reads.read(ReadCoalescer.key("getMicro", taskId, variables, deserializeValues),
+                () -> camundaClient.getMicro(taskId, variables, deserializeValues));
+    }
+
+    // React follows a lazy handle from the micro view here; the content is streamed through as it arrives
+    @GetMapping("/task/{taskId}/variables/{name}")
+    public ResponseEntity<StreamingResponseBody> getTaskVariable(@PathVariable String taskId,
+                                                                 @PathVariable String name) throws IOException {
+        Response upstream = camundaClient.getTaskVariable(taskId, name);
+        if (upstream.status() != HttpStatus.OK.value()) {
+            throw failed(upstream);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String contentType = firstHeader(upstream, HttpHeaders.CONTENT_TYPE);
+        if (contentType != null) {
+            response.contentType(MediaType.parseMediaType(contentType));
+        }
+        String contentDisposition = firstHeader(upstream, HttpHeaders.CONTENT_DISPOSITION);
+        if (contentDisposition != null) {
+            response.header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        return response.body(streamed(upstream));
+    }
+
+    // React calls this once per dashboard page with every row's case id, instead of /macro per row
+    @PostMapping("/cases/macro")
+    public Map<String, Map<String, Object>> getRoadmaps(@RequestBody List<String> lookupIds) {
+        try {
+            return reads.read(ReadCoalescer.key("getMacros", lookupIds), () -> camundaClient.getMacros(lookupIds));
+        } catch (FeignException.BadRequest e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.contentUTF8());
+        }
     }
 
     // React calls this when a user submits the checklist/form
     @PostMapping("/task/{id}/complete")
     public String completeUserWork(@PathVariable String id, @RequestBody Map<String, Object> payload) {
-        return camundaClient.completeTask(id, payload);
+        try {
+            return camundaClient.completeTask(id, payload);
+        } finally {
+            // The task's case has moved on: its listing rows and roadmap must not be served from before the write
+            reads.invalidate();
+        }
+    }
+
+    // Bulk approvals: [{"taskId": ..., "variables": {...}}, ...]; large batches come back 202 with a job to poll.
+    // Those only read their own writes once a poll has seen the job finish
+    @PostMapping("/tasks/complete")
+    public ResponseEntity<Map<String, Object>> completeUserWorkBulk(@RequestBody List<Map<String, Object>> completions,
+                                                                    @RequestParam(required = false) Boolean async) {
+        ResponseEntity<Map<String, Object>> upstream;
+        try {
+            upstream = camundaClient.completeTasks(completions, async);
+        } catch (FeignException.BadRequest e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.contentUTF8());
+        } finally {
+            reads.invalidate();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(upstream.getStatusCode());
+        // The adapter's job URL is also this controller's, so it is passed on as is
+        String location = upstream.getHeaders().getFirst(HttpHeaders.LOCATION);
+        if (location != null) {
+            response.header(HttpHeaders.LOCATION, location);
+        }
+        return response.body(upstream.getBody());
+    }
+
+    @GetMapping("/tasks/complete/{jobId}")
+    public Map<String, Object> getCompletionJob(@PathVariable String jobId) {
+        Map<String, Object> job;
+        try {
+            job = camundaClient.getCompletionJob(jobId);
+        } catch (FeignException.NotFound e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.contentUTF8());
+        }
+        // The invalidation on the 202 came before any task was completed, so reads made while the job
+        // ran can hold rows from before its writes; the first poll that sees it finished drops them again
+        if (!"RUNNING".equals(job.get("state")) && finishedJobs.add(jobId)) {
+            reads.invalidate();
+        }
+        return job;
+    }
+
+    // The e-signature provider's nightly batch: one call for all business keys, with a result per key
+    @PostMapping("/cases/sign")
+    public Map<String, Object> signDocumentsBulk(@RequestBody List<String> businessKeys) {
+        try {
+            return camundaClient.signDocumentsBulk(businessKeys);
+        } catch (FeignException.BadRequest e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.contentUTF8());
+        } finally {
+            reads.invalidate();
+        }
+    }
+
+    // Raw adapter responses are not run through Feign's error decoder, so failures are mapped here
+    private static ResponseStatusException failed(Response upstream) throws IOException {
+        String reason;
+        try (upstream) {
+            reason = upstream.body() == null ? null : new String(upstream.body().asInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+        return new ResponseStatusException(HttpStatus.valueOf(upstream.status()), reason);
+    }
+
+    private static StreamingResponseBody streamed(Response upstream) {
+        return out -> {
+            try (upstream; InputStream in = upstream.body().asInputStream()) {
+                in.transferTo(out);
+            }
+        };
+    }
+
+    private static String firstHeader(Response upstream, String name) {
+        Collection<String> values = upstream.headers().get(name);
+        return values == null || values.isEmpty() ? null : values.iterator().next();
     }
 }
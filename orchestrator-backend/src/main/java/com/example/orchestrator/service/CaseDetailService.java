@@ -0,0 +1,135 @@
+package com.example.orchestrator.service;
+
+import com.example.orchestrator.client.CamundaClient;
+import com.example.orchestrator.client.ReadCoalescer;
+import feign.Request;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Everything the case screen shows, i.e. the roadmap and the active task with its form variables, in one call.
+ * <p>
+ * When the caller already knows the active task id, the macro and micro views are fetched in parallel;
+ * otherwise the micro view follows the macro view's {@code activeTaskId}. Each call has its own budget
+ * ({@code app.case-detail.macro-timeout}, {@code app.case-detail.micro-timeout}). Without the roadmap
+ * there is nothing to show, so a failed macro call fails the request; a slow or failed micro call only
+ * leaves the task out and marks the result partial.
+ * <p>
+ * The budget is part of the {@link ReadCoalescer} key, so these calls are only shared with calls under the
+ * same budget and a plain {@code /macro} or {@code /micro} request never joins one that gives up early.
+ */
+@Service
+public class CaseDetailService {
+
+    private final CamundaClient camundaClient;
+    private final ReadCoalescer reads;
+    private final Duration macroTimeout;
+    private final Duration microTimeout;
+    private final ExecutorService pool;
+
+    public CaseDetailService(CamundaClient camundaClient, ReadCoalescer reads,
+                             @Value("${app.case-detail.macro-timeout:2s}") Duration macroTimeout,
+                             @Value("${app.case-detail.micro-timeout:1s}") Duration microTimeout,
+                             @Value("${app.case-detail.concurrency:32}") int concurrency) {
+        this.camundaClient = camundaClient;
+        this.reads = reads;
+        this.macroTimeout = macroTimeout;
+        this.microTimeout = microTimeout;
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "case-detail-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param taskId    the active task as the caller last saw it, or null; a stale id costs one extra call
+     * @param variables micro view variables to load, null for all
+     * @return {@code roadmap}, {@code task} (null when there is no active task or it could not be loaded in
+     * time), {@code partial}, and {@code errors} naming what is missing and why
+     */
+    public Map<String, Object> detail(String lookupId, String taskId, List<String> variables) {
+        CompletableFuture<Map<String, Object>> macro = call(() -> reads.read(ReadCoalescer.key("getMacro", lookupId, macroTimeout),
+                () -> camundaClient.getMacro(lookupId, options(macroTimeout))), macroTimeout);
+        CompletableFuture<Map<String, Object>> micro = taskId == null ? null : micro(taskId, variables);
+
+        Map<String, Object> roadmap;
+        try {
+            roadmap = await(macro);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Roadmap not available within " + macroTimeout.toMillis() + " ms");
+        }
+
+        Map<String, Object> res = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        res.put("roadmap", roadmap);
+        Object activeTaskId = roadmap.get("activeTaskId");
+        Map<String, Object> task = null;
+        if (activeTaskId != null) {
+            if (micro == null || !activeTaskId.equals(taskId)) {
+                micro = micro(activeTaskId.toString(), variables);
+            }
+            try {
+                task = await(micro);
+            } catch (TimeoutException e) {
+                errors.put("task", "Not available within " + microTimeout.toMillis() + " ms");
+            } catch (RuntimeException e) {
+                errors.put("task", String.valueOf(e.getMessage()));
+            }
+        }
+        res.put("task", task);
+        res.put("partial", !errors.isEmpty());
+        res.put("errors", errors);
+        return res;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private CompletableFuture<Map<String, Object>> micro(String taskId, List<String> variables) {
+        return call(() -> reads.read(ReadCoalescer.key("getMicro", taskId, variables, null, microTimeout),
+                () -> camundaClient.getMicro(taskId, variables, null, options(microTimeout))), microTimeout);
+    }
+
+    // Ends the HTTP call itself too, so a slow adapter does not keep pool threads busy after the caller gave up
+    private static Request.Options options(Duration timeout) {
+        return new Request.Options(timeout, timeout, true);
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<T> upstream, Duration timeout) {
+        return CompletableFuture.supplyAsync(upstream, pool).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> T await(CompletableFuture<T> call) throws TimeoutException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException timeout) throw timeout;
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.orchestrator.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReadCoalescerTests {
+
+	private static final List<Object> KEY = ReadCoalescer.key("getCases", "running", null);
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Test
+	void joinsACallInFlight() throws Exception {
+		ReadCoalescer reads = new ReadCoalescer(Duration.ZERO);
+		Object result = new Object();
+		Reader first = start(() -> reads.read(KEY, () -> {
+			upstreamCalls.incrementAndGet();
+			await(release);
+			return result;
+		}));
+		awaitUpstreamCalls(1);
+
+		Reader second = start(() -> reads.read(KEY, this::countedCall));
+		awaitBlocked(second);
+		release.countDown();
+
+		assertThat(first.result().get(5, TimeUnit.SECONDS)).isSameAs(result);
+		assertThat(second.result().get(5, TimeUnit.SECONDS)).isSameAs(result);
+		assertThat(upstreamCalls).hasValue(1);
+	}
+
+	@Test
+	void failuresAreHandedToJoinersButNotReused() throws Exception {
+		ReadCoalescer reads = new ReadCoalescer(Duration.ofMinutes(1));
+		IllegalStateException failure = new IllegalStateException("adapter down");
+		Reader first = start(() -> reads.read(KEY, () -> {
+			upstreamCalls.incrementAndGet();
+			await(release);
+			throw failure;
+		}));
+		awaitUpstreamCalls(1);
+
+		Reader second = start(() -> reads.read(KEY, this::countedCall));
+		awaitBlocked(second);
+		release.countDown();
+
+		assertThatThrownBy(() -> first.result().get(5, TimeUnit.SECONDS)).hasCause(failure);
+		assertThatThrownBy(() -> second.result().get(5, TimeUnit.SECONDS)).hasCause(failure);
+		assertThat(reads.read(KEY, this::countedCall)).isEqualTo("fresh");
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	@Test
+	void callInFlightIsNotJoinedAfterInvalidate() throws Exception {
+		ReadCoalescer reads = new ReadCoalescer(Duration.ofMinutes(1));
+		Reader first = start(() -> reads.read(KEY, () -> {
+			upstreamCalls.incrementAndGet();
+			await(release);
+			return "stale";
+		}));
+		awaitUpstreamCalls(1);
+
+		reads.invalidate();
+
+		assertThat(reads.read(KEY, this::countedCall)).isEqualTo("fresh");
+		release.countDown();
+		assertThat(first.result().get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+		assertThat(reads.read(KEY, this::countedCall)).isEqualTo("fresh");
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	@Test
+	void reusesAResultForTheCacheWindowOnly() throws Exception {
+		ReadCoalescer reads = new ReadCoalescer(Duration.ofMillis(200));
+
+		assertThat(reads.read(KEY, this::countedCall)).isEqualTo("fresh");
+		assertThat(reads.read(KEY, this::countedCall)).isEqualTo("fresh");
+		assertThat(reads.read(ReadCoalescer.key("getCases", "done", null), this::countedCall)).isEqualTo("fresh");
+		assertThat(upstreamCalls).hasValue(2);
+
+		Thread.sleep(300);
+
+		assertThat(reads.read(KEY, this::countedCall)).isEqualTo("fresh");
+		assertThat(upstreamCalls).hasValue(3);
+	}
+
+	@Test
+	void withoutACacheWindowEveryFinishedCallIsRepeated() {
+		ReadCoalescer reads = new ReadCoalescer(Duration.ZERO);
+
+		reads.read(KEY, this::countedCall);
+		reads.read(KEY, this::countedCall);
+
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	private Object countedCall() {
+		upstreamCalls.incrementAndGet();
+		return "fresh";
+	}
+
+	private void awaitUpstreamCalls(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (upstreamCalls.get() < expected) {
+			assertThat(System.currentTimeMillis()).as("waiting for the upstream call").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	// Once the reader is parked it has joined the flight rather than calling upstream itself
+	private static void awaitBlocked(Reader reader) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (reader.thread().getState() != Thread.State.WAITING) {
+			assertThat(reader.result().isDone()).as("reader finished without joining").isFalse();
+			assertThat(System.currentTimeMillis()).as("waiting for the reader to join").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	private static Reader start(Callable<Object> read) {
+		FutureTask<Object> result = new FutureTask<>(read);
+		Thread thread = new Thread(result);
+		thread.setDaemon(true);
+		thread.start();
+		return new Reader(thread, result);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private record Reader(Thread thread, FutureTask<Object> result) {
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.orchestrator.controller;
+
+import com.example.orchestrator.client.CamundaClient;
+import com.example.orchestrator.client.ReadCoalescer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrchestrationControllerTests {
+
+	@Mock
+	private CamundaClient camundaClient;
+	@Mock
+	private ReadCoalescer reads;
+	@InjectMocks
+	private OrchestrationController controller;
+
+	@Test
+	void invalidatesReadsOnlyOnTheFirstPollThatSeesAJobFinished() {
+		when(camundaClient.getCompletionJob("job-1"))
+				.thenReturn(Map.of("state", "RUNNING"))
+				.thenReturn(Map.of("state", "DONE"));
+
+		controller.getCompletionJob("job-1");
+		verify(reads, never()).invalidate();
+
+		controller.getCompletionJob("job-1");
+		controller.getCompletionJob("job-1");
+		controller.getCompletionJob("job-1");
+		verify(reads).invalidate();
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.orchestrator.service;
+
+import com.example.orchestrator.client.CamundaClient;
+import com.example.orchestrator.client.ReadCoalescer;
+import feign.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CaseDetailServiceTests {
+
+	private final CamundaClient camundaClient = mock(CamundaClient.class);
+	private final ReadCoalescer reads = new ReadCoalescer(Duration.ZERO);
+	private final CaseDetailService service = new CaseDetailService(camundaClient, reads, Duration.ofMillis(500),
+			Duration.ofMillis(200), 4);
+
+	@AfterEach
+	void shutdown() {
+		service.shutdown();
+	}
+
+	@Test
+	void fetchesMacroAndMicroInParallelWhenTheTaskIsKnown() {
+		CountDownLatch microStarted = new CountDownLatch(1);
+		AtomicBoolean parallel = new AtomicBoolean();
+		when(camundaClient.getMacro(eq("case-1"), any(Request.Options.class))).thenAnswer(call -> {
+			parallel.set(microStarted.await(400, TimeUnit.MILLISECONDS));
+			return Map.of("activeTaskId", "task-1");
+		});
+		when(camundaClient.getMicro(eq("task-1"), any(), any(), any(Request.Options.class))).thenAnswer(call -> {
+			microStarted.countDown();
+			return Map.of("id", "task-1");
+		});
+
+		Map<String, Object> detail = service.detail("case-1", "task-1", null);
+
+		assertThat(parallel).isTrue();
+		assertThat(detail).containsEntry("task", Map.of("id", "task-1")).containsEntry("partial", false);
+		assertThat(detail.get("roadmap")).isEqualTo(Map.of("activeTaskId", "task-1"));
+	}
+
+	@Test
+	void followsTheRoadmapWhenTheTaskIdIsStale() {
+		when(camundaClient.getMacro(eq("case-1"), any(Request.Options.class))).thenReturn(Map.of("activeTaskId", "task-2"));
+		when(camundaClient.getMicro(anyString(), any(), any(), any(Request.Options.class)))
+				.thenAnswer(call -> Map.of("id", call.getArgument(0)));
+
+		Map<String, Object> detail = service.detail("case-1", "task-1", null);
+
+		assertThat(detail).containsEntry("task", Map.of("id", "task-2")).containsEntry("partial", false);
+		verify(camundaClient).getMicro(eq("task-2"), any(), any(), any(Request.Options.class));
+	}
+
+	@Test
+	void leavesOutATaskThatIsTooSlow() {
+		when(camundaClient.getMacro(eq("case-1"), any(Request.Options.class))).thenReturn(Map.of("activeTaskId", "task-1"));
+		when(camundaClient.getMicro(eq("task-1"), any(), any(), any(Request.Options.class))).thenAnswer(call -> {
+			Thread.sleep(2000);
+			return Map.of("id", "task-1");
+		});
+
+		Map<String, Object> detail = service.detail("case-1", "task-1", null);
+
+		assertThat(detail).containsEntry("partial", true).containsEntry("task", null);
+		assertThat(detail.get("roadmap")).isEqualTo(Map.of("activeTaskId", "task-1"));
+		assertThat(detail.get("errors")).isEqualTo(Map.of("task", "Not available within 200 ms"));
+	}
+
+	@Test
+	void leavesOutATaskThatFails() {
+		when(camundaClient.getMacro(eq("case-1"), any(Request.Options.class))).thenReturn(Map.of("activeTaskId", "task-1"));
+		when(camundaClient.getMicro(eq("task-1"), any(), any(), any(Request.Options.class)))
+				.thenThrow(new IllegalStateException("adapter down"));
+
+		Map<String, Object> detail = service.detail("case-1", null, null);
+
+		assertThat(detail).containsEntry("partial", true).containsEntry("task", null);
+		assertThat(detail.get("errors")).isEqualTo(Map.of("task", "adapter down"));
+	}
+
+	@Test
+	void failsWithGatewayTimeoutWithoutTheRoadmap() {
+		when(camundaClient.getMacro(eq("case-1"), any(Request.Options.class))).thenAnswer(call -> {
+			Thread.sleep(2000);
+			return Map.of();
+		});
+
+		assertThatThrownBy(() -> service.detail("case-1", null, null))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT));
+		verify(camundaClient, never()).getMicro(anyString(), any(), any(), any(Request.Options.class));
+	}
+
+	@Test
+	void plainMicroReadDoesNotJoinATimedOne() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		when(camundaClient.getMacro(anyString(), any(Request.Options.class))).thenReturn(Map.of("activeTaskId", "task-1"));
+		when(camundaClient.getMicro(eq("task-1"), any(), any(), any(Request.Options.class))).thenAnswer(call -> {
+			release.await(5, TimeUnit.SECONDS);
+			return Map.of("id", "task-1");
+		});
+
+		// The detail call gives up on the micro view, whose adapter call is still in flight
+		assertThat(service.detail("case-1", "task-1", null)).containsEntry("partial", true);
+
+		Map<String, Object> plain = reads.read(ReadCoalescer.key("getMicro", "task-1", null, null),
+				() -> Map.of("id", "task-1", "plain", true));
+		release.countDown();
+
+		assertThat(plain).containsEntry("plain", true);
+	}
+}
@@ -45,6 +45,16 @@ function App() {
     fetchAnalytics()
   }, [])
 
+  // Live updates: the BFF relays data-backend's event stream and the browser reconnects on its own
+  useEffect(() => {
+    const events = new EventSource('http://localhost:3001/v1/proxy/data/analytics/stream', { withCredentials: true })
+    events.addEventListener('analytics', (event) => {
+      setData(JSON.parse((event as MessageEvent).data))
+      setError(null)
+    })
+    return () => events.close()
+  }, [])
+
   return (
     <div className="analytics-container">
       <h2>Analytics Dashboard</h2>
@@ -24,5 +24,27 @@ export const workflowService = {
     const response = await fetch(`/workflow/case/${lookupId}/macro`);
     if (!response.ok) throw new Error('Failed to fetch roadmap');
     return response.json();
+  },
+
+  // Fetches the roadmap, active task and form variables in one request; pass the row's task id if known.
+  // `partial` is true when the task could not be loaded in time, with the reason under `errors.task`
+  fetchCaseDetail: async (lookupId: string, taskId?: string) => {
+    const url = taskId
+      ? `/workflow/case/${lookupId}/detail?taskId=${encodeURIComponent(taskId)}`
+      : `/workflow/case/${lookupId}/detail`;
+    const response = await fetch(url);
+    if (!response.ok) throw new Error('Failed to fetch case detail');
+    return response.json();
+  },
+
+  // Fetches the macro roadmaps of many cases in one request, keyed by the requested id
+  fetchMacroViews: async (lookupIds: string[]): Promise<Record<string, any>> => {
+    const response = await fetch('/workflow/cases/macro', {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify(lookupIds)
+    });
+    if (!response.ok) throw new Error('Failed to fetch roadmaps');
+    return response.json();
   }
 };
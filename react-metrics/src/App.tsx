@@ -45,6 +45,16 @@ function App() {
     fetchMetrics()
   }, [])
 
+  // Live updates: the BFF relays data-backend's event stream and the browser reconnects on its own
+  useEffect(() => {
+    const events = new EventSource('http://localhost:3001/v1/proxy/data/metrics/stream', { withCredentials: true })
+    events.addEventListener('metrics', (event) => {
+      setData(JSON.parse((event as MessageEvent).data))
+      setError(null)
+    })
+    return () => events.close()
+  }, [])
+
   const getStatusColor = (status: string) => {
     switch (status.toLowerCase()) {
       case 'healthy':